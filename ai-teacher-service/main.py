@@ -1,12 +1,14 @@
 # service.py
 
 import os
+import json
 import uuid
 import logging
 from typing import Dict, Any, List
 
-from fastapi import FastAPI, APIRouter, HTTPException
-from fastapi.responses import JSONResponse
+from fastapi import FastAPI, APIRouter, HTTPException, Request
+from fastapi.responses import JSONResponse, StreamingResponse
+from starlette.concurrency import iterate_in_threadpool, run_in_threadpool
 from pydantic import BaseModel
 from huggingface_hub import InferenceClient
 
@@ -88,7 +90,9 @@ class CohereHFChat(LLM):
         choices = getattr(completion, "choices", None) or []
         first = choices[0] if choices else completion
         msg = getattr(first, "message", None)
-        return str(msg or first)
+        # plain text, as /message/stream sends it; str(msg) would be the whole ChatCompletionOutputMessage repr
+        content = getattr(msg, "content", None)
+        return content if content is not None else str(msg or first)
 
     @property
     def _identifying_params(self) -> dict:
@@ -150,6 +154,57 @@ def send_message(conv_id: str, body: MessageRequest):
     return {"answer": answer, "conversation_id": conv_id}
 
 
+@router.post("/conversations/{conv_id}/message/stream")
+async def stream_message(conv_id: str, body: MessageRequest, request: Request):
+    """
+    Same as /message, but the answer is sent as server-sent events while it is generated:
+    `data: {"token": "..."}` per chunk, then `event: done`. If the client goes away the
+    completion stream is closed, so an abandoned answer is not generated to the end.
+    """
+    conv = CONVERSATIONS.get(conv_id)
+    if not conv:
+        raise HTTPException(status_code=404, detail="Conversation not found")
+
+    llm = conv.llm
+    history = conv.memory.load_memory_variables({})["history"]
+    messages = [{"role": "system", "content": "You are a helpful finance teacher. Keep answers concise (short/medium)."}]
+    for m in history:
+        messages.append({"role": "user" if m.type == "human" else "assistant", "content": m.content})
+    messages.append({"role": "user", "content": body.message})
+
+    stream = await run_in_threadpool(
+        llm.client.chat.completions.create,
+        model=llm.model,
+        messages=messages,
+        max_tokens=llm.max_new_tokens,
+        stream=True,
+    )
+
+    async def events():
+        parts = []
+        try:
+            async for chunk in iterate_in_threadpool(stream):
+                if await request.is_disconnected():
+                    logger.info(f"Client left conversation {conv_id}, stopping generation")
+                    return
+                choices = getattr(chunk, "choices", None) or []
+                token = choices[0].delta.content if choices else None
+                if token:
+                    parts.append(token)
+                    yield f"data: {json.dumps({'token': token})}\n\n"
+            conv.memory.save_context({"input": body.message}, {"response": "".join(parts)})
+            yield "event: done\ndata: {}\n\n"
+        except Exception as e:
+            logger.error(f"Error in stream_message: {e}")
+            yield f"event: error\ndata: {json.dumps({'error': str(e)})}\n\n"
+        finally:
+            close = getattr(stream, "close", None)
+            if close:
+                close()
+
+    return StreamingResponse(events(), media_type="text/event-stream")
+
+
 @router.get("/conversations/{conv_id}/history")
 def get_history(conv_id: str):
     conv = CONVERSATIONS.get(conv_id)
@@ -0,0 +1,78 @@
+package com.example.demo.concurrent;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures in a row the
+ * circuit opens and calls are refused for {@code openMillis}; then a single trial call is
+ * let through and its outcome closes the circuit again or keeps it open for another period.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = Math.max(0, openMillis) * 1_000_000L;
+    }
+
+    /**
+     * Whether a call may go ahead; a permitted call must end in {@link #onSuccess()},
+     * {@link #onFailure()} or, when it was abandoned before the outcome was known,
+     * {@link #release()}.
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                return true;
+            default:
+                // the trial call is still running
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            System.out.println("Circuit " + name + " closed");
+        }
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            if (state != State.OPEN) {
+                System.err.println("Circuit " + name + " opened after " + Math.max(1, failures) + " failure(s)");
+            }
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            failures = 0;
+        }
+    }
+
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            // the open period is over, so the next call becomes the new trial
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+}
@@ -1,48 +1,95 @@
 package com.example.demo.controller;
 
+import com.example.demo.service.ChatService;
+import com.example.demo.stream.ConflatingSubscriber;
+import com.example.demo.stream.SseTokenSink;
+import com.example.demo.stream.StreamDispatcher;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
 @RequestMapping("/api/chat")
-public class ChatController {
+public class ChatController implements DisposableBean {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final String FASTAPI_URL = "http://127.0.0.1:5049/items";
+    private final ChatService chatService;
+    private final long streamTimeoutMillis;
+    // writes the streamed answers, so a slow client never holds a thread of the teacher client
+    private final StreamDispatcher dispatcher;
 
-    private String convId = null;
+    public ChatController(ChatService chatService,
+                          @Value("${app.teacher.stream.timeout.ms:120000}") long streamTimeoutMillis,
+                          @Value("${app.chat.stream.max-rate:20}") double maxRate,
+                          @Value("${app.chat.stream.writer.threads:2}") int writerThreads,
+                          @Value("${app.stream.heartbeat.ms:15000}") long heartbeatMillis) {
+        this.chatService = chatService;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.dispatcher = new StreamDispatcher("chat-stream", writerThreads, maxRate, heartbeatMillis);
+    }
 
+    // completes asynchronously: the servlet thread is released while the teacher service thinks
     @PostMapping("/question")
-    public Map<String, String> askQuestion(@RequestParam String question) {
-        try {
-            if (convId == null) {
-                Map<String, Object> createResp = restTemplate.postForObject(
-                        FASTAPI_URL + "/conversations",
-                        null,
-                        Map.class
-                );
-                convId = (String) createResp.get("conversation_id");
-            }
-
-            Map<String, String> messageBody = Map.of("message", question);
-            Map<String, Object> answerResp = restTemplate.postForObject(
-                    FASTAPI_URL + "/conversations/" + convId + "/message",
-                    messageBody,
-                    Map.class
-            );
+    public CompletableFuture<Map<String, String>> askQuestion(@RequestParam String question, HttpSession session) {
+        return chatService.ask(session.getId(), question)
+                .thenApply(answer -> Map.of(
+                        "question", question,
+                        "answer", answer
+                ));
+    }
 
-            return Map.of(
-                    "question", question,
-                    "answer", (String) answerResp.get("answer")
-            );
+    /**
+     * Server-sent "token" events (each a JSON string) while the answer is generated, then
+     * "done", or "error" with a message. Tokens are only queued on the thread that receives
+     * them; the dispatcher's writers send them, joining the ones that pile up behind a slow
+     * client. When the client goes away the next write fails and the generation on the
+     * teacher service is cancelled.
+     */
+    @PostMapping(path = "/question/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQuestion(@RequestParam String question, HttpSession session) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        ConflatingSubscriber<Long, SseTokenSink.Part> subscriber =
+                dispatcher.subscribe(new SseTokenSink(emitter), s -> closed.complete(null));
+        // increasing keys: every part is kept, in order
+        AtomicLong sequence = new AtomicLong();
 
-        } catch (Exception e) {
-            return Map.of("error", e.getMessage());
+        CompletableFuture<String> answer;
+        try {
+            answer = chatService.stream(session.getId(), question,
+                    token -> subscriber.offer(sequence.incrementAndGet(), SseTokenSink.Part.token(token)));
+        } catch (RuntimeException e) {
+            subscriber.close();
+            throw e;
         }
+        answer.whenComplete((text, error) -> {
+            if (answer.isCancelled()) return;
+            if (error == null) {
+                subscriber.offer(sequence.incrementAndGet(), SseTokenSink.Part.done());
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                subscriber.offer(sequence.incrementAndGet(), SseTokenSink.Part.error(cause.getMessage()));
+            }
+        });
+        closed.thenRun(() -> answer.cancel(true));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return emitter;
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.close();
     }
 }
@@ -0,0 +1,72 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.ChatResponseCache;
+import com.example.demo.service.MarketDataBootstrap;
+import com.example.demo.service.QuoteCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/health")
+public class HealthController {
+
+    private final MarketDataBootstrap bootstrap;
+    private final QuoteCache quoteCache;
+    private final ChatResponseCache chatResponseCache;
+
+    public HealthController(MarketDataBootstrap bootstrap, QuoteCache quoteCache, ChatResponseCache chatResponseCache) {
+        this.bootstrap = bootstrap;
+        this.quoteCache = quoteCache;
+        this.chatResponseCache = chatResponseCache;
+    }
+
+    @GetMapping
+    public Map<String, Object> health() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "UP");
+        result.put("marketData", bootstrap.getState());
+        result.put("snapshotAvailable", bootstrap.isSnapshotAvailable());
+        result.put("loadStartedAt", bootstrap.getStartedAt());
+        result.put("loadCompletedAt", bootstrap.getCompletedAt());
+        result.put("lastError", bootstrap.getLastError());
+        return result;
+    }
+
+    @GetMapping("/readiness")
+    public ResponseEntity<Map<String, Object>> readiness() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ready", bootstrap.isReady());
+        result.put("marketData", bootstrap.getState());
+        result.put("lastError", bootstrap.getLastError());
+        return ResponseEntity
+                .status(bootstrap.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(result);
+    }
+
+    @GetMapping("/quote-cache")
+    public Map<String, Object> quoteCacheStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("byTicker", quoteCache.tickerStats());
+        result.put("byMarket", quoteCache.marketStats());
+        return result;
+    }
+
+    @GetMapping("/chat-cache")
+    public Map<String, Object> chatCacheStats() {
+        ChatResponseCache.Stats stats = chatResponseCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("exactHits", stats.exactHits());
+        result.put("similarHits", stats.similarHits());
+        result.put("misses", stats.misses());
+        result.put("skippedFollowUps", stats.skipped());
+        result.put("hitRate", stats.hitRate());
+        result.put("entries", stats.entries());
+        return result;
+    }
+}
@@ -1,13 +1,26 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.*;
 import com.example.demo.entities.Asset;
 import com.example.demo.entities.MarketType;
-import com.example.demo.exception.MarketNotFoundException;
 import com.example.demo.exception.SymbolNotFoundException;
 import com.example.demo.repository.AssetRepository;
 import com.example.demo.repository.MarketTypeRepository;
+import com.example.demo.service.AssetSearchIndex;
+import com.example.demo.service.AssetSnapshotService;
+import com.example.demo.service.MarketMoversService;
+import com.example.demo.service.PriceHistoryStore;
+import com.example.demo.service.QuoteCache;
+import com.example.demo.timeseries.BarInterval;
+import com.example.demo.timeseries.Bars;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,12 +28,29 @@ import java.util.Optional;
 @RequestMapping("/api")
 public class MarketController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_SUGGESTIONS = 25;
+    private static final int MAX_HISTORY_POINTS = 5000;
+
     private final AssetRepository assetRepository;
     private final MarketTypeRepository marketTypeRepository;
+    private final QuoteCache quoteCache;
+    private final AssetSnapshotService snapshotService;
+    private final AssetSearchIndex searchIndex;
+    private final PriceHistoryStore historyStore;
+    private final MarketMoversService moversService;
 
-    public MarketController(AssetRepository assetRepository, MarketTypeRepository marketTypeRepository) {
+    public MarketController(AssetRepository assetRepository, MarketTypeRepository marketTypeRepository,
+                            QuoteCache quoteCache, AssetSnapshotService snapshotService,
+                            AssetSearchIndex searchIndex, PriceHistoryStore historyStore,
+                            MarketMoversService moversService) {
         this.assetRepository = assetRepository;
         this.marketTypeRepository = marketTypeRepository;
+        this.quoteCache = quoteCache;
+        this.snapshotService = snapshotService;
+        this.searchIndex = searchIndex;
+        this.historyStore = historyStore;
+        this.moversService = moversService;
     }
 
     @GetMapping("/market-types")
@@ -29,21 +59,93 @@ public class MarketController {
     }
 
     @GetMapping("/assets")
-    public List<Asset> getAllAssets() {
-        return assetRepository.findAll();
+    public ResponseEntity<byte[]> getAllAssets(WebRequest request) {
+        return snapshotResponse(snapshotService.all(), request);
     }
 
     @GetMapping("/assets/market/{marketName}")
-    public List<Asset> getAssetsByMarket(@PathVariable String marketName) {
-        MarketType market = marketTypeRepository.findByName(marketName)
-                .orElseThrow(() -> new MarketNotFoundException(marketName));
+    public ResponseEntity<byte[]> getAssetsByMarket(@PathVariable String marketName, WebRequest request) {
+        return snapshotResponse(snapshotService.byMarket(marketName), request);
+    }
+
+    @GetMapping("/assets/movers")
+    public MarketSummary getMovers(@RequestParam(defaultValue = "10") int limit) {
+        return moversService.all().limit(Math.max(limit, 0));
+    }
 
-        return assetRepository.findByMarketType(market);
+    @GetMapping("/assets/market/{marketName}/movers")
+    public MarketSummary getMoversByMarket(@PathVariable String marketName,
+                                           @RequestParam(defaultValue = "10") int limit) {
+        return moversService.byMarket(marketName).limit(Math.max(limit, 0));
+    }
+
+    @GetMapping("/assets/page")
+    public AssetPage getAssetPage(@RequestParam(required = false) String market,
+                                  @RequestParam(required = false) String prefix,
+                                  @RequestParam(defaultValue = "close") String sort,
+                                  @RequestParam(defaultValue = "desc") String direction,
+                                  @RequestParam(defaultValue = "50") int limit,
+                                  @RequestParam(required = false) String cursor) {
+        AssetSortField sortField = AssetSortField.fromParam(sort);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        AssetQuery query = new AssetQuery(
+                market,
+                prefix != null && !prefix.isBlank() ? prefix.trim() : null,
+                sortField,
+                !"asc".equalsIgnoreCase(direction),
+                cursor != null && !cursor.isBlank() ? AssetCursor.decode(cursor) : null,
+                pageSize + 1);
+
+        List<AssetSummary> rows = assetRepository.findPage(query);
+        if (rows.size() <= pageSize) {
+            return new AssetPage(rows, null);
+        }
+        List<AssetSummary> items = rows.subList(0, pageSize);
+        AssetSummary last = items.get(pageSize - 1);
+        return new AssetPage(List.copyOf(items), new AssetCursor(sortField.valueOf(last), last.id()).encode());
+    }
+
+    @GetMapping("/assets/suggest")
+    public List<AssetSearchIndex.Suggestion> suggestAssets(@RequestParam("q") String query,
+                                                           @RequestParam(defaultValue = "10") int limit) {
+        return searchIndex.suggest(query, Math.min(limit, MAX_SUGGESTIONS));
     }
 
     @GetMapping("/assets/{ticker}")
     public Asset getAssetByTicker(@PathVariable String ticker) {
-        return assetRepository.findByTicker(ticker)
+        return quoteCache.byTicker(ticker)
                 .orElseThrow(() -> new SymbolNotFoundException(ticker));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/assets/{ticker}/history")
+    public PriceHistory getAssetHistory(@PathVariable String ticker,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                        @RequestParam(defaultValue = "1d") String interval,
+                                        @RequestParam(defaultValue = "0") int points) {
+        BarInterval barInterval = BarInterval.fromParam(interval);
+        Bars bars = historyStore.bars(ticker, from, to)
+                .orElseGet(() -> quoteCache.byTicker(ticker).map(a -> Bars.EMPTY)
+                        .orElseThrow(() -> new SymbolNotFoundException(ticker)));
+        int maxPoints = points > 0 ? Math.min(points, MAX_HISTORY_POINTS) : MAX_HISTORY_POINTS;
+        return PriceHistory.of(ticker, barInterval.param(), bars.downsample(barInterval).limit(maxPoints));
+    }
+
+    private ResponseEntity<byte[]> snapshotResponse(AssetSnapshotService.Snapshot snapshot, WebRequest request) {
+        if (request.checkNotModified(snapshot.etag())) {
+            return null;
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = snapshot.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return response.body(snapshot.json());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.PnlTick;
+import com.example.demo.dto.PriceTick;
+import com.example.demo.service.PnlStreamService;
+import com.example.demo.service.PriceStreamService;
+import com.example.demo.stream.ConflatingSubscriber;
+import com.example.demo.stream.SseSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    private final PriceStreamService priceStreamService;
+    private final PnlStreamService pnlStreamService;
+    private final long timeoutMillis;
+
+    public StreamController(PriceStreamService priceStreamService, PnlStreamService pnlStreamService,
+                            @Value("${app.stream.timeout.ms:1800000}") long timeoutMillis) {
+        this.priceStreamService = priceStreamService;
+        this.pnlStreamService = pnlStreamService;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Server-sent "prices" events, each a JSON array of {@link PriceTick}s, for the given
+     * tickers and/or market, or for every asset when neither is given.
+     */
+    @GetMapping(path = "/prices", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPrices(@RequestParam(required = false) List<String> tickers,
+                                   @RequestParam(required = false) String market) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        ConflatingSubscriber<String, PriceTick> subscriber =
+                priceStreamService.subscribe(tickers, market, new SseSink<>(emitter, "prices"));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return emitter;
+    }
+
+    /**
+     * Server-sent "pnl" events, each a JSON array of {@link PnlTick}s: the whole portfolio
+     * first, then only the positions a price change touched, each time with the total.
+     */
+    @GetMapping(path = "/portfolio/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPortfolio(@PathVariable Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        ConflatingSubscriber<Long, PnlTick> subscriber = pnlStreamService.subscribe(userId, new SseSink<>(emitter, "pnl"));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return emitter;
+    }
+}
@@ -1,21 +1,42 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.TradeBatchResult;
+import com.example.demo.dto.TradeOrder;
+import com.example.demo.dto.TransactionCursor;
+import com.example.demo.dto.TransactionPage;
+import com.example.demo.dto.TransactionQuery;
 import com.example.demo.entities.UserTransaction;
 import com.example.demo.entities.TransactionType;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.service.UserTransactionService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/transactions")
 public class UserTransactionController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final UserTransactionService transactionService;
+    private final ObjectMapper objectMapper;
 
-    public UserTransactionController(UserTransactionService transactionService) {
+    public UserTransactionController(UserTransactionService transactionService, ObjectMapper objectMapper) {
         this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/ping")
@@ -23,6 +44,41 @@ public class UserTransactionController {
         return "Controller works!";
     }
 
+    @GetMapping
+    public TransactionPage getTransactions(@RequestParam Long userId,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                           @RequestParam(defaultValue = "100") int limit,
+                                           @RequestParam(required = false) String cursor) {
+        TransactionCursor after = cursor != null && !cursor.isBlank() ? TransactionCursor.decode(cursor) : null;
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return transactionService.getTransactionHistory(new TransactionQuery(userId, from, to, after, pageSize));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        TransactionQuery query = new TransactionQuery(userId, from, to, null, Integer.MAX_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                transactionService.exportTransactions(query, tx -> {
+                    try {
+                        json.writeObject(tx);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions-" + userId + ".json\"")
+                .body(body);
+    }
+
     @PostMapping("/buy")
     public UserTransaction buyTransaction(@RequestParam Long userId,
                                           @RequestParam String ticker,
@@ -39,6 +95,14 @@ public class UserTransactionController {
         return transactionService.addTransaction(userId, null, amount, price, TransactionType.SELL, assetId);
     }
 
+    @PostMapping("/batch")
+    public TradeBatchResult batchTransactions(@RequestBody List<TradeOrder> orders) {
+        if (orders.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_BATCH_SIZE + " orders per batch");
+        }
+        return transactionService.executeBatch(orders);
+    }
+
     @PutMapping("/{transactionId}/edit")
     public UserTransaction editTransaction(
             @RequestParam Long userId,
@@ -0,0 +1,326 @@
+package com.example.demo.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Single-pass, quote-aware CSV tokenizer. Unquoted field contents are written into one
+ * reusable char buffer and exposed through {@link Field} views, so a record costs no
+ * intermediate strings unless the caller asks for one.
+ *
+ * <p>Not thread-safe; use one instance per reader or per parsing thread.
+ */
+public final class CsvTokenizer {
+
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+
+    private final Reader reader;
+    private final char[] input;
+    private int inputPos;
+    private int inputLen;
+
+    private char[] buf = new char[256];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private Field[] views = new Field[16];
+    private int count;
+
+    private int write;
+    private int fieldStart;
+    private boolean inQuotes;
+    private boolean quotePending;
+
+    public CsvTokenizer() {
+        this(null);
+    }
+
+    public CsvTokenizer(Reader reader) {
+        this.reader = reader;
+        this.input = reader != null ? new char[INPUT_BUFFER_SIZE] : null;
+    }
+
+    /**
+     * Reads the next record from the underlying reader. Quoted fields may span lines.
+     */
+    public boolean next() throws IOException {
+        if (reader == null) {
+            throw new IllegalStateException("Tokenizer was created without a reader");
+        }
+        begin();
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+        while (c >= 0) {
+            if (accept((char) c)) {
+                return true;
+            }
+            c = read();
+        }
+        endField();
+        return true;
+    }
+
+    /**
+     * Tokenizes a single line, stopping at the first unquoted line break.
+     */
+    public int tokenize(CharSequence line) {
+        return tokenize(line, 0, line.length());
+    }
+
+    /**
+     * Tokenizes {@code line[from, to)} without copying it into a separate string first.
+     */
+    public int tokenize(CharSequence line, int from, int to) {
+        begin();
+        for (int i = from; i < to; i++) {
+            if (accept(line.charAt(i))) {
+                return count;
+            }
+        }
+        endField();
+        return count;
+    }
+
+    public int fieldCount() {
+        return count;
+    }
+
+    public Field field(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + count);
+        }
+        Field view = views[index];
+        if (view == null) {
+            view = new Field(index);
+            views[index] = view;
+        }
+        return view;
+    }
+
+    private void begin() {
+        count = 0;
+        write = 0;
+        fieldStart = 0;
+        inQuotes = false;
+        quotePending = false;
+    }
+
+    private boolean accept(char c) {
+        if (quotePending) {
+            quotePending = false;
+            if (c == '"') {
+                put(c);
+                return false;
+            }
+            inQuotes = false;
+        } else if (inQuotes) {
+            if (c == '"') {
+                quotePending = true;
+            } else {
+                put(c);
+            }
+            return false;
+        }
+
+        switch (c) {
+            case '"' -> inQuotes = true;
+            case ',' -> endField();
+            case '\n' -> {
+                endField();
+                return true;
+            }
+            case '\r' -> { }
+            default -> put(c);
+        }
+        return false;
+    }
+
+    private void put(char c) {
+        if (write == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        buf[write++] = c;
+    }
+
+    private void endField() {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            views = Arrays.copyOf(views, count * 2);
+        }
+        int s = fieldStart;
+        int e = write;
+        while (s < e && buf[s] <= ' ') s++;
+        while (e > s && buf[e - 1] <= ' ') e--;
+        starts[count] = s;
+        ends[count] = e;
+        count++;
+        fieldStart = write;
+    }
+
+    private int read() throws IOException {
+        if (inputPos == inputLen) {
+            inputLen = reader.read(input, 0, input.length);
+            inputPos = 0;
+            if (inputLen <= 0) {
+                inputLen = 0;
+                return -1;
+            }
+        }
+        return input[inputPos++];
+    }
+
+    /**
+     * View over one field of the current record. Only valid until the next call to
+     * {@link #next()} or {@link #tokenize(CharSequence)}.
+     */
+    public final class Field implements CharSequence {
+
+        private final int index;
+
+        private Field(int index) {
+            this.index = index;
+        }
+
+        private int start() {
+            return starts[index];
+        }
+
+        @Override
+        public int length() {
+            return ends[index] - starts[index];
+        }
+
+        @Override
+        public char charAt(int i) {
+            return buf[start() + i];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(buf, start() + from, to - from);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return length() == 0;
+        }
+
+        @Override
+        public String toString() {
+            return new String(buf, start(), length());
+        }
+
+        /**
+         * Parses the field as a decimal, returning null for blank or malformed values.
+         */
+        public BigDecimal toBigDecimal() {
+            int len = length();
+            if (len == 0) {
+                return null;
+            }
+            try {
+                return new BigDecimal(buf, start(), len);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Parses {@code yyyy-MM-dd}, optionally followed by {@code [ T]HH:mm:ss[.fraction]} and a
+         * {@code Z} or {@code +HH:mm}/{@code -HH:mm} offset. Returns null when the field does not match.
+         */
+        public Instant toInstant() {
+            int s = start();
+            int end = s + length();
+            if (end - s < 10 || buf[s + 4] != '-' || buf[s + 7] != '-') {
+                return null;
+            }
+            int year = digits(s, 4);
+            int month = digits(s + 5, 2);
+            int day = digits(s + 8, 2);
+            if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+                return null;
+            }
+            long seconds = epochDay(year, month, day) * 86_400L;
+            long nanos = 0;
+
+            int p = s + 10;
+            if (p < end && (buf[p] == ' ' || buf[p] == 'T')) {
+                if (p + 9 > end || buf[p + 3] != ':' || buf[p + 6] != ':') {
+                    return null;
+                }
+                int hour = digits(p + 1, 2);
+                int minute = digits(p + 4, 2);
+                int second = digits(p + 7, 2);
+                if (hour < 0 || minute < 0 || second < 0) {
+                    return null;
+                }
+                seconds += hour * 3600L + minute * 60L + second;
+                p += 9;
+
+                if (p < end && buf[p] == '.') {
+                    p++;
+                    int scale = 100_000_000;
+                    while (p < end && buf[p] >= '0' && buf[p] <= '9') {
+                        nanos += (long) (buf[p] - '0') * scale;
+                        scale /= 10;
+                        p++;
+                    }
+                }
+
+                if (p < end) {
+                    char sign = buf[p];
+                    if (sign == 'Z') {
+                        p++;
+                    } else if ((sign == '+' || sign == '-') && p + 6 <= end && buf[p + 3] == ':') {
+                        int offsetHours = digits(p + 1, 2);
+                        int offsetMinutes = digits(p + 4, 2);
+                        if (offsetHours < 0 || offsetMinutes < 0) {
+                            return null;
+                        }
+                        int offset = offsetHours * 3600 + offsetMinutes * 60;
+                        seconds -= sign == '+' ? offset : -offset;
+                        p += 6;
+                    } else {
+                        return null;
+                    }
+                }
+            }
+            return p == end ? Instant.ofEpochSecond(seconds, nanos) : null;
+        }
+
+        private int digits(int from, int n) {
+            int value = 0;
+            for (int i = from; i < from + n; i++) {
+                char c = buf[i];
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+    }
+
+    // same arithmetic as LocalDate.toEpochDay, without materialising a LocalDate
+    static long epochDay(int year, int month, int day) {
+        long total = 365L * year;
+        total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+            if (!leap) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
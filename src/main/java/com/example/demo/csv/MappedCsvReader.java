@@ -0,0 +1,151 @@
+package com.example.demo.csv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Parses a large CSV file in parallel. The file is cut into byte ranges that start right
+ * after a line feed; every range is memory-mapped, decoded and tokenized by its own
+ * fork-join task, and the results are concatenated in file order.
+ *
+ * <p>Records are split on raw line feeds, so quoted fields must not contain line breaks.
+ */
+public final class MappedCsvReader {
+
+    private static final long TARGET_RANGE_BYTES = 8L * 1024 * 1024;
+    private static final long MIN_RANGE_BYTES = 256L * 1024;
+    private static final int PROBE_BYTES = 64 * 1024;
+
+    private final ForkJoinPool pool;
+
+    public MappedCsvReader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param mapper turns the current record into a value, or returns null to skip it
+     */
+    public <T> List<T> read(Path path, boolean skipHeader, Function<CsvTokenizer, T> mapper) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = skipHeader ? nextLineStart(channel, 0, size) : 0;
+            List<long[]> ranges = split(channel, start, size);
+
+            List<RangeTask<T>> tasks = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                tasks.add(new RangeTask<>(channel, range[0], range[1], mapper));
+            }
+
+            try {
+                return pool.invoke(new RecursiveTask<List<T>>() {
+                    @Override
+                    protected List<T> compute() {
+                        invokeAll(tasks);
+                        List<T> result = new ArrayList<>();
+                        for (RangeTask<T> task : tasks) {
+                            result.addAll(task.join());
+                        }
+                        return result;
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private List<long[]> split(FileChannel channel, long start, long size) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        long length = size - start;
+        if (length <= 0) {
+            return ranges;
+        }
+
+        long pieces = Math.max(pool.getParallelism(), (length + TARGET_RANGE_BYTES - 1) / TARGET_RANGE_BYTES);
+        pieces = Math.max(1, Math.min(pieces, (length + MIN_RANGE_BYTES - 1) / MIN_RANGE_BYTES));
+
+        long from = start;
+        for (long i = 1; i < pieces && from < size; i++) {
+            long to = nextLineStart(channel, Math.max(from, start + length * i / pieces), size);
+            if (to > from) {
+                ranges.add(new long[]{from, to});
+                from = to;
+            }
+        }
+        if (from < size) {
+            ranges.add(new long[]{from, size});
+        }
+        return ranges;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        while (position < size) {
+            int window = (int) Math.min(PROBE_BYTES, size - position);
+            MappedByteBuffer probe = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+            for (int i = 0; i < window; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += window;
+        }
+        return size;
+    }
+
+    private static final class RangeTask<T> extends RecursiveTask<List<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long from;
+        private final long to;
+        private final Function<CsvTokenizer, T> mapper;
+
+        RangeTask(FileChannel channel, long from, long to, Function<CsvTokenizer, T> mapper) {
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected List<T> compute() {
+            CharBuffer chars;
+            try {
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+                chars = StandardCharsets.UTF_8.decode(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            List<T> result = new ArrayList<>();
+            CsvTokenizer tokenizer = new CsvTokenizer();
+            int length = chars.length();
+            int lineStart = 0;
+            for (int i = 0; i <= length; i++) {
+                if (i == length || chars.charAt(i) == '\n') {
+                    if (i > lineStart) {
+                        tokenizer.tokenize(chars, lineStart, i);
+                        T value = mapper.apply(tokenizer);
+                        if (value != null) {
+                            result.add(value);
+                        }
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            return result;
+        }
+    }
+}
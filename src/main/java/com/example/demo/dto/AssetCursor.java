@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import com.example.demo.exception.BadRequestException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position for {@link AssetPage}: the sort value and id of the last row returned.
+ * Encoded as an opaque URL-safe token.
+ */
+public record AssetCursor(BigDecimal value, long id) {
+
+    public String encode() {
+        String raw = (value != null ? value.toPlainString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AssetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            String value = raw.substring(0, sep);
+            return new AssetCursor(value.isEmpty() ? null : new BigDecimal(value), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+    }
+}
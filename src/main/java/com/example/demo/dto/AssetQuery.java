@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+public record AssetQuery(String market,
+                         String namePrefix,
+                         AssetSortField sort,
+                         boolean descending,
+                         AssetCursor after,
+                         int limit) {
+}
@@ -0,0 +1,39 @@
+package com.example.demo.dto;
+
+import com.example.demo.exception.BadRequestException;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+public enum AssetSortField {
+    CLOSE("close_price"),
+    VOLUME("volume"),
+    PERCENT_CHANGE("percent_change");
+
+    private final String column;
+
+    AssetSortField(String column) {
+        this.column = column;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public BigDecimal valueOf(AssetSummary asset) {
+        return switch (this) {
+            case CLOSE -> asset.closePrice();
+            case VOLUME -> asset.volume();
+            case PERCENT_CHANGE -> asset.percentChange();
+        };
+    }
+
+    public static AssetSortField fromParam(String value) {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "close", "closeprice" -> CLOSE;
+            case "volume" -> VOLUME;
+            case "percentchange", "change" -> PERCENT_CHANGE;
+            default -> throw new BadRequestException("Unsupported sort field: " + value);
+        };
+    }
+}
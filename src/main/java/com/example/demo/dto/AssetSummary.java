@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record AssetSummary(Long id,
+                           String ticker,
+                           String name,
+                           String market,
+                           BigDecimal closePrice,
+                           BigDecimal percentChange,
+                           BigDecimal volume,
+                           Instant lastUpdated) {
+}
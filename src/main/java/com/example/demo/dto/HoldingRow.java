@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A position reduced to what risk needs: who holds how much of which ticker at what price.
+ */
+public record HoldingRow(Long userId, Long assetId, String ticker, BigDecimal quantity, BigDecimal closePrice) {
+}
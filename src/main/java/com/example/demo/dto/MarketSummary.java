@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Aggregates of one market (or of all markets) as of its last refresh. Assets without a
+ * percent change count as neither advancing nor declining and are not ranked as movers.
+ */
+public record MarketSummary(String market, int assets, int advancers, int decliners, int unchanged,
+                            BigDecimal totalVolume, List<Mover> topGainers, List<Mover> topLosers,
+                            List<Mover> mostActive, Instant computedAt) {
+
+    public record Mover(String ticker, String name, BigDecimal closePrice, BigDecimal percentChange,
+                        BigDecimal volume) {
+    }
+
+    public MarketSummary limit(int n) {
+        if (n >= Math.max(topGainers.size(), Math.max(topLosers.size(), mostActive.size()))) {
+            return this;
+        }
+        return new MarketSummary(market, assets, advancers, decliners, unchanged, totalVolume,
+                topGainers.subList(0, Math.min(n, topGainers.size())),
+                topLosers.subList(0, Math.min(n, topLosers.size())),
+                mostActive.subList(0, Math.min(n, mostActive.size())), computedAt);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A changed profit/loss figure pushed to portfolio stream subscribers: one position, or the
+ * portfolio total when {@code assetId} is null (then {@code ticker} and {@code price} are
+ * null too). {@code profitLoss} of a position is its {@code profitAsset} on the portfolio
+ * page.
+ */
+public record PnlTick(Long assetId, String ticker, BigDecimal quantity, BigDecimal price,
+                      BigDecimal costBasis, BigDecimal marketValue, BigDecimal profitLoss) {
+}
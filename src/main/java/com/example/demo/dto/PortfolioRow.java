@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of the portfolio read query: the user's columns repeated on every lot, lot and
+ * asset columns null when the user holds nothing.
+ * {@code costBasis} is the position's total cost.
+ */
+public record PortfolioRow(Long userId, String username, BigDecimal balance,
+                           Long lotId, BigDecimal quantity, BigDecimal purchasePrice,
+                           BigDecimal costBasis,
+                           Long assetId, String ticker, String name, BigDecimal closePrice) {
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record PortfolioView(Long userId, String user, BigDecimal balance, BigDecimal costBasis,
+                            BigDecimal marketValue, BigDecimal profitLoss, List<Lot> assets) {
+
+    public record Lot(Long id, BigDecimal quantity, BigDecimal purchasePrice, BigDecimal profitAsset,
+                      AssetRef asset) {
+    }
+
+    public record AssetRef(Long id, String ticker, String name, BigDecimal closePrice) {
+    }
+}
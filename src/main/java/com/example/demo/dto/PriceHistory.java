@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import com.example.demo.timeseries.Bars;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OHLCV bars of one ticker in columnar form: element i of every array belongs to dates[i].
+ */
+public record PriceHistory(String ticker, String interval, List<LocalDate> dates,
+                           double[] open, double[] high, double[] low, double[] close, double[] volume) {
+
+    public static PriceHistory of(String ticker, String interval, Bars bars) {
+        List<LocalDate> dates = new ArrayList<>(bars.size());
+        for (int day : bars.days()) {
+            dates.add(LocalDate.ofEpochDay(day));
+        }
+        return new PriceHistory(ticker, interval, dates, bars.open(), bars.high(), bars.low(), bars.close(), bars.volume());
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Latest quote of one asset as pushed to price stream subscribers.
+ */
+public record PriceTick(String ticker, String market, BigDecimal closePrice, BigDecimal previousClose,
+                        BigDecimal percentChange, Instant lastUpdated) {
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Risk of a user's holdings over the days all of them have price history. VaR figures are
+ * one-day losses in money; volatilities are annualized. Metrics are null when there are
+ * fewer than two daily returns. {@code correlation} follows the order of {@code assets};
+ * tickers without enough history are listed in {@code withoutHistory} and left out.
+ */
+public record RiskReport(Long userId, LocalDate asOf, int observations, BigDecimal marketValue,
+                         List<AssetRisk> assets, Double portfolioVolatility,
+                         BigDecimal historicalVar95, BigDecimal historicalVar99,
+                         BigDecimal parametricVar95, BigDecimal parametricVar99,
+                         double[][] correlation, List<String> withoutHistory) {
+
+    public record AssetRisk(String ticker, BigDecimal quantity, BigDecimal marketValue, double weight,
+                            Double volatility) {
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record TradeBatchResult(int applied, int failed, List<TradeResult> results) {
+}
@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import com.example.demo.entities.TransactionType;
+
+import java.math.BigDecimal;
+
+/**
+ * One order of a batch. A BUY names the asset by {@code ticker}; a SELL names the portfolio
+ * lot it sells from by {@code assetId}, as the single-order endpoints do.
+ */
+public record TradeOrder(Long userId, TransactionType type, String ticker, Long assetId,
+                         BigDecimal amount, BigDecimal price) {
+}
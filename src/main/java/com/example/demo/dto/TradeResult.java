@@ -0,0 +1,4 @@
+package com.example.demo.dto;
+
+public record TradeResult(int index, Long userId, boolean applied, String error) {
+}
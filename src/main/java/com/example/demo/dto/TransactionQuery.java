@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+public record TransactionQuery(Long userId,
+                               LocalDateTime from,
+                               LocalDateTime to,
+                               TransactionCursor after,
+                               int limit) {
+}
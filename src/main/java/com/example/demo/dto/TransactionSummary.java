@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import com.example.demo.entities.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record TransactionSummary(Long id, TransactionType type, BigDecimal amount, BigDecimal price,
+                                 LocalDateTime timestamp, AssetRef asset) {
+
+    public record AssetRef(Long id, String ticker, String name) {
+    }
+
+    // JPQL constructor projection
+    public TransactionSummary(Long id, TransactionType type, BigDecimal amount, BigDecimal price,
+                              LocalDateTime timestamp, Long assetId, String ticker, String name) {
+        this(id, type, amount, price, timestamp, assetId != null ? new AssetRef(assetId, ticker, name) : null);
+    }
+}
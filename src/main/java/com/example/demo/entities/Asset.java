@@ -1,15 +1,27 @@
 package com.example.demo.entities;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_asset_ticker", columnNames = "ticker"),
+        indexes = {
+                @Index(name = "idx_asset_close", columnList = "close_price, id"),
+                @Index(name = "idx_asset_volume", columnList = "volume, id"),
+                @Index(name = "idx_asset_percent_change", columnList = "percent_change, id"),
+                @Index(name = "idx_asset_market_close", columnList = "market_type_id, close_price, id"),
+                @Index(name = "idx_asset_market_volume", columnList = "market_type_id, volume, id"),
+                @Index(name = "idx_asset_market_percent_change", columnList = "market_type_id, percent_change, id"),
+                @Index(name = "idx_asset_name_key", columnList = "name_key, id")
+        })
 public class Asset {
     public Asset() {}
 
@@ -18,6 +30,9 @@ public class Asset {
     private Long id;
 
     private String name;
+    // upper-cased name, so a case-insensitive prefix search is an index range scan
+    @JsonIgnore
+    private String nameKey;
     private String ticker;
     private String exchange;
     private BigDecimal openPrice;
@@ -36,9 +51,11 @@ public class Asset {
     @JoinColumn(name = "market_type_id")
     private MarketType marketType;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "asset", cascade = CascadeType.ALL)
     private List<PortfolioAsset> portfolioAssets;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "asset", cascade = CascadeType.ALL)
     private List<UserTransaction> transactions;
 
@@ -131,6 +148,15 @@ public class Asset {
 
     public void setName(String name) {
         this.name = name;
+        this.nameKey = nameKey(name);
+    }
+
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    public static String nameKey(String name) {
+        return name != null ? name.toUpperCase(Locale.ROOT) : null;
     }
 
     public BigDecimal getPriceToBuy() {
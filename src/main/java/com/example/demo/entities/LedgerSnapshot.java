@@ -0,0 +1,78 @@
+package com.example.demo.entities;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A user's ledger state folded up to and including event {@code lastEventId}: the net cash
+ * of all trades and every open position. Rebuilding the state starts here and replays only
+ * the later events.
+ */
+@Entity
+@Table(name = "ledger_snapshots", indexes = @Index(name = "idx_ledger_snapshot_user", columnList = "user_id, last_event_id"))
+public class LedgerSnapshot {
+
+    @Embeddable
+    public static class Position {
+
+        private Long assetId;
+
+        @Column(precision = 38, scale = 8)
+        private BigDecimal quantity;
+
+        @Column(precision = 38, scale = 8)
+        private BigDecimal costBasis;
+
+        public Position() {
+        }
+
+        public Position(Long assetId, BigDecimal quantity, BigDecimal costBasis) {
+            this.assetId = assetId;
+            this.quantity = quantity;
+            this.costBasis = costBasis;
+        }
+
+        public Long getAssetId() { return assetId; }
+        public BigDecimal getQuantity() { return quantity; }
+        public BigDecimal getCostBasis() { return costBasis; }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long lastEventId;
+
+    @Column(precision = 38, scale = 8)
+    private BigDecimal cash;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "ledger_snapshot_positions", joinColumns = @JoinColumn(name = "snapshot_id"))
+    private List<Position> positions = new ArrayList<>();
+
+    private LocalDateTime timestamp = LocalDateTime.now();
+
+    public LedgerSnapshot() {
+    }
+
+    public LedgerSnapshot(Long userId, Long lastEventId, BigDecimal cash, List<Position> positions) {
+        this.userId = userId;
+        this.lastEventId = lastEventId;
+        this.cash = cash;
+        this.positions = positions;
+    }
+
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public Long getLastEventId() { return lastEventId; }
+    public BigDecimal getCash() { return cash; }
+    public List<Position> getPositions() { return positions; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+}
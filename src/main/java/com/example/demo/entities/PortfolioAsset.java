@@ -3,8 +3,14 @@ package com.example.demo.entities;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
+/**
+ * A user's position in one asset. Buys of the same asset are merged into it; the cost basis
+ * is kept as a total so the weighted-average purchase price does not drift with rounding.
+ */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_portfolio_asset_user_asset", columnNames = {"user_id", "asset_id"}))
 public class PortfolioAsset {
 
     @Id
@@ -34,6 +40,9 @@ public class PortfolioAsset {
 
     private BigDecimal purchasePrice;
 
+    @Column(precision = 38, scale = 8)
+    private BigDecimal costBasis;
+
     public void setPurchasePrice(BigDecimal purchasePrice) {
         this.purchasePrice = purchasePrice;
     }
@@ -42,6 +51,50 @@ public class PortfolioAsset {
         return purchasePrice;
     }
 
+    // rows written before positions were aggregated have no cost basis yet
+    public BigDecimal getCostBasis() {
+        if (costBasis != null) return costBasis;
+        return quantity != null && purchasePrice != null ? quantity.multiply(purchasePrice) : BigDecimal.ZERO;
+    }
+
+    public void setCostBasis(BigDecimal costBasis) { this.costBasis = costBasis; }
+
+    /**
+     * Adds a buy to the position and moves the purchase price to the weighted average.
+     */
+    public void addQuantity(BigDecimal amount, BigDecimal price) {
+        BigDecimal cost = getCostBasis().add(amount.multiply(price));
+        BigDecimal total = quantity != null ? quantity.add(amount) : amount;
+        this.quantity = total;
+        this.costBasis = cost;
+        this.purchasePrice = total.signum() > 0 ? cost.divide(total, 2, RoundingMode.HALF_UP) : price;
+    }
+
+    /**
+     * Takes {@code amount} out of the position at average cost and returns the cost removed.
+     */
+    public BigDecimal removeQuantity(BigDecimal amount) {
+        BigDecimal cost = getCostBasis();
+        if (amount.compareTo(quantity) >= 0) {
+            this.quantity = BigDecimal.ZERO;
+            this.costBasis = BigDecimal.ZERO;
+            return cost;
+        }
+        BigDecimal removed = cost.multiply(amount).divide(quantity, 8, RoundingMode.HALF_UP);
+        this.quantity = quantity.subtract(amount);
+        this.costBasis = cost.subtract(removed);
+        return removed;
+    }
+
+    /**
+     * Replaces quantity and cost basis, e.g. with the values rebuilt from the trade ledger.
+     */
+    public void setHolding(BigDecimal quantity, BigDecimal costBasis) {
+        this.quantity = quantity;
+        this.costBasis = costBasis;
+        this.purchasePrice = costBasis.divide(quantity, 2, RoundingMode.HALF_UP);
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
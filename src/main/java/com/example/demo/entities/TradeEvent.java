@@ -0,0 +1,88 @@
+package com.example.demo.entities;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only trade ledger. Each event carries the signed change it made to
+ * the position in one asset (quantity and cost basis) and to the cash balance, so a user's
+ * state is the sum of their events. Events are never updated; an edit or delete appends a
+ * {@link TradeEventKind#REVERSAL} with the negated deltas of the event it cancels.
+ *
+ * <p>{@code transactionId} is a plain column, not a foreign key, because the
+ * user_transactions row may be deleted while its events stay.
+ */
+@Entity
+@Table(name = "trade_events", indexes = {
+        @Index(name = "idx_trade_event_user", columnList = "user_id, id"),
+        @Index(name = "idx_trade_event_tx", columnList = "transaction_id")
+})
+public class TradeEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    private Long assetId;
+
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TradeEventKind kind;
+
+    @Column(precision = 38, scale = 8)
+    private BigDecimal quantityDelta;
+
+    @Column(precision = 38, scale = 8)
+    private BigDecimal costDelta;
+
+    @Column(precision = 38, scale = 8)
+    private BigDecimal cashDelta;
+
+    private BigDecimal price;
+
+    private Long reversedEventId;
+
+    private LocalDateTime timestamp = LocalDateTime.now();
+
+    public TradeEvent() {
+    }
+
+    public TradeEvent(Long userId, Long assetId, Long transactionId, TradeEventKind kind,
+                      BigDecimal quantityDelta, BigDecimal costDelta, BigDecimal cashDelta, BigDecimal price) {
+        this.userId = userId;
+        this.assetId = assetId;
+        this.transactionId = transactionId;
+        this.kind = kind;
+        this.quantityDelta = quantityDelta;
+        this.costDelta = costDelta;
+        this.cashDelta = cashDelta;
+        this.price = price;
+    }
+
+    public TradeEvent reversal() {
+        TradeEvent reversal = new TradeEvent(userId, assetId, transactionId, TradeEventKind.REVERSAL,
+                quantityDelta.negate(), costDelta.negate(), cashDelta.negate(), price);
+        reversal.reversedEventId = id;
+        return reversal;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public Long getAssetId() { return assetId; }
+    public Long getTransactionId() { return transactionId; }
+    public TradeEventKind getKind() { return kind; }
+    public BigDecimal getQuantityDelta() { return quantityDelta; }
+    public BigDecimal getCostDelta() { return costDelta; }
+    public BigDecimal getCashDelta() { return cashDelta; }
+    public BigDecimal getPrice() { return price; }
+    public Long getReversedEventId() { return reversedEventId; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.entities;
+
+public enum TradeEventKind {
+    OPENING,
+    BUY,
+    SELL,
+    REVERSAL,
+}
@@ -21,8 +21,9 @@ public class User {
 
     private BigDecimal balance = BigDecimal.ZERO;
 
+    // read-only side: UserTransaction.userId writes the column
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
-    @JoinColumn(name = "user_id")
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
     private List<UserTransaction> transactions = new ArrayList<>();
 
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -41,10 +42,6 @@ public class User {
     public List<UserTransaction> getTransactions() { return transactions; }
     public void setTransactions(List<UserTransaction> transactions) { this.transactions = transactions; }
 
-    public void addTransaction(UserTransaction transaction) {
-        this.transactions.add(transaction);
-    }
-
     public List<PortfolioAsset>  getPortfolioAssets() { return assets; }
     public void setAssets(List<PortfolioAsset> assets) { this.assets = assets; }
 
@@ -1,17 +1,25 @@
 package com.example.demo.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_transactions")
+@Table(name = "user_transactions", indexes = {
+        @Index(name = "idx_user_tx_user_time", columnList = "user_id, timestamp, id")
+})
 public class UserTransaction {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // owns the column, so recording a trade never loads User.transactions
+    @JsonIgnore
+    @Column(name = "user_id")
+    private Long userId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "asset_id")
     private Asset asset;
@@ -27,6 +35,9 @@ public class UserTransaction {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
     public Asset getAsset() { return asset; }
     public void setAsset(Asset asset) { this.asset = asset; }
 
@@ -0,0 +1,12 @@
+package com.example.demo.exception;
+
+/**
+ * A request parameter or body the client sent cannot be used: a malformed cursor, an
+ * unknown sort or interval, an oversized batch.
+ */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
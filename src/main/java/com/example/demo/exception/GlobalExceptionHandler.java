@@ -21,4 +21,25 @@ public class GlobalExceptionHandler {
                 .status(HttpStatus.BAD_REQUEST)
                 .body(ex.getMessage());
     }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<String> handleBadRequest(BadRequestException ex) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(TooManySubscribersException.class)
+    public ResponseEntity<String> handleTooManySubscribers(TooManySubscribersException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(TeacherServiceException.class)
+    public ResponseEntity<String> handleTeacherService(TeacherServiceException ex) {
+        return ResponseEntity
+                .status(ex.getUpstreamStatus() > 0 ? HttpStatus.BAD_GATEWAY : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ex.getMessage());
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.demo.exception;
+
+/**
+ * The AI teacher service could not be used: it is unreachable, too slow, overloaded on our
+ * side (bulkhead full, circuit open) or answered with an error. {@code upstreamStatus} is the
+ * HTTP status it answered with, or 0 when there was no answer.
+ */
+public class TeacherServiceException extends RuntimeException {
+
+    private final int upstreamStatus;
+
+    public TeacherServiceException(String message, int upstreamStatus) {
+        super(message);
+        this.upstreamStatus = upstreamStatus;
+    }
+
+    public int getUpstreamStatus() {
+        return upstreamStatus;
+    }
+}
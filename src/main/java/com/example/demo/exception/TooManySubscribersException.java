@@ -0,0 +1,7 @@
+package com.example.demo.exception;
+
+public class TooManySubscribersException extends RuntimeException {
+    public TooManySubscribersException(int limit) {
+        super("Too many stream subscribers (limit " + limit + ")");
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.AssetQuery;
+import com.example.demo.dto.AssetSummary;
+
+import java.util.List;
+
+public interface AssetQueryRepository {
+    List<AssetSummary> findPage(AssetQuery query);
+}
@@ -0,0 +1,94 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.AssetCursor;
+import com.example.demo.dto.AssetQuery;
+import com.example.demo.dto.AssetSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keyset-paginated asset listing. Written in SQL rather than JPQL so the predicates and the
+ * ORDER BY reach the database exactly in the shape of the (sort column, id) indexes.
+ *
+ * <p>Rows with a sort value come first, ordered by (column, id); rows without one follow as a
+ * second range of the same index ({@code column IS NULL}, ordered by id). Each range is a
+ * plain index scan, so nulls end up last without a NULLS LAST index, which neither JPA
+ * index definitions nor MySQL can express. The cursor (value, id) of the last row says
+ * which range to continue in.
+ */
+public class AssetQueryRepositoryImpl implements AssetQueryRepository {
+
+    private static final RowMapper<AssetSummary> SUMMARY = (rs, i) -> {
+        Timestamp lastUpdated = rs.getTimestamp("last_updated");
+        return new AssetSummary(rs.getLong("id"), rs.getString("ticker"), rs.getString("name"),
+                rs.getString("market"), rs.getBigDecimal("close_price"), rs.getBigDecimal("percent_change"),
+                rs.getBigDecimal("volume"), lastUpdated != null ? lastUpdated.toInstant() : null);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AssetQueryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<AssetSummary> findPage(AssetQuery query) {
+        AssetCursor after = query.after();
+        List<AssetSummary> rows = new ArrayList<>(query.limit());
+        if (after == null || after.value() != null) {
+            rows.addAll(range(query, false, query.limit()));
+        }
+        if (rows.size() < query.limit()) {
+            rows.addAll(range(query, true, query.limit() - rows.size()));
+        }
+        return rows;
+    }
+
+    private List<AssetSummary> range(AssetQuery query, boolean nulls, int limit) {
+        String column = "a." + query.sort().column();
+        String direction = query.descending() ? " DESC" : " ASC";
+        String after = query.descending() ? " < " : " > ";
+        List<Object> args = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT a.id, a.ticker, a.name, m.name AS market, a.close_price, a.percent_change, a.volume, "
+                        + "a.last_updated FROM asset a LEFT JOIN market_type m ON m.id = a.market_type_id WHERE ")
+                .append(column).append(nulls ? " IS NULL" : " IS NOT NULL");
+        if (query.market() != null) {
+            sql.append(" AND m.name = ?");
+            args.add(query.market());
+        }
+        if (query.namePrefix() != null) {
+            sql.append(" AND a.name_key LIKE ? ESCAPE '!'");
+            args.add(escapeLike(query.namePrefix().toUpperCase(Locale.ROOT)) + "%");
+        }
+        // a cursor in the non-null range starts the null range from its beginning
+        AssetCursor cursor = query.after();
+        if (cursor != null && (cursor.value() == null) == nulls) {
+            if (nulls) {
+                sql.append(" AND a.id").append(after).append("?");
+                args.add(cursor.id());
+            } else {
+                sql.append(" AND (").append(column).append(after).append("? OR (")
+                        .append(column).append(" = ? AND a.id").append(after).append("?))");
+                args.add(cursor.value());
+                args.add(cursor.value());
+                args.add(cursor.id());
+            }
+        }
+        sql.append(" ORDER BY ").append(column).append(direction).append(", a.id").append(direction)
+                .append(" LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), SUMMARY, args.toArray());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
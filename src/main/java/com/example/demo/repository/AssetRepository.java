@@ -7,7 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 import java.util.Optional;
 
-public interface AssetRepository extends JpaRepository<Asset, Long> {
+public interface AssetRepository extends JpaRepository<Asset, Long>, AssetQueryRepository {
     Optional<Asset> findByTicker(String ticker);
     List<Asset> findByMarketType(MarketType marketType);
 
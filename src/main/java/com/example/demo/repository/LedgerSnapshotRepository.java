@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+import com.example.demo.entities.LedgerSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, Long> {
+    Optional<LedgerSnapshot> findFirstByUserIdOrderByLastEventIdDesc(Long userId);
+}
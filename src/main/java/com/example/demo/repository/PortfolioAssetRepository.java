@@ -1,10 +1,24 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.HoldingRow;
 import com.example.demo.entities.PortfolioAsset;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface PortfolioAssetRepository extends JpaRepository<PortfolioAsset, Long> {
     List<PortfolioAsset> findByUser_Id(Long userId);
-}
\ No newline at end of file
+
+    @Query("select pa from PortfolioAsset pa join fetch pa.asset where pa.user.id = :userId")
+    List<PortfolioAsset> findByUserIdWithAsset(@Param("userId") Long userId);
+
+    @Query("select new com.example.demo.dto.HoldingRow(pa.user.id, a.id, a.ticker, pa.quantity, a.closePrice) "
+            + "from PortfolioAsset pa join pa.asset a where pa.user.id = :userId and pa.quantity > 0")
+    List<HoldingRow> findHoldingsByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.example.demo.dto.HoldingRow(pa.user.id, a.id, a.ticker, pa.quantity, a.closePrice) "
+            + "from PortfolioAsset pa join pa.asset a where pa.quantity > 0")
+    List<HoldingRow> findAllHoldings();
+}
@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import com.example.demo.entities.TradeEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface TradeEventRepository extends JpaRepository<TradeEvent, Long> {
+    List<TradeEvent> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId);
+
+    List<TradeEvent> findByUserIdAndTransactionIdOrderByIdAsc(Long userId, Long transactionId);
+}
@@ -1,9 +1,21 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.PortfolioRow;
 import com.example.demo.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
-}
\ No newline at end of file
+
+    @Query("select new com.example.demo.dto.PortfolioRow(u.id, u.username, u.balance, "
+            + "pa.id, pa.quantity, pa.purchasePrice, "
+            + "coalesce(pa.costBasis, pa.quantity * pa.purchasePrice), a.id, a.ticker, a.name, a.closePrice) "
+            + "from User u left join u.assets pa left join pa.asset a "
+            + "where u.id = :userId order by pa.id")
+    List<PortfolioRow> findPortfolioRows(@Param("userId") Long userId);
+}
@@ -0,0 +1,17 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.TransactionQuery;
+import com.example.demo.dto.TransactionSummary;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface UserTransactionQueryRepository {
+    List<TransactionSummary> findPage(TransactionQuery query);
+
+    /**
+     * All matching rows, newest first, ignoring cursor and limit. Must be consumed inside a
+     * transaction and closed.
+     */
+    Stream<TransactionSummary> stream(TransactionQuery query);
+}
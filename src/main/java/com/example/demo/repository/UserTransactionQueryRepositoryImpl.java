@@ -0,0 +1,69 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.TransactionQuery;
+import com.example.demo.dto.TransactionSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Transaction history of one user, newest first, as a constructor projection. Ordered by
+ * (timestamp, id) descending to match the (user_id, timestamp, id) index, so a page after
+ * a cursor is an index range scan instead of an OFFSET.
+ */
+public class UserTransactionQueryRepositoryImpl implements UserTransactionQueryRepository {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TransactionSummary> findPage(TransactionQuery query) {
+        return build(query, true).setMaxResults(query.limit()).getResultList();
+    }
+
+    @Override
+    public Stream<TransactionSummary> stream(TransactionQuery query) {
+        return build(query, false)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private TypedQuery<TransactionSummary> build(TransactionQuery query, boolean keyset) {
+        boolean after = keyset && query.after() != null;
+
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.example.demo.dto.TransactionSummary(t.id, t.type, t.amount, t.price, t.timestamp, "
+                        + "a.id, a.ticker, a.name) FROM UserTransaction t LEFT JOIN t.asset a WHERE t.userId = :userId");
+        if (query.from() != null) {
+            jpql.append(" AND t.timestamp >= :from");
+        }
+        if (query.to() != null) {
+            jpql.append(" AND t.timestamp < :to");
+        }
+        if (after) {
+            jpql.append(" AND (t.timestamp < :cursorTime OR (t.timestamp = :cursorTime AND t.id < :cursorId))");
+        }
+        jpql.append(" ORDER BY t.timestamp DESC, t.id DESC");
+
+        TypedQuery<TransactionSummary> typed = entityManager.createQuery(jpql.toString(), TransactionSummary.class);
+        typed.setParameter("userId", query.userId());
+        if (query.from() != null) {
+            typed.setParameter("from", query.from());
+        }
+        if (query.to() != null) {
+            typed.setParameter("to", query.to());
+        }
+        if (after) {
+            typed.setParameter("cursorTime", query.after().timestamp());
+            typed.setParameter("cursorId", query.after().id());
+        }
+        return typed;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+import com.example.demo.entities.UserTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface UserTransactionRepository extends JpaRepository<UserTransaction, Long>, UserTransactionQueryRepository {
+    Optional<UserTransaction> findByIdAndUserId(Long id, Long userId);
+}
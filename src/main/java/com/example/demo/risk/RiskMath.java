@@ -0,0 +1,149 @@
+package com.example.demo.risk;
+
+import java.util.Arrays;
+
+/**
+ * Risk statistics on plain {@code double[]} series. Each loop walks contiguous arrays with
+ * no boxing and no branches in its body, which is what lets the JIT vectorize it.
+ * Series of different assets are expected to be aligned on the same dates.
+ */
+public final class RiskMath {
+
+    public static final int TRADING_DAYS = 252;
+
+    private RiskMath() {
+    }
+
+    /**
+     * Simple returns of consecutive prices: {@code prices[i + 1] / prices[i] - 1}.
+     */
+    public static double[] returns(double[] prices) {
+        int n = Math.max(prices.length - 1, 0);
+        double[] r = new double[n];
+        for (int i = 0; i < n; i++) {
+            r[i] = prices[i + 1] / prices[i] - 1.0;
+        }
+        return r;
+    }
+
+    public static double mean(double[] x) {
+        if (x.length == 0) return Double.NaN;
+        double sum = 0;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i];
+        }
+        return sum / x.length;
+    }
+
+    /**
+     * Sample standard deviation, NaN for fewer than two values.
+     */
+    public static double stdev(double[] x) {
+        if (x.length < 2) return Double.NaN;
+        return Math.sqrt(covariance(x, x, mean(x), mean(x)));
+    }
+
+    public static double covariance(double[] a, double[] b, double meanA, double meanB) {
+        int n = Math.min(a.length, b.length);
+        if (n < 2) return Double.NaN;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += (a[i] - meanA) * (b[i] - meanB);
+        }
+        return sum / (n - 1);
+    }
+
+    /**
+     * Pearson correlation of every pair of series. A series that never moves correlates
+     * with nothing, so its off-diagonal entries are 0.
+     */
+    public static double[][] correlation(double[][] series) {
+        int k = series.length;
+        double[] means = new double[k];
+        double[] sd = new double[k];
+        for (int i = 0; i < k; i++) {
+            means[i] = mean(series[i]);
+            sd[i] = Math.sqrt(covariance(series[i], series[i], means[i], means[i]));
+        }
+        double[][] c = new double[k][k];
+        for (int i = 0; i < k; i++) {
+            c[i][i] = 1.0;
+            for (int j = i + 1; j < k; j++) {
+                double value = sd[i] > 0 && sd[j] > 0
+                        ? covariance(series[i], series[j], means[i], means[j]) / (sd[i] * sd[j])
+                        : 0.0;
+                c[i][j] = value;
+                c[j][i] = value;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Weighted sum of the series at every point: {@code out[t] = sum of weights[i] * series[i][t]}.
+     * With returns and money exposures as weights this is the portfolio's daily P&amp;L.
+     */
+    public static double[] combine(double[][] series, double[] weights) {
+        int n = series.length == 0 ? 0 : series[0].length;
+        double[] out = new double[n];
+        for (int i = 0; i < series.length; i++) {
+            double w = weights[i];
+            double[] s = series[i];
+            for (int t = 0; t < n; t++) {
+                out[t] += w * s[t];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Loss that the observed P&amp;L did not exceed with the given confidence, as a positive
+     * number (0 when even the tail made money). NaN for an empty series.
+     */
+    public static double historicalVar(double[] pnl, double confidence) {
+        if (pnl.length == 0) return Double.NaN;
+        double[] sorted = pnl.clone();
+        Arrays.sort(sorted);
+        int index = Math.min((int) Math.floor((1.0 - confidence) * sorted.length), sorted.length - 1);
+        return Math.max(0.0, -sorted[index]);
+    }
+
+    /**
+     * Value at risk of a normally distributed P&amp;L with the given mean and deviation.
+     */
+    public static double parametricVar(double mean, double sigma, double confidence) {
+        return Math.max(0.0, normalQuantile(confidence) * sigma - mean);
+    }
+
+    /**
+     * Inverse of the standard normal distribution function (Acklam's rational
+     * approximation, relative error below 1.2e-9).
+     */
+    public static double normalQuantile(double p) {
+        if (p <= 0 || p >= 1) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1: " + p);
+        }
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        final double low = 0.02425;
+
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            return -normalQuantile(1 - p);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.demo.service;
+
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.MarketType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes parsed CSV quotes into the asset table with JDBC batches instead of one
+ * findByTicker + save round-trip per row. Rows are grouped into chunks of
+ * {@code app.ingest.chunk.size}; each chunk is one transaction and one batch.
+ * Quotes identical to the stored row are not written at all. The upsert statement follows
+ * the database product unless {@code app.ingest.bulk.dialect} (h2, mysql, generic) says
+ * otherwise.
+ */
+@Service
+public class AssetBulkWriter {
+
+    private static final BigDecimal BUY_SPREAD = BigDecimal.valueOf(1.01);
+    private static final BigDecimal SELL_SPREAD = BigDecimal.valueOf(0.99);
+
+    private static final List<String> COLUMNS = List.of(
+            "ticker", "name", "name_key", "exchange", "open_price", "high_price", "low_price", "close_price",
+            "volume", "previous_close", "percent_change", "price_to_buy", "price_to_sell",
+            "last_updated", "market_type_id");
+
+    private static final String PLACEHOLDERS = String.join(", ", Collections.nCopies(COLUMNS.size(), "?"));
+
+    private static final String H2_MERGE = "MERGE INTO asset (" + String.join(", ", COLUMNS) + ") KEY (ticker) VALUES (" + PLACEHOLDERS + ")";
+
+    private static final String MYSQL_UPSERT = "INSERT INTO asset (id, " + String.join(", ", COLUMNS) + ") VALUES (?, " + PLACEHOLDERS + ")"
+            + " ON DUPLICATE KEY UPDATE " + COLUMNS.stream().map(c -> c + " = VALUES(" + c + ")").collect(Collectors.joining(", "));
+
+    private static final String INSERT = "INSERT INTO asset (" + String.join(", ", COLUMNS) + ") VALUES (" + PLACEHOLDERS + ")";
+
+    private static final String UPDATE = "UPDATE asset SET " + COLUMNS.stream().map(c -> c + " = ?").collect(Collectors.joining(", ")) + " WHERE id = ?";
+
+    enum Dialect {
+        H2, MYSQL, GENERIC;
+
+        static Dialect named(String name) {
+            return name == null || name.isBlank() ? null : valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        static Dialect of(String productName) {
+            if (productName == null) return GENERIC;
+            String name = productName.toLowerCase(Locale.ROOT);
+            if (name.contains("h2")) return H2;
+            if (name.contains("mysql") || name.contains("mariadb")) return MYSQL;
+            return GENERIC;
+        }
+    }
+
+    private record StoredAsset(long id, long fingerprint, BigDecimal closePrice) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PriceHistoryStore historyStore;
+    private final int chunkSize;
+
+    private volatile Dialect dialect;
+
+    public AssetBulkWriter(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           PriceHistoryStore historyStore,
+                           @Value("${app.ingest.chunk.size:500}") int chunkSize,
+                           @Value("${app.ingest.bulk.dialect:}") String dialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.historyStore = historyStore;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.dialect = Dialect.named(dialect);
+    }
+
+    /**
+     * Upserts the quotes whose stored fingerprint differs and publishes an {@link AssetChangeSet}
+     * for them. Rows that are identical to what is stored are skipped entirely. Every row,
+     * including earlier days of a ticker repeated in the file, goes to the price history.
+     */
+    public IngestStats write(Stream<AssetQuote> quotes, MarketType type) {
+        Map<String, StoredAsset> stored = loadStoredAssets();
+        Dialect dialect = dialect();
+
+        long start = System.nanoTime();
+        long rows = 0;
+        long inserted = 0;
+        long unchanged = 0;
+        int chunks = 0;
+        long maxChunkNanos = 0;
+        List<AssetChangeSet.Change> changes = new ArrayList<>();
+
+        // keyed by ticker so a symbol repeated inside one chunk is written once, last row wins
+        Map<String, AssetQuote> chunk = new LinkedHashMap<>();
+        List<AssetQuote> history = new ArrayList<>();
+        Iterator<AssetQuote> it = quotes.iterator();
+        while (it.hasNext()) {
+            AssetQuote quote = it.next();
+            chunk.remove(quote.ticker());
+            chunk.put(quote.ticker(), quote);
+            history.add(quote);
+            rows++;
+
+            if (chunk.size() == chunkSize || !it.hasNext()) {
+                historyStore.record(history);
+                history.clear();
+                List<AssetQuote> changed = new ArrayList<>(chunk.size());
+                for (AssetQuote q : chunk.values()) {
+                    StoredAsset current = stored.get(q.ticker());
+                    if (current != null && current.fingerprint() == AssetFingerprint.of(q, type)) {
+                        unchanged++;
+                    } else {
+                        changed.add(q);
+                    }
+                }
+                chunk.clear();
+                if (changed.isEmpty()) continue;
+
+                long chunkStart = System.nanoTime();
+                inserted += flush(changed, type, stored, dialect, changes);
+                maxChunkNanos = Math.max(maxChunkNanos, System.nanoTime() - chunkStart);
+                chunks++;
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new AssetChangeSet(type.getName(), changes, Instant.now()));
+        }
+        return new IngestStats(rows, inserted, changes.size() - inserted, unchanged, chunks,
+                System.nanoTime() - start, maxChunkNanos);
+    }
+
+    public Map<String, Long> loadTickerIds() {
+        Map<String, Long> ids = new HashMap<>();
+        loadStoredAssets().forEach((ticker, asset) -> ids.put(ticker, asset.id()));
+        return ids;
+    }
+
+    private Map<String, StoredAsset> loadStoredAssets() {
+        Map<String, StoredAsset> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT id, ticker, name, open_price, high_price, low_price, close_price, volume, "
+                + "previous_close, market_type_id FROM asset", rs -> {
+            long marketTypeId = rs.getLong("market_type_id");
+            Long typeId = rs.wasNull() ? null : marketTypeId;
+            long fingerprint = AssetFingerprint.of(rs.getString("name"),
+                    rs.getBigDecimal("open_price"), rs.getBigDecimal("high_price"), rs.getBigDecimal("low_price"),
+                    rs.getBigDecimal("close_price"), rs.getBigDecimal("volume"), rs.getBigDecimal("previous_close"),
+                    typeId);
+            stored.put(rs.getString("ticker"), new StoredAsset(rs.getLong("id"), fingerprint, rs.getBigDecimal("close_price")));
+        });
+        return stored;
+    }
+
+    private int flush(List<AssetQuote> chunk, MarketType type, Map<String, StoredAsset> stored, Dialect dialect,
+                      List<AssetChangeSet.Change> changes) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<AssetQuote> inserts = new ArrayList<>();
+        List<AssetQuote> updates = new ArrayList<>();
+        for (AssetQuote quote : chunk) {
+            (stored.containsKey(quote.ticker()) ? updates : inserts).add(quote);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            switch (dialect) {
+                case H2 -> batch(H2_MERGE, chunk, (ps, q) -> bindColumns(ps, 1, q, type, now));
+                case MYSQL -> batch(MYSQL_UPSERT, chunk, (ps, q) -> {
+                    StoredAsset current = stored.get(q.ticker());
+                    ps.setObject(1, current != null ? current.id() : null, Types.BIGINT);
+                    bindColumns(ps, 2, q, type, now);
+                });
+                default -> {
+                    batch(UPDATE, updates, (ps, q) -> {
+                        int next = bindColumns(ps, 1, q, type, now);
+                        ps.setLong(next, stored.get(q.ticker()).id());
+                    });
+                    batch(INSERT, inserts, (ps, q) -> bindColumns(ps, 1, q, type, now));
+                }
+            }
+        });
+
+        Map<String, Long> insertedIds = inserts.isEmpty() ? Map.of() : loadTickerIds(inserts);
+        for (AssetQuote quote : chunk) {
+            StoredAsset previous = stored.get(quote.ticker());
+            Long id = previous != null ? Long.valueOf(previous.id()) : insertedIds.get(quote.ticker());
+            if (id == null) continue;
+            BigDecimal newClose = AssetFingerprint.normalize(quote.closePrice());
+            changes.add(new AssetChangeSet.Change(id, quote.ticker(),
+                    previous != null ? previous.closePrice() : null, newClose));
+            stored.put(quote.ticker(), new StoredAsset(id, AssetFingerprint.of(quote, type), newClose));
+        }
+        return inserts.size();
+    }
+
+    private void batch(String sql, List<AssetQuote> rows, ParameterizedPreparedStatementSetter<AssetQuote> setter) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows, rows.size(), setter);
+        }
+    }
+
+    private int bindColumns(PreparedStatement ps, int index, AssetQuote quote, MarketType type, Timestamp now) throws SQLException {
+        ps.setString(index++, quote.ticker());
+        ps.setString(index++, quote.name());
+        ps.setString(index++, Asset.nameKey(quote.name()));
+        ps.setString(index++, "");
+        ps.setBigDecimal(index++, AssetFingerprint.normalize(quote.openPrice()));
+        ps.setBigDecimal(index++, AssetFingerprint.normalize(quote.highPrice()));
+        ps.setBigDecimal(index++, AssetFingerprint.normalize(quote.lowPrice()));
+        ps.setBigDecimal(index++, AssetFingerprint.normalize(quote.closePrice()));
+        ps.setBigDecimal(index++, AssetFingerprint.normalize(quote.volume()));
+        ps.setBigDecimal(index++, AssetFingerprint.normalize(quote.previousClose()));
+        ps.setBigDecimal(index++, quote.percentChange());
+        ps.setBigDecimal(index++, quote.closePrice() != null ? quote.closePrice().multiply(BUY_SPREAD) : null);
+        ps.setBigDecimal(index++, quote.closePrice() != null ? quote.closePrice().multiply(SELL_SPREAD) : null);
+        ps.setTimestamp(index++, now);
+        ps.setObject(index++, type.getId(), Types.BIGINT);
+        return index;
+    }
+
+    private Map<String, Long> loadTickerIds(List<AssetQuote> quotes) {
+        Map<String, Long> ids = new HashMap<>();
+        String in = String.join(", ", Collections.nCopies(quotes.size(), "?"));
+        jdbcTemplate.query("SELECT id, ticker FROM asset WHERE ticker IN (" + in + ")", rs -> {
+            ids.put(rs.getString("ticker"), rs.getLong("id"));
+        }, quotes.stream().map(AssetQuote::ticker).toArray());
+        return ids;
+    }
+
+    private Dialect dialect() {
+        if (dialect == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            dialect = Dialect.of(product);
+        }
+        return dialect;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Application event carrying the assets whose stored quote actually changed during one
+ * refresh of a market. Assets whose data was identical are not included.
+ */
+public record AssetChangeSet(String market, List<Change> changes, Instant at) {
+
+    public record Change(Long assetId, String ticker, BigDecimal oldClose, BigDecimal newClose) {
+
+        public boolean isNew() {
+            return oldClose == null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.MarketType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 64-bit fingerprint of the fields a price refresh can change. Prices are compared at the
+ * scale the asset columns are stored with, so a quote that only differs beyond the stored
+ * precision does not count as a change.
+ */
+public final class AssetFingerprint {
+
+    static final int STORED_SCALE = 2;
+
+    private AssetFingerprint() {
+    }
+
+    public static long of(AssetQuote quote, MarketType type) {
+        return of(quote.name(), quote.openPrice(), quote.highPrice(), quote.lowPrice(), quote.closePrice(),
+                quote.volume(), quote.previousClose(), type != null ? type.getId() : null);
+    }
+
+    public static long of(Asset asset) {
+        return of(asset.getName(), asset.getOpenPrice(), asset.getHighPrice(), asset.getLowPrice(), asset.getClosePrice(),
+                asset.getVolume(), asset.getPreviousClose(),
+                asset.getMarketType() != null ? asset.getMarketType().getId() : null);
+    }
+
+    public static long of(String name, BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close,
+                          BigDecimal volume, BigDecimal previousClose, Long marketTypeId) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = mix(h, name != null ? name.hashCode() : 0);
+        h = mix(h, bits(open));
+        h = mix(h, bits(high));
+        h = mix(h, bits(low));
+        h = mix(h, bits(close));
+        h = mix(h, bits(volume));
+        h = mix(h, bits(previousClose));
+        h = mix(h, marketTypeId != null ? marketTypeId : -1L);
+        return h;
+    }
+
+    public static BigDecimal normalize(BigDecimal value) {
+        return value != null ? value.setScale(STORED_SCALE, RoundingMode.HALF_UP) : null;
+    }
+
+    private static long bits(BigDecimal value) {
+        if (value == null) return Long.MIN_VALUE;
+        BigDecimal normalized = normalize(value);
+        return normalized.unscaledValue().bitLength() < 64 ? normalized.unscaledValue().longValue() : normalized.hashCode();
+    }
+
+    private static long mix(long h, long value) {
+        h ^= value;
+        h *= 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+}
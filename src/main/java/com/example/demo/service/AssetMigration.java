@@ -0,0 +1,156 @@
+package com.example.demo.service;
+
+import com.example.demo.entities.Asset;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings asset rows into shape at startup:
+ * <ul>
+ *     <li>merges assets that share a ticker into the most recently updated one, moving their
+ *     transactions, trade events and positions over, so the unique ticker constraint can be
+ *     added;</li>
+ *     <li>fills in name_key for rows written before the column existed, so the prefix search
+ *     of the asset listing finds them.</li>
+ * </ul>
+ * Does nothing on a database that is already migrated.
+ */
+@Component
+@Order(0) // before PortfolioPositionMigration, which opens the ledger from the positions by asset
+public class AssetMigration implements ApplicationRunner {
+
+    private static final String FIND_DUPLICATE_TICKERS =
+            "SELECT ticker FROM asset WHERE ticker IS NOT NULL GROUP BY ticker HAVING COUNT(*) > 1";
+    // newest quote first; that row is kept
+    private static final String FIND_BY_TICKER =
+            "SELECT id FROM asset WHERE ticker = ? "
+                    + "ORDER BY CASE WHEN last_updated IS NULL THEN 1 ELSE 0 END, last_updated DESC, id DESC";
+    private static final String MOVE_TRANSACTIONS = "UPDATE user_transactions SET asset_id = ? WHERE asset_id = ?";
+    private static final String MOVE_EVENTS = "UPDATE trade_events SET asset_id = ? WHERE asset_id = ?";
+    private static final String FIND_POSITIONS =
+            "SELECT id, user_id, quantity, COALESCE(cost_basis, quantity * purchase_price) FROM portfolio_asset WHERE asset_id = ?";
+    private static final String MOVE_POSITION = "UPDATE portfolio_asset SET asset_id = ? WHERE id = ?";
+    private static final String MERGE_POSITION =
+            "UPDATE portfolio_asset SET quantity = ?, purchase_price = ?, cost_basis = ? WHERE id = ?";
+    private static final String DELETE_POSITION = "DELETE FROM portfolio_asset WHERE id = ?";
+    // snapshots are only a replay shortcut; ones that name a merged asset are dropped and rebuilt from the events
+    private static final String FIND_SNAPSHOTS =
+            "SELECT DISTINCT snapshot_id FROM ledger_snapshot_positions WHERE asset_id = ?";
+    private static final String DELETE_SNAPSHOT_POSITIONS = "DELETE FROM ledger_snapshot_positions WHERE snapshot_id = ?";
+    private static final String DELETE_SNAPSHOT = "DELETE FROM ledger_snapshots WHERE id = ?";
+    private static final String DELETE_ASSET = "DELETE FROM asset WHERE id = ?";
+    // ddl-auto cannot add the constraint while duplicates exist, so it is added once they are merged
+    private static final String ADD_UNIQUE = "ALTER TABLE asset ADD CONSTRAINT uk_asset_ticker UNIQUE (ticker)";
+
+    private static final String FIND_MISSING_NAME_KEYS =
+            "SELECT id, name FROM asset WHERE name_key IS NULL AND name IS NOT NULL";
+    private static final String SET_NAME_KEY = "UPDATE asset SET name_key = ? WHERE id = ?";
+
+    private record Named(long id, String name) {
+    }
+
+    private record Position(long id, Long userId, BigDecimal quantity, BigDecimal cost) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public AssetMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer merged = transactionTemplate.execute(status -> mergeDuplicateTickers());
+        if (merged != null && merged > 0) {
+            System.out.println("Merged duplicate assets for " + merged + " tickers");
+            try {
+                jdbcTemplate.execute(ADD_UNIQUE);
+            } catch (RuntimeException e) {
+                System.err.println("Could not add unique constraint on asset: " + e.getMessage());
+            }
+        }
+        Integer keyed = transactionTemplate.execute(status -> fillNameKeys());
+        if (keyed != null && keyed > 0) {
+            System.out.println("Filled in name_key for " + keyed + " assets");
+        }
+    }
+
+    int mergeDuplicateTickers() {
+        List<String> tickers = jdbcTemplate.queryForList(FIND_DUPLICATE_TICKERS, String.class);
+        for (String ticker : tickers) {
+            List<Long> ids = jdbcTemplate.queryForList(FIND_BY_TICKER, Long.class, ticker);
+            long keepId = ids.get(0);
+            for (Long duplicateId : ids.subList(1, ids.size())) {
+                merge(duplicateId, keepId);
+            }
+        }
+        return tickers.size();
+    }
+
+    private void merge(long duplicateId, long keepId) {
+        jdbcTemplate.update(MOVE_TRANSACTIONS, keepId, duplicateId);
+        jdbcTemplate.update(MOVE_EVENTS, keepId, duplicateId);
+
+        Map<Long, Position> kept = new HashMap<>();
+        for (Position position : positions(keepId)) {
+            if (position.userId() != null) {
+                kept.put(position.userId(), position);
+            }
+        }
+        for (Position position : positions(duplicateId)) {
+            Position into = position.userId() != null ? kept.get(position.userId()) : null;
+            if (into == null) {
+                jdbcTemplate.update(MOVE_POSITION, keepId, position.id());
+                continue;
+            }
+            BigDecimal quantity = sum(into.quantity(), position.quantity());
+            BigDecimal cost = sum(into.cost(), position.cost());
+            jdbcTemplate.update(MERGE_POSITION, quantity,
+                    quantity.signum() > 0 ? cost.divide(quantity, 2, RoundingMode.HALF_UP) : BigDecimal.ZERO,
+                    cost, into.id());
+            jdbcTemplate.update(DELETE_POSITION, position.id());
+            kept.put(into.userId(), new Position(into.id(), into.userId(), quantity, cost));
+        }
+
+        for (Long snapshotId : jdbcTemplate.queryForList(FIND_SNAPSHOTS, Long.class, duplicateId)) {
+            jdbcTemplate.update(DELETE_SNAPSHOT_POSITIONS, snapshotId);
+            jdbcTemplate.update(DELETE_SNAPSHOT, snapshotId);
+        }
+        jdbcTemplate.update(DELETE_ASSET, duplicateId);
+    }
+
+    private List<Position> positions(long assetId) {
+        return jdbcTemplate.query(FIND_POSITIONS, (rs, i) -> new Position(rs.getLong(1),
+                rs.getObject(2, Long.class), rs.getBigDecimal(3), rs.getBigDecimal(4)), assetId);
+    }
+
+    private static BigDecimal sum(BigDecimal a, BigDecimal b) {
+        return (a != null ? a : BigDecimal.ZERO).add(b != null ? b : BigDecimal.ZERO);
+    }
+
+    int fillNameKeys() {
+        List<Named> assets = jdbcTemplate.query(FIND_MISSING_NAME_KEYS,
+                (rs, i) -> new Named(rs.getLong(1), rs.getString(2)));
+        if (assets.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(SET_NAME_KEY, assets, 500, (ps, a) -> {
+            ps.setString(1, Asset.nameKey(a.name()));
+            ps.setLong(2, a.id());
+        });
+        return assets.size();
+    }
+}
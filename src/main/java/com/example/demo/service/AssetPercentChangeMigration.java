@@ -0,0 +1,33 @@
+package com.example.demo.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills in percent_change for asset rows loaded before the loaders stored it. A refresh
+ * skips rows whose quote did not change, so without this they would keep a null until
+ * their price next moves. Does nothing once every row has it.
+ */
+@Component
+public class AssetPercentChangeMigration implements ApplicationRunner {
+
+    private static final String FILL_PERCENT_CHANGE =
+            "UPDATE asset SET percent_change = ROUND((close_price - previous_close) * 100 / previous_close, 2) "
+                    + "WHERE percent_change IS NULL AND close_price IS NOT NULL AND previous_close <> 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AssetPercentChangeMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int filled = jdbcTemplate.update(FILL_PERCENT_CHANGE);
+        if (filled > 0) {
+            System.out.println("Filled in percent change for " + filled + " assets");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.service;
+
+import com.example.demo.csv.CsvTokenizer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+
+public record AssetQuote(Instant date,
+                         BigDecimal openPrice,
+                         BigDecimal highPrice,
+                         BigDecimal lowPrice,
+                         BigDecimal closePrice,
+                         BigDecimal volume,
+                         BigDecimal previousClose,
+                         String name,
+                         String ticker) {
+
+    /**
+     * Maps a *_data.csv record (Date, Open, High, Low, Close, Volume, PreviousClose,
+     * CompanyName, Symbol); returns null for rows with too few fields.
+     */
+    public static AssetQuote from(CsvTokenizer csv) {
+        if (csv.fieldCount() < 9) return null;
+
+        return new AssetQuote(
+                csv.field(0).toInstant(),
+                csv.field(1).toBigDecimal(),
+                csv.field(2).toBigDecimal(),
+                csv.field(3).toBigDecimal(),
+                csv.field(4).toBigDecimal(),
+                csv.field(5).toBigDecimal(),
+                csv.field(6).toBigDecimal(),
+                csv.field(7).toString(),
+                csv.field(8).toString());
+    }
+
+    public BigDecimal percentChange() {
+        return percentChange(closePrice, previousClose);
+    }
+
+    /**
+     * Change from the previous close in percent, at the stored scale; null when either
+     * price is missing or the previous close is zero.
+     */
+    public static BigDecimal percentChange(BigDecimal close, BigDecimal previousClose) {
+        if (close == null || previousClose == null || previousClose.signum() == 0) return null;
+        return close.subtract(previousClose).multiply(BigDecimal.valueOf(100))
+                .divide(previousClose, AssetFingerprint.STORED_SCALE, RoundingMode.HALF_UP);
+    }
+}
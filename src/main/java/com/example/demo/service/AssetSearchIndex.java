@@ -0,0 +1,278 @@
+package com.example.demo.service;
+
+import com.example.demo.entities.Asset;
+import com.example.demo.repository.AssetRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory typeahead over tickers and company names. Keys (the ticker and every word of
+ * the name, upper-cased and stripped of punctuation) are held in one sorted array, so a
+ * prefix lookup is a binary search plus a scan of the matching range. When a prefix finds
+ * too little, keys within one edit of the query (same first or second letter) are added
+ * as fuzzy matches.
+ *
+ * <p>Queries read an immutable snapshot; writers rebuild it from the current entries. The
+ * full asset list is read once from the database when the application is ready, so the
+ * assets persisted by an earlier run can be suggested while market data is still loading
+ * (or after it failed to load); should that read fail, the first query or refresh retries
+ * it. From then on only the assets named in an {@link AssetChangeSet} are re-read, and the
+ * snapshot is rebuilt only when one of them was added or renamed.
+ */
+@Service
+public class AssetSearchIndex {
+
+    public record Suggestion(String ticker, String name, String market) {
+    }
+
+    private static final byte TICKER_KEY = 0;
+    private static final byte NAME_KEY = 1;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private final AssetRepository assetRepository;
+
+    private final Map<Long, Suggestion> entries = new HashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean loaded;
+
+    public AssetSearchIndex(AssetRepository assetRepository) {
+        this.assetRepository = assetRepository;
+    }
+
+    public List<Suggestion> suggest(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (!loaded) {
+            load();
+        }
+        return snapshot.search(q, limit);
+    }
+
+    public int size() {
+        return snapshot.suggestions.length;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            System.err.println("Could not load the asset search index: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onMarketDataRefreshed(MarketDataRefreshedEvent event) {
+        load();
+    }
+
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        entries.clear();
+        for (Asset asset : assetRepository.findAll()) {
+            entries.put(asset.getId(), toSuggestion(asset));
+        }
+        loaded = true;
+        snapshot = Snapshot.build(entries.values());
+    }
+
+    @EventListener
+    public synchronized void onAssetsChanged(AssetChangeSet changeSet) {
+        if (!loaded || changeSet.changes().isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(changeSet.changes().size());
+        for (AssetChangeSet.Change change : changeSet.changes()) {
+            ids.add(change.assetId());
+        }
+        boolean dirty = false;
+        for (Asset asset : assetRepository.findAllById(ids)) {
+            Suggestion suggestion = toSuggestion(asset);
+            if (!suggestion.equals(entries.put(asset.getId(), suggestion))) {
+                dirty = true;
+            }
+        }
+        if (dirty) {
+            snapshot = Snapshot.build(entries.values());
+        }
+    }
+
+    private static Suggestion toSuggestion(Asset asset) {
+        return new Suggestion(asset.getTicker(), asset.getName(),
+                asset.getMarketType() != null ? asset.getMarketType().getName() : null);
+    }
+
+    static String normalize(String s) {
+        if (s == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toUpperCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new Suggestion[0], new String[0], new int[0], new byte[0]);
+
+        final Suggestion[] suggestions;
+        final String[] keys;
+        final int[] owners;
+        final byte[] kinds;
+
+        private Snapshot(Suggestion[] suggestions, String[] keys, int[] owners, byte[] kinds) {
+            this.suggestions = suggestions;
+            this.keys = keys;
+            this.owners = owners;
+            this.kinds = kinds;
+        }
+
+        private record Key(String text, int owner, byte kind) {
+        }
+
+        static Snapshot build(Iterable<Suggestion> source) {
+            List<Suggestion> suggestions = new ArrayList<>();
+            List<Key> keyed = new ArrayList<>();
+            for (Suggestion s : source) {
+                String ticker = normalize(s.ticker());
+                if (ticker.isEmpty()) continue;
+                int owner = suggestions.size();
+                suggestions.add(s);
+                keyed.add(new Key(ticker, owner, TICKER_KEY));
+                if (s.name() != null) {
+                    for (String word : s.name().split("[^\\p{L}\\p{N}]+")) {
+                        String text = normalize(word);
+                        if (!text.isEmpty() && !text.equals(ticker)) {
+                            keyed.add(new Key(text, owner, NAME_KEY));
+                        }
+                    }
+                }
+            }
+            keyed.sort(Comparator.comparing(Key::text));
+
+            String[] keys = new String[keyed.size()];
+            int[] owners = new int[keyed.size()];
+            byte[] kinds = new byte[keyed.size()];
+            for (int i = 0; i < keys.length; i++) {
+                Key k = keyed.get(i);
+                keys[i] = k.text();
+                owners[i] = k.owner();
+                kinds[i] = k.kind();
+            }
+            return new Snapshot(suggestions.toArray(new Suggestion[0]), keys, owners, kinds);
+        }
+
+        List<Suggestion> search(String q, int limit) {
+            // lower score is better: exact ticker, ticker prefix, name prefix, then fuzzy
+            int[] best = new int[suggestions.length];
+            Arrays.fill(best, Integer.MAX_VALUE);
+            int found = 0;
+
+            for (int i = lowerBound(q); i < keys.length && keys[i].startsWith(q); i++) {
+                int extra = Math.min(keys[i].length() - q.length(), 99);
+                int score = kinds[i] == TICKER_KEY ? (extra == 0 ? 0 : 100 + extra) : 200 + extra;
+                found += offer(best, owners[i], score);
+            }
+
+            if (found < limit && q.length() >= MIN_FUZZY_LENGTH) {
+                // only keys starting with the first or second query letter, which still covers
+                // swapped leading letters and a dropped first letter
+                found += fuzzyRange(q, q.substring(0, 1), best);
+                if (q.charAt(1) != q.charAt(0)) {
+                    found += fuzzyRange(q, q.substring(1, 2), best);
+                }
+            }
+            return top(best, found, limit);
+        }
+
+        private int fuzzyRange(String q, String first, int[] best) {
+            int found = 0;
+            for (int i = lowerBound(first); i < keys.length && keys[i].startsWith(first); i++) {
+                if (fuzzyPrefix(q, keys[i])) {
+                    found += offer(best, owners[i], 300 + kinds[i] * 10);
+                }
+            }
+            return found;
+        }
+
+        private int lowerBound(String q) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(q) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private static int offer(int[] best, int owner, int score) {
+            int previous = best[owner];
+            if (score < previous) {
+                best[owner] = score;
+            }
+            return previous == Integer.MAX_VALUE ? 1 : 0;
+        }
+
+        private List<Suggestion> top(int[] best, int found, int limit) {
+            if (found == 0) {
+                return List.of();
+            }
+            Integer[] hits = new Integer[found];
+            int n = 0;
+            for (int i = 0; i < best.length; i++) {
+                if (best[i] != Integer.MAX_VALUE) hits[n++] = i;
+            }
+            Arrays.sort(hits, (a, b) -> best[a] != best[b]
+                    ? Integer.compare(best[a], best[b])
+                    : suggestions[a].ticker().compareTo(suggestions[b].ticker()));
+            List<Suggestion> result = new ArrayList<>(Math.min(limit, found));
+            for (int i = 0; i < found && i < limit; i++) {
+                result.add(suggestions[hits[i]]);
+            }
+            return result;
+        }
+
+        // true when some prefix of key is at most one edit away from q
+        private static boolean fuzzyPrefix(String q, String key) {
+            for (int len = q.length() - 1; len <= q.length() + 1 && len <= key.length(); len++) {
+                if (withinOneEdit(q, key, len)) return true;
+            }
+            return false;
+        }
+
+        // true when a can be turned into the first lb chars of b with one insert, delete, substitution or swap
+        private static boolean withinOneEdit(String a, String b, int lb) {
+            int la = a.length();
+            int i = 0;
+            while (i < la && i < lb && a.charAt(i) == b.charAt(i)) i++;
+            if (la == lb) {
+                if (i >= la - 1) return true;
+                if (a.regionMatches(i + 1, b, i + 1, la - i - 1)) return true;
+                return a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                        && a.regionMatches(i + 2, b, i + 2, la - i - 2);
+            }
+            if (i == la || i == lb) return true;
+            return la > lb
+                    ? a.regionMatches(i + 1, b, i, lb - i)
+                    : a.regionMatches(i, b, i + 1, la - i);
+        }
+    }
+}
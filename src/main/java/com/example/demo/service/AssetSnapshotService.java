@@ -0,0 +1,106 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the JSON body of the asset listing endpoints pre-rendered (and optionally gzipped)
+ * per market, so a poll costs a map lookup instead of serializing every entity. A snapshot
+ * is rebuilt lazily on the first request after an {@link AssetChangeSet} touched its market.
+ */
+@Service
+public class AssetSnapshotService {
+
+    public static final String ALL_MARKETS = "*";
+
+    public record Snapshot(byte[] json, byte[] gzip, String etag) {
+    }
+
+    private final QuoteCache quoteCache;
+    private final ObjectMapper objectMapper;
+    private final boolean gzipEnabled;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public AssetSnapshotService(QuoteCache quoteCache,
+                                ObjectMapper objectMapper,
+                                @Value("${app.assets.snapshot.gzip:true}") boolean gzipEnabled) {
+        this.quoteCache = quoteCache;
+        this.objectMapper = objectMapper;
+        this.gzipEnabled = gzipEnabled;
+    }
+
+    public Snapshot all() {
+        return snapshot(ALL_MARKETS);
+    }
+
+    public Snapshot byMarket(String marketName) {
+        return snapshot(marketName);
+    }
+
+    private Snapshot snapshot(String market) {
+        Snapshot snapshot = snapshots.get(market);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        long buildVersion = version.get();
+        snapshot = build(ALL_MARKETS.equals(market) ? quoteCache.all() : quoteCache.byMarket(market));
+        if (version.get() == buildVersion) {
+            snapshots.put(market, snapshot);
+        }
+        return snapshot;
+    }
+
+    private Snapshot build(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new Snapshot(json, gzipEnabled ? gzip(json) : null, etag(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize asset snapshot", e);
+        }
+    }
+
+    // after QuoteCache, so a rebuild never reads the quote lists that are being replaced
+    @EventListener
+    @Order(10)
+    public void onAssetsChanged(AssetChangeSet changeSet) {
+        version.incrementAndGet();
+        snapshots.remove(changeSet.market());
+        snapshots.remove(ALL_MARKETS);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,69 +1,102 @@
 package com.example.demo.service;
 
+import com.example.demo.csv.CsvTokenizer;
+import com.example.demo.csv.MappedCsvReader;
 import com.example.demo.entities.Asset;
 import com.example.demo.entities.MarketType;
 import com.example.demo.repository.AssetRepository;
 import com.example.demo.repository.MarketTypeRepository;
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
-import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class CSVDataLoaderService {
 
     private final AssetRepository assetRepository;
     private final MarketTypeRepository marketTypeRepository;
+    private final AssetBulkWriter bulkWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PriceHistoryStore historyStore;
+
+    private final MappedCsvReader mappedReader = new MappedCsvReader(ForkJoinPool.commonPool());
+
+    @Value("${app.ingest.bulk.enabled:false}")
+    private boolean bulkIngest;
+
+    @Value("${app.ingest.mmap.min-bytes:16777216}")
+    private long mmapMinBytes = 16L * 1024 * 1024;
 
     private MarketType stockType;
     private MarketType cryptoType;
     private MarketType etfType;
     private MarketType commodityType;
 
-    public CSVDataLoaderService(AssetRepository assetRepository, MarketTypeRepository marketTypeRepository) {
+    public CSVDataLoaderService(AssetRepository assetRepository, MarketTypeRepository marketTypeRepository,
+                                AssetBulkWriter bulkWriter, ApplicationEventPublisher eventPublisher,
+                                PriceHistoryStore historyStore) {
         this.assetRepository = assetRepository;
         this.marketTypeRepository = marketTypeRepository;
+        this.bulkWriter = bulkWriter;
+        this.eventPublisher = eventPublisher;
+        this.historyStore = historyStore;
     }
     @PersistenceContext
     private EntityManager entityManager;
 
-    @PostConstruct
-    public void init() {
-        try {
-
-            File pythonFile = new File("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/python/output/fetch_data.py");
-            if (!pythonFile.exists()) {
-                System.err.println("Python script not found: " + pythonFile.getAbsolutePath());
-            } else {
-                ProcessBuilder pb = new ProcessBuilder("python", pythonFile.getAbsolutePath());
-                pb.inheritIO();
-                Process process = pb.start();
-                process.waitFor();
-            }
-
-            stockType = ensureType("STOCK");
-            cryptoType = ensureType("CRYPTO");
-            etfType = ensureType("ETF");
-            commodityType = ensureType("COMMODITY");
+    public void refresh() throws IOException, InterruptedException {
+        File pythonFile = new File("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/python/output/fetch_data.py");
+        if (!pythonFile.exists()) {
+            System.err.println("Python script not found: " + pythonFile.getAbsolutePath());
+        } else {
+            ProcessBuilder pb = new ProcessBuilder("python", pythonFile.getAbsolutePath());
+            pb.inheritIO();
+            Process process = pb.start();
+            process.waitFor();
+        }
 
-            loadCsvToDatabase("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/resources/data/stocks_data.csv", stockType);
-            loadCsvToDatabase("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/resources/data/crypto_data.csv", cryptoType);
-            loadCsvToDatabase("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/resources/data/etf_data.csv", etfType);
-            loadCsvToDatabase("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/resources/data/commodities_data.csv", commodityType);
+        stockType = ensureType("STOCK");
+        cryptoType = ensureType("CRYPTO");
+        etfType = ensureType("ETF");
+        commodityType = ensureType("COMMODITY");
 
-        } catch (IOException | InterruptedException | CsvValidationException e) {
-            System.err.println("Error running Python script or loading CSVs: " + e.getMessage());
-            e.printStackTrace();
+        Map<String, MarketType> files = new LinkedHashMap<>();
+        files.put("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/resources/data/stocks_data.csv", stockType);
+        files.put("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/resources/data/crypto_data.csv", cryptoType);
+        files.put("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/resources/data/etf_data.csv", etfType);
+        files.put("C:/Users/Administrator/Desktop/PortfolioManagement/PortfolioManagement/src/main/resources/data/commodities_data.csv", commodityType);
+        Map<String, Exception> failures = loadAll(files);
+        if (!failures.isEmpty()) {
+            IOException error = new IOException(failures.size() + " of " + files.size()
+                    + " market data files failed to load: " + String.join(", ", failures.keySet()));
+            failures.values().forEach(error::addSuppressed);
+            throw error;
         }
     }
 
@@ -73,45 +106,85 @@ public class CSVDataLoaderService {
                 .orElseGet(() -> marketTypeRepository.save(new MarketType(name)));
     }
 
-    public void loadCsvToDatabase(String csvFilePath, MarketType type) throws IOException, CsvValidationException {
+    /**
+     * Loads every file in parallel. A file that fails does not stop the others; the
+     * failures are returned by file path, in the order the files were given.
+     */
+    public Map<String, Exception> loadAll(Map<String, MarketType> files) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, files.size()));
+        Map<String, Exception> failures = new ConcurrentHashMap<>();
+        try {
+            List<CompletableFuture<Void>> loads = files.entrySet().stream()
+                    .map(e -> CompletableFuture.runAsync(() -> {
+                        try {
+                            load(e.getKey(), e.getValue());
+                        } catch (IOException | RuntimeException ex) {
+                            System.err.println("Error loading " + e.getKey() + ": " + ex.getMessage());
+                            failures.put(e.getKey(), ex);
+                        }
+                    }, executor))
+                    .toList();
+            CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<String, Exception> ordered = new LinkedHashMap<>();
+        for (String path : files.keySet()) {
+            Exception failure = failures.get(path);
+            if (failure != null) {
+                ordered.put(path, failure);
+            }
+        }
+        return ordered;
+    }
+
+    private void load(String csvFilePath, MarketType type) throws IOException {
+        if (!new File(csvFilePath).exists()) {
+            throw new FileNotFoundException("CSV file not found: " + csvFilePath);
+        }
+        if (bulkIngest) {
+            bulkLoadCsvToDatabase(csvFilePath, type);
+        } else {
+            loadCsvToDatabase(csvFilePath, type);
+        }
+    }
+
+    public void loadCsvToDatabase(String csvFilePath, MarketType type) throws IOException {
         File file = new File(csvFilePath);
         if (!file.exists()) {
             System.err.println("CSV file not found: " + file.getAbsolutePath());
             return;
         }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String header = br.readLine();
-            String line;
-            while ((line = br.readLine()) != null) {
-
-                String[] fields = line.split(",(?=([^\"]*\"[^\"]*\")*[^\"]*$)", -1);
+        List<AssetChangeSet.Change> changes = new ArrayList<>();
+        List<AssetQuote> quotes = new ArrayList<>();
+        try (Reader reader = new FileReader(file)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            csv.next();
+            while (csv.next()) {
 
-                if (fields.length < 9) continue;
+                AssetQuote quote = AssetQuote.from(csv);
+                if (quote == null) continue;
+                quotes.add(quote);
 
-                String date = fields[0].replace("\"", "").trim();
-                String open = fields[1].replace("\"", "").trim();
-                String high = fields[2].replace("\"", "").trim();
-                String low = fields[3].replace("\"", "").trim();
-                String close = fields[4].replace("\"", "").trim();
-                String volume = fields[5].replace("\"", "").trim();
-                String prevClose = fields[6].replace("\"", "").trim();
-                String companyName = fields[7].replace("\"", "").trim();
-                String ticker = fields[8].replace("\"", "").trim();
-
-                Asset asset = assetRepository.findByTicker(ticker)
+                Asset asset = assetRepository.findByTicker(quote.ticker())
                         .orElseGet(Asset::new);
 
-                asset.setTicker(ticker);
-                asset.setName(companyName);
+                boolean isNew = asset.getId() == null;
+                if (!isNew && AssetFingerprint.of(asset) == AssetFingerprint.of(quote, type)) continue;
+                BigDecimal oldClose = isNew ? null : asset.getClosePrice();
+
+                asset.setTicker(quote.ticker());
+                asset.setName(quote.name());
                 asset.setExchange("");
-                asset.setOpenPrice(toBigDecimal(open));
-                asset.setHighPrice(toBigDecimal(high));
-                asset.setLowPrice(toBigDecimal(low));
-                asset.setClosePrice(toBigDecimal(close));
-                asset.setVolume(toBigDecimal(volume));
-                asset.setPreviousClose(toBigDecimal(prevClose));
-                asset.setPercentChange(null);
+                asset.setOpenPrice(quote.openPrice());
+                asset.setHighPrice(quote.highPrice());
+                asset.setLowPrice(quote.lowPrice());
+                asset.setClosePrice(quote.closePrice());
+                asset.setVolume(quote.volume());
+                asset.setPreviousClose(quote.previousClose());
+                asset.setPercentChange(quote.percentChange());
                 asset.setLastUpdated(Instant.now());
                 asset.setMarketType(type);
 
@@ -121,8 +194,59 @@ public class CSVDataLoaderService {
                 }
 
                 assetRepository.save(asset);
+                changes.add(new AssetChangeSet.Change(asset.getId(), asset.getTicker(), oldClose,
+                        AssetFingerprint.normalize(asset.getClosePrice())));
             }
         }
+
+        historyStore.record(quotes);
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new AssetChangeSet(type.getName(), changes, Instant.now()));
+        }
+    }
+
+    public IngestStats bulkLoadCsvToDatabase(String csvFilePath, MarketType type) throws IOException {
+        File file = new File(csvFilePath);
+        if (!file.exists()) {
+            System.err.println("CSV file not found: " + file.getAbsolutePath());
+            return null;
+        }
+
+        if (file.length() >= mmapMinBytes) {
+            List<AssetQuote> quotes = mappedReader.read(file.toPath(), true, AssetQuote::from);
+            IngestStats stats = bulkWriter.write(quotes.stream(), type);
+            System.out.println("Loaded " + file.getName() + " (mapped, parallel parse): " + stats);
+            return stats;
+        }
+
+        try (Reader reader = new FileReader(file)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            csv.next();
+            IngestStats stats = bulkWriter.write(quotes(csv), type);
+            System.out.println("Loaded " + file.getName() + ": " + stats);
+            return stats;
+        }
+    }
+
+    private Stream<AssetQuote> quotes(CsvTokenizer csv) {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<AssetQuote>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super AssetQuote> action) {
+                try {
+                    while (csv.next()) {
+                        AssetQuote quote = AssetQuote.from(csv);
+                        if (quote != null) {
+                            action.accept(quote);
+                            return true;
+                        }
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }, false);
     }
 
     public BigDecimal toBigDecimal(String value) {
@@ -0,0 +1,208 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers of the finance teacher to questions that stand on their own, so a question many
+ * users ask ("what is an ETF?") reaches the model once per time to live. Questions are
+ * matched on a normalized form (case, punctuation, articles and common contractions do not
+ * matter). By default only such exact matches count; an {@code app.chat.cache.min-similarity}
+ * below 1 also matches the closest stored question by character trigram (Jaccard)
+ * similarity of at least that much, although near-identical questions can differ in what
+ * matters ("over 5 years" and "over 10 years"). Questions that may refer back to the
+ * conversation are neither answered from nor stored in the cache.
+ */
+@Component
+public class ChatResponseCache {
+
+    // a question containing one of these after the first one of a session may depend on what was said before
+    private static final Set<String> FOLLOW_UP_WORDS = Set.of(
+            "it", "its", "that", "this", "these", "those", "they", "them", "their", "he", "she", "his", "her",
+            "one", "ones", "more", "also", "again", "else", "above", "previous", "same", "instead", "example");
+    private static final int MIN_FOLLOW_UP_WORDS = 3;
+    private static final Set<String> IGNORED_WORDS = Set.of("a", "an", "the", "please");
+
+    public record Stats(long exactHits, long similarHits, long misses, long skipped, BoundedCache.Stats entries) {
+
+        public double hitRate() {
+            long total = exactHits + similarHits + misses;
+            return total == 0 ? 0 : (double) (exactHits + similarHits) / total;
+        }
+    }
+
+    private final BoundedCache<String, String> answers;
+    private final int maxSize;
+    private final double minSimilarity;
+
+    // trigram index over the stored questions, guarded by this; may hold evicted keys until the next prune
+    private final Map<String, Set<String>> keysByGram = new HashMap<>();
+    private final Map<String, Set<String>> gramsByKey = new HashMap<>();
+
+    private final LongAdder exactHits = new LongAdder();
+    private final LongAdder similarHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public ChatResponseCache(@Value("${app.chat.cache.max-size:2000}") int maxSize,
+                             @Value("${app.chat.cache.ttl.ms:86400000}") long ttlMillis,
+                             @Value("${app.chat.cache.min-similarity:1}") double minSimilarity) {
+        this.maxSize = Math.max(1, maxSize);
+        this.answers = new BoundedCache<>(this.maxSize, ttlMillis);
+        this.minSimilarity = minSimilarity;
+    }
+
+    /**
+     * @param followUp whether the session has asked before, so the question may refer back
+     */
+    public String get(String question, boolean followUp) {
+        String key = normalize(question);
+        if (!cacheable(key, followUp)) {
+            skipped.increment();
+            return null;
+        }
+        String answer = answers.getIfPresent(key);
+        if (answer != null) {
+            exactHits.increment();
+            return answer;
+        }
+        if (minSimilarity < 1) {
+            String similar = mostSimilar(key);
+            answer = similar != null ? answers.getIfPresent(similar) : null;
+            if (answer != null) {
+                similarHits.increment();
+                return answer;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String question, boolean followUp, String answer) {
+        String key = normalize(question);
+        if (answer == null || answer.isBlank() || !cacheable(key, followUp)) {
+            return;
+        }
+        answers.put(key, answer);
+        if (minSimilarity < 1) {
+            index(key);
+        }
+    }
+
+    public void invalidateAll() {
+        answers.invalidateAll();
+        synchronized (this) {
+            keysByGram.clear();
+            gramsByKey.clear();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(exactHits.sum(), similarHits.sum(), misses.sum(), skipped.sum(), answers.stats());
+    }
+
+    static String normalize(String question) {
+        String text = question.toLowerCase(Locale.ROOT).replace('\u2019', '\'')
+                .replace("what's", "what is")
+                .replace("how's", "how is")
+                .replace("it's", "it is")
+                .replace("'re", " are")
+                .replace("n't", " not")
+                .replaceAll("[^\\p{L}\\p{Nd}]+", " ")
+                .trim();
+        StringBuilder key = new StringBuilder(text.length());
+        for (String word : text.split(" ")) {
+            if (word.isEmpty() || IGNORED_WORDS.contains(word)) continue;
+            if (key.length() > 0) key.append(' ');
+            key.append(word);
+        }
+        return key.toString();
+    }
+
+    private static boolean cacheable(String key, boolean followUp) {
+        if (key.isEmpty()) {
+            return false;
+        }
+        if (!followUp) {
+            return true;
+        }
+        String[] words = key.split(" ");
+        if (words.length < MIN_FOLLOW_UP_WORDS) {
+            return false;
+        }
+        for (String word : words) {
+            if (FOLLOW_UP_WORDS.contains(word)) return false;
+        }
+        return true;
+    }
+
+    static Set<String> trigrams(String key) {
+        String padded = " " + key + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private synchronized String mostSimilar(String key) {
+        Set<String> grams = trigrams(key);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> keys = keysByGram.get(gram);
+            if (keys == null) continue;
+            for (String candidate : keys) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+        String best = null;
+        double bestSimilarity = minSimilarity;
+        for (Map.Entry<String, Integer> e : shared.entrySet()) {
+            int common = e.getValue();
+            double similarity = (double) common / (grams.size() + gramsByKey.get(e.getKey()).size() - common);
+            if (similarity >= bestSimilarity) {
+                best = e.getKey();
+                bestSimilarity = similarity;
+            }
+        }
+        return best;
+    }
+
+    private synchronized void index(String key) {
+        if (gramsByKey.containsKey(key)) {
+            return;
+        }
+        if (gramsByKey.size() >= maxSize) {
+            prune();
+        }
+        Set<String> grams = trigrams(key);
+        gramsByKey.put(key, grams);
+        for (String gram : grams) {
+            keysByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(key);
+        }
+    }
+
+    // drops questions the answer cache has evicted since they were indexed
+    private void prune() {
+        Iterator<Map.Entry<String, Set<String>>> it = gramsByKey.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Set<String>> e = it.next();
+            if (answers.containsKey(e.getKey())) continue;
+            for (String gram : e.getValue()) {
+                Set<String> keys = keysByGram.get(gram);
+                keys.remove(e.getKey());
+                if (keys.isEmpty()) keysByGram.remove(gram);
+            }
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.BoundedCache;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.TeacherServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Finance teacher chat. Each client session has its own conversation on the teacher
+ * service, created on the first question; idle sessions are forgotten after
+ * {@code app.teacher.sessions.ttl.ms}. A conversation the service no longer knows (it was
+ * restarted) is replaced once and the question asked again. Answers are returned whole
+ * ({@link #ask}) or relayed piece by piece while they are generated ({@link #stream}).
+ * Questions that stand on their own are answered from {@link ChatResponseCache} when
+ * possible. The service never sees those exchanges, so the last few of them are sent ahead
+ * of the session's next question that does go to the service, and a follow-up to a cached
+ * answer still has its context.
+ */
+@Service
+public class ChatService {
+
+    private static final int MAX_UNSENT_EXCHANGES = 3;
+
+    private record Exchange(String question, String answer) {
+    }
+
+    private final TeacherClient teacherClient;
+    private final ChatResponseCache responseCache;
+    private final BoundedCache<String, String> conversations;
+    // sessions that have been answered, from the cache or not; their next questions may be follow-ups
+    private final BoundedCache<String, Boolean> answered;
+    // exchanges answered from the cache that the session's conversation on the service has not seen
+    private final BoundedCache<String, List<Exchange>> unsent;
+
+    public ChatService(TeacherClient teacherClient,
+                       ChatResponseCache responseCache,
+                       @Value("${app.teacher.sessions.max:10000}") int maxSessions,
+                       @Value("${app.teacher.sessions.ttl.ms:3600000}") long sessionTtlMillis) {
+        this.teacherClient = teacherClient;
+        this.responseCache = responseCache;
+        this.conversations = new BoundedCache<>(maxSessions, sessionTtlMillis);
+        this.answered = new BoundedCache<>(maxSessions, sessionTtlMillis);
+        this.unsent = new BoundedCache<>(maxSessions, sessionTtlMillis);
+    }
+
+    public CompletableFuture<String> ask(String sessionId, String question) {
+        if (question == null || question.isBlank()) {
+            throw new BadRequestException("Question must not be empty");
+        }
+        boolean followUp = answered.containsKey(sessionId);
+        String cached = responseCache.get(question, followUp);
+        if (cached != null) {
+            touch(sessionId);
+            remember(sessionId, question, cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+        List<Exchange> seeded = unsent.getIfPresent(sessionId);
+        String message = withContext(seeded, question);
+        return conversation(sessionId)
+                .thenCompose(conversationId -> teacherClient.ask(conversationId, message)
+                        .exceptionallyCompose(e -> {
+                            if (!isUnknownConversation(e)) {
+                                return CompletableFuture.failedFuture(e);
+                            }
+                            conversations.invalidate(sessionId);
+                            return conversation(sessionId).thenCompose(id -> teacherClient.ask(id, message));
+                        }))
+                .thenApply(answer -> {
+                    touch(sessionId);
+                    sent(sessionId, seeded);
+                    responseCache.put(question, followUp, answer);
+                    return answer;
+                });
+    }
+
+    /**
+     * Like {@link #ask}, but hands each piece of the answer to {@code onToken} as it is
+     * generated. Cancelling the returned future stops the generation on the service.
+     */
+    public CompletableFuture<String> stream(String sessionId, String question, Consumer<String> onToken) {
+        if (question == null || question.isBlank()) {
+            throw new BadRequestException("Question must not be empty");
+        }
+        boolean followUp = answered.containsKey(sessionId);
+        String cached = responseCache.get(question, followUp);
+        if (cached != null) {
+            try {
+                onToken.accept(cached);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            touch(sessionId);
+            remember(sessionId, question, cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+        List<Exchange> seeded = unsent.getIfPresent(sessionId);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        result.thenAccept(answer -> {
+            sent(sessionId, seeded);
+            responseCache.put(question, followUp, answer);
+        });
+        relay(sessionId, withContext(seeded, question), onToken, result, true);
+        return result;
+    }
+
+    private void relay(String sessionId, String message, Consumer<String> onToken,
+                       CompletableFuture<String> result, boolean retryUnknown) {
+        conversation(sessionId).whenComplete((conversationId, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+                return;
+            }
+            // cancelled while the conversation was being created
+            if (result.isDone()) return;
+
+            CompletableFuture<String> upstream = teacherClient.stream(conversationId, message, onToken);
+            result.whenComplete((answer, e) -> {
+                if (result.isCancelled()) upstream.cancel(true);
+            });
+            upstream.whenComplete((answer, e) -> {
+                if (e == null) {
+                    touch(sessionId);
+                    result.complete(answer);
+                } else if (retryUnknown && isUnknownConversation(e)) {
+                    // a 404 comes before any token, so nothing has been relayed yet
+                    conversations.invalidate(sessionId);
+                    relay(sessionId, message, onToken, result, false);
+                } else {
+                    result.completeExceptionally(unwrap(e));
+                }
+            });
+        });
+    }
+
+    // marks the session as answered and refreshes its time to live
+    private void touch(String sessionId) {
+        answered.put(sessionId, Boolean.TRUE);
+        String conversationId = conversations.getIfPresent(sessionId);
+        if (conversationId != null) {
+            conversations.put(sessionId, conversationId);
+        }
+    }
+
+    private synchronized void remember(String sessionId, String question, String answer) {
+        List<Exchange> exchanges = new ArrayList<>();
+        List<Exchange> earlier = unsent.getIfPresent(sessionId);
+        if (earlier != null) {
+            exchanges.addAll(earlier.subList(Math.max(0, earlier.size() - MAX_UNSENT_EXCHANGES + 1), earlier.size()));
+        }
+        exchanges.add(new Exchange(question, answer));
+        unsent.put(sessionId, List.copyOf(exchanges));
+    }
+
+    // forgets the exchanges once the service has them, unless more were answered from the cache meanwhile
+    private synchronized void sent(String sessionId, List<Exchange> seeded) {
+        if (seeded != null && unsent.getIfPresent(sessionId) == seeded) {
+            unsent.invalidate(sessionId);
+        }
+    }
+
+    private static String withContext(List<Exchange> seeded, String question) {
+        if (seeded == null) {
+            return question;
+        }
+        StringBuilder message = new StringBuilder("Earlier in this chat I asked and was answered:\n");
+        for (Exchange exchange : seeded) {
+            message.append("Q: ").append(exchange.question()).append("\nA: ").append(exchange.answer()).append('\n');
+        }
+        return message.append("\nMy question now: ").append(question).toString();
+    }
+
+    // two first questions of one session racing each other both create a conversation; the later one is kept
+    private CompletableFuture<String> conversation(String sessionId) {
+        String conversationId = conversations.getIfPresent(sessionId);
+        if (conversationId != null) {
+            return CompletableFuture.completedFuture(conversationId);
+        }
+        return teacherClient.createConversation().thenApply(created -> {
+            conversations.put(sessionId, created);
+            return created;
+        });
+    }
+
+    private static boolean isUnknownConversation(Throwable e) {
+        return unwrap(e) instanceof TeacherServiceException t && t.getUpstreamStatus() == 404;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    public BoundedCache.Stats sessionStats() {
+        return conversations.stats();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import com.example.demo.csv.CsvTokenizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline provider backed by the bundled data/*_data.csv snapshots.
+ */
+@Component
+@ConditionalOnProperty(name = "app.marketdata.provider", havingValue = "fixture", matchIfMissing = true)
+public class FixtureMarketDataProvider implements MarketDataProvider {
+
+    private static final List<String> FIXTURES = List.of(
+            "data/stocks_data.csv", "data/crypto_data.csv", "data/etf_data.csv", "data/commodities_data.csv");
+
+    private volatile Map<String, AssetQuote> quotes;
+
+    @Override
+    public String name() {
+        return "fixture";
+    }
+
+    @Override
+    public List<AssetQuote> fetch(List<String> tickers) throws IOException {
+        Map<String, AssetQuote> all = quotes();
+        List<AssetQuote> result = new ArrayList<>(tickers.size());
+        for (String ticker : tickers) {
+            AssetQuote quote = all.get(ticker);
+            if (quote != null) {
+                result.add(quote);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, AssetQuote> quotes() throws IOException {
+        Map<String, AssetQuote> loaded = quotes;
+        if (loaded == null) {
+            loaded = new HashMap<>();
+            for (String fixture : FIXTURES) {
+                ClassPathResource resource = new ClassPathResource(fixture);
+                if (!resource.exists()) continue;
+                try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+                    CsvTokenizer csv = new CsvTokenizer(reader);
+                    csv.next();
+                    while (csv.next()) {
+                        AssetQuote quote = AssetQuote.from(csv);
+                        if (quote != null) {
+                            loaded.put(quote.ticker(), quote);
+                        }
+                    }
+                }
+            }
+            quotes = loaded;
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.service;
+
+public record IngestStats(long rows,
+                          long inserted,
+                          long updated,
+                          long unchanged,
+                          int chunks,
+                          long elapsedNanos,
+                          long maxChunkNanos) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1_000_000_000d / elapsedNanos;
+    }
+
+    public double avgChunkMillis() {
+        return chunks == 0 ? 0 : elapsedNanos / 1_000_000d / chunks;
+    }
+
+    public double maxChunkMillis() {
+        return maxChunkNanos / 1_000_000d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows (%d inserted, %d updated, %d unchanged) in %d chunks, %.0f rows/s, chunk avg %.2f ms, max %.2f ms",
+                rows, inserted, updated, unchanged, chunks, rowsPerSecond(), avgChunkMillis(), maxChunkMillis());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.AssetRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the market data fetch and load in the background once the application is ready,
+ * so the HTTP port opens immediately and keeps serving the last persisted assets until
+ * the fresh load has been written.
+ */
+@Service
+public class MarketDataBootstrap {
+
+    public enum State { PENDING, LOADING, READY, FAILED }
+
+    private final CSVDataLoaderService loaderService;
+    private final MarketDataRefresher refresher;
+    private final AssetRepository assetRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "market-data-bootstrap");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile State state = State.PENDING;
+    private volatile boolean snapshotAvailable;
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+    private volatile String lastError;
+
+    public MarketDataBootstrap(CSVDataLoaderService loaderService,
+                               MarketDataRefresher refresher,
+                               AssetRepository assetRepository,
+                               ApplicationEventPublisher eventPublisher) {
+        this.loaderService = loaderService;
+        this.refresher = refresher;
+        this.assetRepository = assetRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        snapshotAvailable = assetRepository.count() > 0;
+        executor.submit(this::run);
+    }
+
+    void run() {
+        state = State.LOADING;
+        startedAt = Instant.now();
+        try {
+            if (refresher.isEnabled()) {
+                refresher.refreshAll();
+            } else {
+                loaderService.refresh();
+            }
+            completedAt = Instant.now();
+            snapshotAvailable = true;
+            lastError = null;
+            state = State.READY;
+            System.out.println("Market data loaded in " + Duration.between(startedAt, completedAt).toMillis() + " ms");
+            eventPublisher.publishEvent(new MarketDataRefreshedEvent(completedAt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    private void fail(Exception e) {
+        lastError = e.getMessage();
+        state = State.FAILED;
+        System.err.println("Error loading market data: " + e.getMessage());
+        e.printStackTrace();
+    }
+
+    /**
+     * Ready to serve once either the background load finished or a previously persisted
+     * snapshot is present in the database.
+     */
+    public boolean isReady() {
+        return state == State.READY || snapshotAvailable;
+    }
+
+    public State getState() { return state; }
+    public boolean isSnapshotAvailable() { return snapshotAvailable; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getCompletedAt() { return completedAt; }
+    public String getLastError() { return lastError; }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Source of end-of-day quotes for the market data refresher. Implementations should fetch a
+ * whole batch per call; symbols they cannot resolve are simply left out of the result.
+ */
+public interface MarketDataProvider {
+
+    String name();
+
+    List<AssetQuote> fetch(List<String> tickers) throws IOException;
+}
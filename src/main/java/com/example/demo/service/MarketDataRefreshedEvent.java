@@ -0,0 +1,10 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+
+/**
+ * Published once a market data refresh has been fully written, so read-side caches can
+ * swap to the new data in one step instead of observing a half-applied load.
+ */
+public record MarketDataRefreshedEvent(Instant completedAt) {
+}
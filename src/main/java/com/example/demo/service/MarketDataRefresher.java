@@ -0,0 +1,202 @@
+package com.example.demo.service;
+
+import com.example.demo.entities.MarketType;
+import com.example.demo.repository.MarketTypeRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pulls quotes for every symbol list under data/ from the configured {@link MarketDataProvider}
+ * and writes them straight into the asset table, replacing the fetch_data.py + CSV round-trip.
+ * Symbols are fetched in batches on a bounded pool; failed batches are retried with backoff.
+ */
+@Service
+public class MarketDataRefresher {
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private static final Map<String, String> SYMBOL_LISTS = new LinkedHashMap<>();
+
+    static {
+        SYMBOL_LISTS.put("STOCK", "data/stocks.csv");
+        SYMBOL_LISTS.put("CRYPTO", "data/crypto.csv");
+        SYMBOL_LISTS.put("ETF", "data/etf.csv");
+        SYMBOL_LISTS.put("COMMODITY", "data/commodities.csv");
+    }
+
+    private final MarketDataProvider provider;
+    private final AssetBulkWriter bulkWriter;
+    private final MarketTypeRepository marketTypeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public MarketDataRefresher(MarketDataProvider provider,
+                               AssetBulkWriter bulkWriter,
+                               MarketTypeRepository marketTypeRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${app.marketdata.refresher.enabled:false}") boolean enabled,
+                               @Value("${app.marketdata.batch.size:50}") int batchSize,
+                               @Value("${app.marketdata.max-concurrency:4}") int maxConcurrency,
+                               @Value("${app.marketdata.retry.max-attempts:3}") int maxAttempts,
+                               @Value("${app.marketdata.retry.backoff.ms:500}") long backoffMs) {
+        this.provider = provider;
+        this.bulkWriter = bulkWriter;
+        this.marketTypeRepository = marketTypeRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = Math.max(1, backoffMs);
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), r -> {
+            Thread thread = new Thread(r, "market-data-fetch-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${app.polling.interval.ms:120000}", initialDelayString = "${app.polling.interval.ms:120000}")
+    public void scheduledRefresh() {
+        if (!enabled) return;
+        try {
+            if (refreshAll()) {
+                eventPublisher.publishEvent(new MarketDataRefreshedEvent(Instant.now()));
+            }
+        } catch (Exception e) {
+            System.err.println("Market data refresh failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Refreshes every market. Returns false when another refresh was already in progress.
+     */
+    public boolean refreshAll() throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            System.out.println("Market data refresh already running, skipping");
+            return false;
+        }
+        try {
+            // submit every market's batches first so all of them share the pool
+            Map<MarketType, List<CompletableFuture<List<AssetQuote>>>> pending = new LinkedHashMap<>();
+            for (Map.Entry<String, String> market : SYMBOL_LISTS.entrySet()) {
+                pending.put(ensureType(market.getKey()), submit(readSymbols(market.getValue())));
+            }
+            for (Map.Entry<MarketType, List<CompletableFuture<List<AssetQuote>>>> market : pending.entrySet()) {
+                write(market.getKey(), collect(market.getValue()));
+            }
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public IngestStats refresh(MarketType type, List<String> tickers) {
+        return write(type, collect(submit(tickers)));
+    }
+
+    private List<CompletableFuture<List<AssetQuote>>> submit(List<String> tickers) {
+        List<CompletableFuture<List<AssetQuote>>> futures = new ArrayList<>();
+        for (int i = 0; i < tickers.size(); i += batchSize) {
+            List<String> batch = tickers.subList(i, Math.min(i + batchSize, tickers.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> fetchWithRetry(batch), executor));
+        }
+        return futures;
+    }
+
+    private List<AssetQuote> collect(List<CompletableFuture<List<AssetQuote>>> futures) {
+        List<AssetQuote> quotes = new ArrayList<>();
+        for (CompletableFuture<List<AssetQuote>> future : futures) {
+            quotes.addAll(future.join());
+        }
+        return quotes;
+    }
+
+    private IngestStats write(MarketType type, List<AssetQuote> quotes) {
+        IngestStats stats = bulkWriter.write(quotes.stream(), type);
+        System.out.println("Refreshed " + type.getName() + " from " + provider.name() + ": " + stats);
+        return stats;
+    }
+
+    List<AssetQuote> fetchWithRetry(List<String> batch) {
+        long delay = backoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return provider.fetch(batch);
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    System.err.println("Giving up on batch starting at " + batch.get(0) + " after "
+                            + attempt + " attempts: " + e.getMessage());
+                    return List.of();
+                }
+                try {
+                    Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return List.of();
+                }
+                delay = Math.min(delay * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private MarketType ensureType(String name) {
+        return marketTypeRepository.findByName(name)
+                .orElseGet(() -> marketTypeRepository.save(new MarketType(name)));
+    }
+
+    private List<String> readSymbols(String path) throws IOException {
+        List<String> symbols = new ArrayList<>();
+        ClassPathResource resource = new ClassPathResource(path);
+        if (!resource.exists()) {
+            System.err.println("Symbol list not found: " + path);
+            return symbols;
+        }
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String symbol = line.trim();
+                if (!symbol.isEmpty()) {
+                    symbols.add(symbol);
+                }
+            }
+        }
+        return symbols;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MarketSummary;
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.MarketType;
+import com.example.demo.repository.MarketTypeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Advancers, decliners, total volume and the top {@code app.market.movers.top} gainers,
+ * losers and most traded assets per market. A summary is one pass over the market's
+ * quotes with three heaps bounded to N entries, so it costs O(n log N) rather than three
+ * full sorts. All summaries are computed when a refresh completes; an
+ * {@link AssetChangeSet} from any other load drops its market, which is then recomputed
+ * on the next request.
+ */
+@Service
+public class MarketMoversService {
+
+    public static final String ALL_MARKETS = "*";
+
+    private static final Comparator<MarketSummary.Mover> BY_CHANGE =
+            Comparator.comparing(MarketSummary.Mover::percentChange).thenComparing(MarketSummary.Mover::ticker);
+    private static final Comparator<MarketSummary.Mover> BY_VOLUME =
+            Comparator.comparing(MarketSummary.Mover::volume).thenComparing(MarketSummary.Mover::ticker);
+
+    private final QuoteCache quoteCache;
+    private final MarketTypeRepository marketTypeRepository;
+    private final int top;
+
+    private final Map<String, MarketSummary> summaries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public MarketMoversService(QuoteCache quoteCache,
+                               MarketTypeRepository marketTypeRepository,
+                               @Value("${app.market.movers.top:10}") int top) {
+        this.quoteCache = quoteCache;
+        this.marketTypeRepository = marketTypeRepository;
+        this.top = Math.max(1, top);
+    }
+
+    public MarketSummary all() {
+        return summary(ALL_MARKETS);
+    }
+
+    public MarketSummary byMarket(String marketName) {
+        return summary(marketName);
+    }
+
+    private MarketSummary summary(String market) {
+        MarketSummary summary = summaries.get(market);
+        if (summary != null) {
+            return summary;
+        }
+        long buildVersion = version.get();
+        summary = compute(market, ALL_MARKETS.equals(market) ? quoteCache.all() : quoteCache.byMarket(market), top);
+        if (version.get() == buildVersion) {
+            summaries.put(market, summary);
+        }
+        return summary;
+    }
+
+    @EventListener
+    @Order(20)
+    public void onAssetsChanged(AssetChangeSet changeSet) {
+        version.incrementAndGet();
+        summaries.remove(changeSet.market());
+        summaries.remove(ALL_MARKETS);
+    }
+
+    @EventListener
+    public void onMarketDataRefreshed(MarketDataRefreshedEvent event) {
+        all();
+        for (MarketType market : marketTypeRepository.findAll()) {
+            byMarket(market.getName());
+        }
+    }
+
+    static MarketSummary compute(String market, List<Asset> assets, int top) {
+        PriorityQueue<MarketSummary.Mover> gainers = new PriorityQueue<>(top + 1, BY_CHANGE);
+        PriorityQueue<MarketSummary.Mover> losers = new PriorityQueue<>(top + 1, BY_CHANGE.reversed());
+        PriorityQueue<MarketSummary.Mover> active = new PriorityQueue<>(top + 1, BY_VOLUME);
+        int advancers = 0;
+        int decliners = 0;
+        int unchanged = 0;
+        BigDecimal totalVolume = BigDecimal.ZERO;
+
+        for (Asset asset : assets) {
+            BigDecimal change = asset.getPercentChange() != null
+                    ? asset.getPercentChange()
+                    : AssetQuote.percentChange(asset.getClosePrice(), asset.getPreviousClose());
+            MarketSummary.Mover mover = new MarketSummary.Mover(asset.getTicker(), asset.getName(),
+                    asset.getClosePrice(), change, asset.getVolume());
+            if (asset.getVolume() != null) {
+                totalVolume = totalVolume.add(asset.getVolume());
+                offer(active, mover, top);
+            }
+            if (change == null) continue;
+            switch (change.signum()) {
+                case 1 -> {
+                    advancers++;
+                    offer(gainers, mover, top);
+                }
+                case -1 -> {
+                    decliners++;
+                    offer(losers, mover, top);
+                }
+                default -> unchanged++;
+            }
+        }
+        return new MarketSummary(market, assets.size(), advancers, decliners, unchanged, totalVolume,
+                drain(gainers), drain(losers), drain(active), Instant.now());
+    }
+
+    // the heap's head is the weakest of the kept entries, so it is the one a better entry replaces
+    private static void offer(PriorityQueue<MarketSummary.Mover> heap, MarketSummary.Mover mover, int top) {
+        heap.offer(mover);
+        if (heap.size() > top) {
+            heap.poll();
+        }
+    }
+
+    private static List<MarketSummary.Mover> drain(PriorityQueue<MarketSummary.Mover> heap) {
+        List<MarketSummary.Mover> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll());
+        }
+        Collections.reverse(ranked);
+        return List.copyOf(ranked);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PnlTick;
+import com.example.demo.exception.TooManySubscribersException;
+import com.example.demo.stream.ConflatingSubscriber;
+import com.example.demo.stream.StreamDispatcher;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes live profit/loss to users watching their portfolio. On a price change only the
+ * users who both hold a changed asset ({@link PortfolioValuationEngine#holdersOf}) and are
+ * connected are revalued, and only for the positions that changed plus their portfolio
+ * total; everyone else is untouched. The engine has already repriced its books by then, so
+ * a revaluation is a read of the in-memory book.
+ */
+@Service
+public class PnlStreamService implements DisposableBean {
+
+    private final PortfolioValuationEngine valuationEngine;
+    private final StreamDispatcher dispatcher;
+    private final int maxSubscribers;
+
+    private final Map<Long, Set<ConflatingSubscriber<Long, PnlTick>>> byUser = new ConcurrentHashMap<>();
+
+    public PnlStreamService(PortfolioValuationEngine valuationEngine,
+                            @Value("${app.stream.max-rate:4}") double maxRate,
+                            @Value("${app.stream.writer.threads:4}") int writerThreads,
+                            @Value("${app.stream.heartbeat.ms:15000}") long heartbeatMillis,
+                            @Value("${app.stream.max-subscribers:10000}") int maxSubscribers) {
+        this.valuationEngine = valuationEngine;
+        this.dispatcher = new StreamDispatcher("pnl-stream", writerThreads, maxRate, heartbeatMillis);
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * Subscribes to the user's P&amp;L; the first batch is the whole portfolio.
+     */
+    public ConflatingSubscriber<Long, PnlTick> subscribe(Long userId, ConflatingSubscriber.Sink<PnlTick> sink) {
+        if (dispatcher.size() >= maxSubscribers) {
+            throw new TooManySubscribersException(maxSubscribers);
+        }
+        ConflatingSubscriber<Long, PnlTick> subscriber = dispatcher.subscribe(sink, s ->
+                byUser.computeIfPresent(userId, (k, set) -> {
+                    set.remove(s);
+                    return set.isEmpty() ? null : set;
+                }));
+        byUser.compute(userId, (k, set) -> {
+            Set<ConflatingSubscriber<Long, PnlTick>> subscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+            subscribers.add(subscriber);
+            return subscribers;
+        });
+        offer(List.of(subscriber), valuationEngine.valuation(userId));
+        return subscriber;
+    }
+
+    public int subscribers() {
+        return dispatcher.size();
+    }
+
+    @EventListener
+    @Order(50)
+    public void onAssetsChanged(AssetChangeSet changeSet) {
+        if (byUser.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<Long>> changedByUser = new HashMap<>();
+        for (AssetChangeSet.Change change : changeSet.changes()) {
+            if (change.newClose() == null) continue;
+            Set<Long> holders = valuationEngine.holdersOf(change.assetId());
+            // walk whichever side is smaller: the asset's holders or the connected users
+            if (holders.size() <= byUser.size()) {
+                for (Long userId : holders) {
+                    if (byUser.containsKey(userId)) {
+                        changedByUser.computeIfAbsent(userId, k -> new LinkedHashSet<>()).add(change.assetId());
+                    }
+                }
+            } else {
+                for (Long userId : byUser.keySet()) {
+                    if (holders.contains(userId)) {
+                        changedByUser.computeIfAbsent(userId, k -> new LinkedHashSet<>()).add(change.assetId());
+                    }
+                }
+            }
+        }
+
+        changedByUser.forEach((userId, assetIds) -> {
+            Set<ConflatingSubscriber<Long, PnlTick>> subscribers = byUser.get(userId);
+            if (subscribers == null) return;
+            PortfolioValuationEngine.Valuation valuation = valuationEngine.valuation(userId, assetIds);
+            // holders are never pruned, so the user may have sold every changed asset since
+            if (!valuation.positions().isEmpty()) {
+                offer(subscribers, valuation);
+            }
+        });
+    }
+
+    private static void offer(Iterable<ConflatingSubscriber<Long, PnlTick>> subscribers,
+                              PortfolioValuationEngine.Valuation valuation) {
+        List<PnlTick> ticks = new ArrayList<>(valuation.positions().size() + 1);
+        for (PortfolioValuationEngine.PositionValuation p : valuation.positions()) {
+            ticks.add(new PnlTick(p.assetId(), p.ticker(), p.quantity(), p.price(), p.costBasis(),
+                    p.marketValue(), p.profitLoss()));
+        }
+        ticks.add(new PnlTick(null, null, null, null, valuation.costBasis(), valuation.marketValue(),
+                valuation.profitLoss()));
+        for (ConflatingSubscriber<Long, PnlTick> subscriber : subscribers) {
+            for (PnlTick tick : ticks) {
+                subscriber.offer(tick.assetId(), tick);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.close();
+    }
+}
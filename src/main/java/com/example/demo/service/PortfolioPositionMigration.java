@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Brings portfolio_asset rows written before positions were aggregated into shape at
+ * startup: fills in the missing cost basis and merges every (user, asset) that still has
+ * several rows into its oldest row, at weighted-average cost. Users whose positions predate
+ * the {@link TradeLedger} get one OPENING event per position so the ledger starts from them.
+ * Does nothing on a database that is already migrated.
+ */
+@Component
+public class PortfolioPositionMigration implements ApplicationRunner {
+
+    private static final String FILL_COST_BASIS =
+            "UPDATE portfolio_asset SET cost_basis = quantity * purchase_price WHERE cost_basis IS NULL";
+    private static final String FIND_DUPLICATES =
+            "SELECT user_id, asset_id, MIN(id), SUM(quantity), SUM(cost_basis) FROM portfolio_asset "
+                    + "WHERE user_id IS NOT NULL AND asset_id IS NOT NULL "
+                    + "GROUP BY user_id, asset_id HAVING COUNT(*) > 1";
+    private static final String UPDATE_POSITION =
+            "UPDATE portfolio_asset SET quantity = ?, purchase_price = ?, cost_basis = ? WHERE id = ?";
+    private static final String DELETE_MERGED =
+            "DELETE FROM portfolio_asset WHERE user_id = ? AND asset_id = ? AND id <> ?";
+    private static final String OPEN_LEDGER =
+            "INSERT INTO trade_events (user_id, asset_id, kind, quantity_delta, cost_delta, cash_delta, price, timestamp) "
+                    + "SELECT pa.user_id, pa.asset_id, 'OPENING', pa.quantity, pa.cost_basis, 0, pa.purchase_price, CURRENT_TIMESTAMP "
+                    + "FROM portfolio_asset pa WHERE pa.user_id IS NOT NULL AND pa.asset_id IS NOT NULL "
+                    + "AND NOT EXISTS (SELECT 1 FROM trade_events e WHERE e.user_id = pa.user_id) ORDER BY pa.id";
+    // ddl-auto cannot add the constraint while duplicates exist, so it is added once they are merged
+    private static final String ADD_UNIQUE =
+            "ALTER TABLE portfolio_asset ADD CONSTRAINT uk_portfolio_asset_user_asset UNIQUE (user_id, asset_id)";
+
+    private record Position(long userId, long assetId, long keepId, BigDecimal quantity, BigDecimal cost) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PortfolioPositionMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer merged = transactionTemplate.execute(status -> migrate());
+        Integer opened = transactionTemplate.execute(status -> jdbcTemplate.update(OPEN_LEDGER));
+        if (opened != null && opened > 0) {
+            System.out.println("Opened trade ledger with " + opened + " existing positions");
+        }
+        if (merged != null && merged > 0) {
+            System.out.println("Merged portfolio lots into " + merged + " positions");
+            try {
+                jdbcTemplate.execute(ADD_UNIQUE);
+            } catch (RuntimeException e) {
+                System.err.println("Could not add unique constraint on portfolio_asset: " + e.getMessage());
+            }
+        }
+    }
+
+    int migrate() {
+        jdbcTemplate.update(FILL_COST_BASIS);
+        List<Position> positions = jdbcTemplate.query(FIND_DUPLICATES, (rs, i) -> new Position(
+                rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getBigDecimal(4), rs.getBigDecimal(5)));
+        if (positions.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_POSITION, positions, positions.size(), (ps, p) -> {
+            ps.setBigDecimal(1, p.quantity());
+            ps.setBigDecimal(2, p.quantity().signum() > 0
+                    ? p.cost().divide(p.quantity(), 2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO);
+            ps.setBigDecimal(3, p.cost());
+            ps.setLong(4, p.keepId());
+        });
+        jdbcTemplate.batchUpdate(DELETE_MERGED, positions, positions.size(), (ps, p) -> {
+            ps.setLong(1, p.userId());
+            ps.setLong(2, p.assetId());
+            ps.setLong(3, p.keepId());
+        });
+        return positions.size();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PortfolioRow;
+import com.example.demo.dto.PortfolioView;
+import com.example.demo.repository.UserRepository;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the portfolio page from one query (user columns joined to every lot and its asset)
+ * plus the in-memory valuation, which supplies live prices and totals.
+ */
+@Service
+public class PortfolioReadService {
+
+    private final UserRepository userRepository;
+    private final PortfolioValuationEngine valuationEngine;
+
+    public PortfolioReadService(UserRepository userRepository, PortfolioValuationEngine valuationEngine) {
+        this.userRepository = userRepository;
+        this.valuationEngine = valuationEngine;
+    }
+
+    public PortfolioView portfolio(Long userId) {
+        List<PortfolioRow> rows = userRepository.findPortfolioRows(userId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("User not found");
+        }
+
+        PortfolioValuationEngine.Valuation valuation = valuationEngine.valuation(userId, () -> toLots(rows));
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (PortfolioValuationEngine.PositionValuation position : valuation.positions()) {
+            if (position.price() != null) {
+                prices.put(position.assetId(), position.price());
+            }
+        }
+
+        List<PortfolioView.Lot> lots = new ArrayList<>(rows.size());
+        for (PortfolioRow row : rows) {
+            if (row.lotId() == null || row.assetId() == null) continue;
+            BigDecimal price = prices.getOrDefault(row.assetId(), row.closePrice());
+            BigDecimal profit = price != null
+                    ? price.multiply(row.quantity()).subtract(row.costBasis()).setScale(2, RoundingMode.HALF_UP)
+                    : null;
+            lots.add(new PortfolioView.Lot(row.lotId(), row.quantity(), row.purchasePrice(), profit,
+                    new PortfolioView.AssetRef(row.assetId(), row.ticker(), row.name(), price)));
+        }
+
+        PortfolioRow user = rows.get(0);
+        return new PortfolioView(user.userId(), user.username(), user.balance(),
+                valuation.costBasis(), valuation.marketValue(), valuation.profitLoss(), lots);
+    }
+
+    private static List<PortfolioValuationEngine.Lot> toLots(List<PortfolioRow> rows) {
+        List<PortfolioValuationEngine.Lot> lots = new ArrayList<>(rows.size());
+        for (PortfolioRow row : rows) {
+            if (row.lotId() == null || row.assetId() == null) continue;
+            lots.add(new PortfolioValuationEngine.Lot(row.assetId(), row.ticker(), row.closePrice(),
+                    row.quantity(), row.costBasis()));
+        }
+        return lots;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.demo.service;
+
+import com.example.demo.entities.Asset;
+import com.example.demo.repository.PortfolioAssetRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps every user's positions aggregated per asset (quantity, cost basis, last price) in
+ * memory, together with running portfolio totals. Trades and price ticks adjust only the
+ * positions they touch, so a valuation read is a copy of the user's positions with no
+ * database access.
+ *
+ * <p>A user's book is loaded with one query on first read. Every trade and tick bumps a
+ * generation counter; a book loaded while one happened is returned but not kept, so a
+ * load cannot overwrite a newer incremental update. A trade is announced with
+ * {@link #tradeStarting} before it is saved: until it has been applied, a load for that user
+ * may or may not see the saved row, so it is not kept either, and applying the trade to it
+ * cannot count it twice.
+ */
+@Service
+public class PortfolioValuationEngine {
+
+    public record PositionValuation(Long assetId, String ticker, BigDecimal quantity, BigDecimal costBasis,
+                                    BigDecimal price, BigDecimal marketValue, BigDecimal profitLoss) {
+    }
+
+    public record Valuation(Long userId, List<PositionValuation> positions, BigDecimal costBasis,
+                            BigDecimal marketValue, BigDecimal profitLoss) {
+    }
+
+    public record Lot(Long assetId, String ticker, BigDecimal closePrice, BigDecimal quantity,
+                      BigDecimal costBasis) {
+    }
+
+    private final PortfolioAssetRepository portfolioAssetRepository;
+
+    private final Map<Long, Book> books = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> holders = new ConcurrentHashMap<>();
+    // users with a trade between tradeStarting and applyTrade / tradeFailed; guarded by this
+    private final Map<Long, Integer> tradesInFlight = new HashMap<>();
+    private long generation;
+
+    public PortfolioValuationEngine(PortfolioAssetRepository portfolioAssetRepository) {
+        this.portfolioAssetRepository = portfolioAssetRepository;
+    }
+
+    public Valuation valuation(Long userId) {
+        return valuation(userId, () -> lots(userId));
+    }
+
+    private List<Lot> lots(Long userId) {
+        return portfolioAssetRepository.findByUserIdWithAsset(userId).stream()
+                .map(pa -> new Lot(pa.getAsset().getId(), pa.getAsset().getTicker(), pa.getAsset().getClosePrice(),
+                        pa.getQuantity(), pa.getCostBasis()))
+                .toList();
+    }
+
+    /**
+     * Same as {@link #valuation(Long)}, but a book that is not loaded yet is built from the
+     * given lots, for callers that have already read them.
+     */
+    public Valuation valuation(Long userId, Supplier<List<Lot>> lots) {
+        return book(userId, lots).valuation(userId, null);
+    }
+
+    /**
+     * The user's totals with only the positions in {@code assetIds}, for callers that
+     * report what a price change touched without copying the whole book.
+     */
+    public Valuation valuation(Long userId, Collection<Long> assetIds) {
+        return book(userId, () -> lots(userId)).valuation(userId, assetIds);
+    }
+
+    /**
+     * Call before saving a trade for the user, and follow it with {@link #applyTrade} once
+     * saved or {@link #tradeFailed} if it was not.
+     */
+    public synchronized void tradeStarting(Long userId) {
+        generation++;
+        tradesInFlight.merge(userId, 1, Integer::sum);
+    }
+
+    /**
+     * Applies a trade that has already been saved. Users without a loaded book are skipped,
+     * their next read loads the saved state.
+     */
+    public void applyTrade(Long userId, Asset asset, BigDecimal quantityDelta, BigDecimal costDelta) {
+        Book book;
+        synchronized (this) {
+            generation++;
+            book = books.get(userId);
+        }
+        try {
+            if (book != null) {
+                holders.computeIfAbsent(asset.getId(), id -> ConcurrentHashMap.newKeySet()).add(userId);
+                book.apply(asset.getId(), asset.getTicker(), asset.getClosePrice(), quantityDelta, costDelta);
+            }
+        } finally {
+            endTrade(userId);
+        }
+    }
+
+    /**
+     * Ends a trade announced with {@link #tradeStarting} that was not saved.
+     */
+    public void tradeFailed(Long userId) {
+        endTrade(userId);
+    }
+
+    private synchronized void endTrade(Long userId) {
+        generation++;
+        tradesInFlight.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public synchronized void evict(Long userId) {
+        generation++;
+        books.remove(userId);
+    }
+
+    public Set<Long> holdersOf(Long assetId) {
+        return holders.getOrDefault(assetId, Set.of());
+    }
+
+    // before PnlStreamService, which pushes the repriced figures
+    @EventListener
+    @Order(40)
+    public void onAssetsChanged(AssetChangeSet changeSet) {
+        synchronized (this) {
+            generation++;
+        }
+        for (AssetChangeSet.Change change : changeSet.changes()) {
+            if (change.newClose() == null) continue;
+            for (Long userId : holdersOf(change.assetId())) {
+                Book book = books.get(userId);
+                if (book != null) {
+                    book.reprice(change.assetId(), change.newClose());
+                }
+            }
+        }
+    }
+
+    private Book book(Long userId, Supplier<List<Lot>> lots) {
+        Book book = books.get(userId);
+        if (book != null) {
+            return book;
+        }
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        Book loaded = new Book();
+        for (Lot lot : lots.get()) {
+            holders.computeIfAbsent(lot.assetId(), id -> ConcurrentHashMap.newKeySet()).add(userId);
+            loaded.apply(lot.assetId(), lot.ticker(), lot.closePrice(),
+                    lot.quantity(), lot.costBasis());
+        }
+        synchronized (this) {
+            if (generation != loadGeneration || tradesInFlight.containsKey(userId)) {
+                return loaded;
+            }
+            book = books.putIfAbsent(userId, loaded);
+        }
+        return book != null ? book : loaded;
+    }
+
+    private static final class Position {
+        final String ticker;
+        BigDecimal quantity = BigDecimal.ZERO;
+        BigDecimal cost = BigDecimal.ZERO;
+        BigDecimal price;
+
+        Position(String ticker, BigDecimal price) {
+            this.ticker = ticker;
+            this.price = price;
+        }
+
+        // without a price the position is carried at cost
+        BigDecimal marketValue() {
+            return price != null ? quantity.multiply(price) : cost;
+        }
+    }
+
+    private static final class Book {
+        private final Map<Long, Position> positions = new LinkedHashMap<>();
+        private BigDecimal costBasis = BigDecimal.ZERO;
+        private BigDecimal marketValue = BigDecimal.ZERO;
+
+        synchronized void apply(Long assetId, String ticker, BigDecimal price,
+                                BigDecimal quantityDelta, BigDecimal costDelta) {
+            Position position = positions.computeIfAbsent(assetId, id -> new Position(ticker, price));
+            costBasis = costBasis.subtract(position.cost);
+            marketValue = marketValue.subtract(position.marketValue());
+
+            position.quantity = position.quantity.add(quantityDelta);
+            position.cost = position.cost.add(costDelta);
+            if (position.price == null) {
+                position.price = price;
+            }
+
+            if (position.quantity.signum() <= 0) {
+                positions.remove(assetId);
+            } else {
+                costBasis = costBasis.add(position.cost);
+                marketValue = marketValue.add(position.marketValue());
+            }
+        }
+
+        synchronized void reprice(Long assetId, BigDecimal price) {
+            Position position = positions.get(assetId);
+            if (position == null) {
+                return;
+            }
+            marketValue = marketValue.subtract(position.marketValue());
+            position.price = price;
+            marketValue = marketValue.add(position.marketValue());
+        }
+
+        // all positions when assetIds is null
+        synchronized Valuation valuation(Long userId, Collection<Long> assetIds) {
+            List<PositionValuation> result = new ArrayList<>(assetIds != null ? assetIds.size() : positions.size());
+            for (Long assetId : assetIds != null ? assetIds : positions.keySet()) {
+                Position p = positions.get(assetId);
+                if (p == null) continue;
+                BigDecimal value = p.marketValue();
+                result.add(new PositionValuation(assetId, p.ticker, p.quantity, scale(p.cost), p.price,
+                        scale(value), scale(value.subtract(p.cost))));
+            }
+            return new Valuation(userId, result, scale(costBasis), scale(marketValue),
+                    scale(marketValue.subtract(costBasis)));
+        }
+
+        private static BigDecimal scale(BigDecimal value) {
+            return value.setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+}
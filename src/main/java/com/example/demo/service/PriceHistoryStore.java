@@ -0,0 +1,159 @@
+package com.example.demo.service;
+
+import com.example.demo.timeseries.BarSeries;
+import com.example.demo.timeseries.Bars;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Daily OHLCV history per ticker, fed with every quote the loader ingests. Each ticker is a
+ * {@link BarSeries} in memory, backed by a file of fixed-size records sorted by day in
+ * {@code app.history.dir} that is read in one go the first time the ticker is used.
+ * (Files are read rather than memory-mapped: on Windows a live mapping blocks the appends.)
+ * A newer quote for the same day rewrites only that day's record; a quote for a day older
+ * than the last one rewrites the records from that day to the end. With no directory
+ * configured the history lives in memory only.
+ *
+ * <p>Quotes are bucketed by their UTC date.
+ */
+@Service
+public class PriceHistoryStore {
+
+    private final Path dir;
+    private final Map<String, BarSeries> series = new ConcurrentHashMap<>();
+
+    public PriceHistoryStore(@Value("${app.history.dir:}") String dir) {
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+    }
+
+    public void record(Collection<AssetQuote> quotes) {
+        for (AssetQuote quote : quotes) {
+            if (quote == null || quote.ticker() == null || quote.closePrice() == null) continue;
+            int day = (int) (quote.date() != null
+                    ? quote.date().atZone(ZoneOffset.UTC).toLocalDate()
+                    : LocalDate.now(ZoneOffset.UTC)).toEpochDay();
+            put(quote.ticker(), day, toDouble(quote.openPrice()), toDouble(quote.highPrice()),
+                    toDouble(quote.lowPrice()), toDouble(quote.closePrice()), toDouble(quote.volume()));
+        }
+    }
+
+    public void put(String ticker, int day, double open, double high, double low, double close, double volume) {
+        BarSeries bars = series(ticker);
+        // the file write happens under the series lock so file and memory stay in the same order
+        synchronized (bars) {
+            switch (bars.put(day, open, high, low, close, volume)) {
+                case APPENDED -> persist(ticker, bars, bars.size() - 1, bars.size());
+                case REPLACED -> {
+                    int index = bars.indexOf(day);
+                    persist(ticker, bars, index, index + 1);
+                }
+                case INSERTED -> persist(ticker, bars, bars.indexOf(day), bars.size());
+                case UNCHANGED -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Bars between {@code from} and {@code to} inclusive (either may be null), or empty when
+     * nothing was ever recorded for the ticker.
+     */
+    public Optional<Bars> bars(String ticker, LocalDate from, LocalDate to) {
+        BarSeries bars = existingSeries(ticker);
+        if (bars == null) {
+            return Optional.empty();
+        }
+        return Optional.of(bars.range(
+                from != null ? (int) from.toEpochDay() : Integer.MIN_VALUE,
+                to != null ? (int) to.toEpochDay() : Integer.MAX_VALUE));
+    }
+
+    public int tickers() {
+        return series.size();
+    }
+
+    private BarSeries series(String ticker) {
+        return series.computeIfAbsent(ticker, t -> {
+            BarSeries loaded = load(t);
+            return loaded != null ? loaded : new BarSeries();
+        });
+    }
+
+    private BarSeries existingSeries(String ticker) {
+        BarSeries bars = series.get(ticker);
+        if (bars != null || dir == null || !Files.exists(file(ticker))) {
+            return bars;
+        }
+        return series(ticker);
+    }
+
+    private BarSeries load(String ticker) {
+        if (dir == null) return null;
+        Path file = file(ticker);
+        if (!Files.exists(file)) return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break;
+            }
+            return BarSeries.read(buffer.flip());
+        } catch (IOException e) {
+            System.err.println("Could not read price history " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // writes the records [from, to) over their slots in the file, in one write
+    private void persist(String ticker, BarSeries bars, int from, int to) {
+        if (dir == null) return;
+        ByteBuffer records = ByteBuffer.allocate((to - from) * BarSeries.RECORD_BYTES);
+        for (int i = from; i < to; i++) {
+            bars.writeRecord(i, records);
+        }
+        records.flip();
+        try {
+            Files.createDirectories(dir);
+            try (FileChannel channel = FileChannel.open(file(ticker), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long position = (long) from * BarSeries.RECORD_BYTES;
+                while (records.hasRemaining()) {
+                    position += channel.write(records, position);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write price history for " + ticker + ": " + e.getMessage());
+        }
+    }
+
+    // tickers such as ^GSPC or EURUSD=X are not safe file names everywhere; lower case is
+    // escaped too so tickers differing only in case do not collide on case-insensitive disks
+    Path file(String ticker) {
+        StringBuilder name = new StringBuilder(ticker.length() + 4);
+        for (int i = 0; i < ticker.length(); i++) {
+            char c = ticker.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-') {
+                name.append(c);
+            } else {
+                name.append('_').append(Integer.toHexString(c)).append('_');
+            }
+        }
+        return dir.resolve(name.append(".bars").toString());
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+}
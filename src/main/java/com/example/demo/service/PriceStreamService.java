@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PriceTick;
+import com.example.demo.entities.Asset;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.TooManySubscribersException;
+import com.example.demo.stream.ConflatingSubscriber;
+import com.example.demo.stream.StreamDispatcher;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes price changes to subscribers of tickers, of a market, or of everything. Every
+ * {@link AssetChangeSet} is turned into {@link PriceTick}s (one quote list read per changed
+ * market, and only when someone listens) and handed to each interested subscriber, which
+ * conflates them per ticker and sends at most {@code app.stream.max-rate} batches a second.
+ */
+@Service
+public class PriceStreamService implements DisposableBean {
+
+    public static final int MAX_TICKERS = 200;
+
+    private final QuoteCache quoteCache;
+    private final StreamDispatcher dispatcher;
+    private final int maxSubscribers;
+
+    private final Map<String, Set<ConflatingSubscriber<String, PriceTick>>> byTicker = new ConcurrentHashMap<>();
+    private final Map<String, Set<ConflatingSubscriber<String, PriceTick>>> byMarket = new ConcurrentHashMap<>();
+    private final Set<ConflatingSubscriber<String, PriceTick>> everything = ConcurrentHashMap.newKeySet();
+
+    public PriceStreamService(QuoteCache quoteCache,
+                              @Value("${app.stream.max-rate:4}") double maxRate,
+                              @Value("${app.stream.writer.threads:4}") int writerThreads,
+                              @Value("${app.stream.heartbeat.ms:15000}") long heartbeatMillis,
+                              @Value("${app.stream.max-subscribers:10000}") int maxSubscribers) {
+        this.quoteCache = quoteCache;
+        this.dispatcher = new StreamDispatcher("price-stream", writerThreads, maxRate, heartbeatMillis);
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * Subscribes to the given tickers and/or market; with neither, to every asset.
+     */
+    public ConflatingSubscriber<String, PriceTick> subscribe(Collection<String> tickers, String market,
+                                                             ConflatingSubscriber.Sink<PriceTick> sink) {
+        Set<String> symbols = tickers != null ? new HashSet<>(tickers) : Set.of();
+        if (symbols.size() > MAX_TICKERS) {
+            throw new BadRequestException("At most " + MAX_TICKERS + " tickers per subscription");
+        }
+        if (market != null) {
+            // rejects unknown markets with MarketNotFoundException
+            quoteCache.byMarket(market);
+        }
+        if (dispatcher.size() >= maxSubscribers) {
+            throw new TooManySubscribersException(maxSubscribers);
+        }
+
+        ConflatingSubscriber<String, PriceTick> subscriber = dispatcher.subscribe(sink, s -> {
+            symbols.forEach(t -> remove(byTicker, t, s));
+            if (market != null) remove(byMarket, market, s);
+            everything.remove(s);
+        });
+        symbols.forEach(t -> add(byTicker, t, subscriber));
+        if (market != null) {
+            add(byMarket, market, subscriber);
+        }
+        if (symbols.isEmpty() && market == null) {
+            everything.add(subscriber);
+        }
+        return subscriber;
+    }
+
+    public int subscribers() {
+        return dispatcher.size();
+    }
+
+    // after QuoteCache has dropped the changed quotes, so the list read here is the new one
+    @EventListener
+    @Order(30)
+    public void onAssetsChanged(AssetChangeSet changeSet) {
+        Set<ConflatingSubscriber<String, PriceTick>> marketSubscribers = byMarket.getOrDefault(changeSet.market(), Set.of());
+        Map<String, Asset> quotes = null;
+        for (AssetChangeSet.Change change : changeSet.changes()) {
+            Set<ConflatingSubscriber<String, PriceTick>> tickerSubscribers = byTicker.getOrDefault(change.ticker(), Set.of());
+            if (tickerSubscribers.isEmpty() && marketSubscribers.isEmpty() && everything.isEmpty()) continue;
+
+            if (quotes == null) {
+                quotes = quotesOf(changeSet.market());
+            }
+            PriceTick tick = tick(changeSet.market(), change, quotes.get(change.ticker()));
+            tickerSubscribers.forEach(s -> s.offer(tick.ticker(), tick));
+            marketSubscribers.forEach(s -> s.offer(tick.ticker(), tick));
+            everything.forEach(s -> s.offer(tick.ticker(), tick));
+        }
+    }
+
+    private Map<String, Asset> quotesOf(String market) {
+        Map<String, Asset> quotes = new HashMap<>();
+        try {
+            for (Asset asset : quoteCache.byMarket(market)) {
+                quotes.put(asset.getTicker(), asset);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Could not read quotes of " + market + " for the price stream: " + e.getMessage());
+        }
+        return quotes;
+    }
+
+    private static PriceTick tick(String market, AssetChangeSet.Change change, Asset asset) {
+        if (asset == null) {
+            return new PriceTick(change.ticker(), market, change.newClose(), null, null, null);
+        }
+        return new PriceTick(asset.getTicker(), market, asset.getClosePrice(), asset.getPreviousClose(),
+                asset.getPercentChange(), asset.getLastUpdated());
+    }
+
+    // inside compute, so a concurrent remove cannot drop the set between lookup and add
+    private static void add(Map<String, Set<ConflatingSubscriber<String, PriceTick>>> index, String key,
+                            ConflatingSubscriber<String, PriceTick> subscriber) {
+        index.compute(key, (k, set) -> {
+            Set<ConflatingSubscriber<String, PriceTick>> subscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+            subscribers.add(subscriber);
+            return subscribers;
+        });
+    }
+
+    private static void remove(Map<String, Set<ConflatingSubscriber<String, PriceTick>>> index, String key,
+                               ConflatingSubscriber<String, PriceTick> subscriber) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.close();
+    }
+}
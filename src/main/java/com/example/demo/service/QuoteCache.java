@@ -0,0 +1,81 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.BoundedCache;
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.MarketType;
+import com.example.demo.exception.MarketNotFoundException;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.repository.MarketTypeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through cache in front of the asset read endpoints, keyed by ticker and by market.
+ * Entries are dropped as soon as an {@link AssetChangeSet} reports that one of their assets
+ * changed, and otherwise expire after {@code app.cache.quotes.ttl.ms}.
+ */
+@Service
+public class QuoteCache {
+
+    private static final String ALL_MARKETS = "*";
+
+    private final AssetRepository assetRepository;
+    private final MarketTypeRepository marketTypeRepository;
+
+    private final BoundedCache<String, Asset> byTicker;
+    private final BoundedCache<String, List<Asset>> byMarket;
+
+    public QuoteCache(AssetRepository assetRepository,
+                      MarketTypeRepository marketTypeRepository,
+                      @Value("${app.cache.quotes.max-size:5000}") int maxSize,
+                      @Value("${app.cache.quotes.ttl.ms:300000}") long ttlMillis) {
+        this.assetRepository = assetRepository;
+        this.marketTypeRepository = marketTypeRepository;
+        this.byTicker = new BoundedCache<>(maxSize, ttlMillis);
+        this.byMarket = new BoundedCache<>(64, ttlMillis);
+    }
+
+    public List<Asset> all() {
+        return byMarket.get(ALL_MARKETS, k -> List.copyOf(assetRepository.findAll()));
+    }
+
+    public List<Asset> byMarket(String marketName) {
+        return byMarket.get(marketName, name -> {
+            MarketType market = marketTypeRepository.findByName(name)
+                    .orElseThrow(() -> new MarketNotFoundException(name));
+            return List.copyOf(assetRepository.findByMarketType(market));
+        });
+    }
+
+    public Optional<Asset> byTicker(String ticker) {
+        return Optional.ofNullable(byTicker.get(ticker, t -> assetRepository.findByTicker(t).orElse(null)));
+    }
+
+    @EventListener
+    @Order(0)
+    public void onAssetsChanged(AssetChangeSet changeSet) {
+        for (AssetChangeSet.Change change : changeSet.changes()) {
+            byTicker.invalidate(change.ticker());
+        }
+        byMarket.invalidate(changeSet.market());
+        byMarket.invalidate(ALL_MARKETS);
+    }
+
+    public void invalidateAll() {
+        byTicker.invalidateAll();
+        byMarket.invalidateAll();
+    }
+
+    public BoundedCache.Stats tickerStats() {
+        return byTicker.stats();
+    }
+
+    public BoundedCache.Stats marketStats() {
+        return byMarket.stats();
+    }
+}
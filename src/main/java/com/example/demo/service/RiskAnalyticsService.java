@@ -0,0 +1,219 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.HoldingRow;
+import com.example.demo.dto.RiskReport;
+import com.example.demo.repository.PortfolioAssetRepository;
+import com.example.demo.risk.RiskMath;
+import com.example.demo.timeseries.Bars;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Volatility, VaR and correlation of users' holdings, computed from the daily closes in
+ * {@link PriceHistoryStore} over the last {@code app.risk.lookback.days}. A single report
+ * is computed on request; the nightly run covers every account on a dedicated fork-join
+ * pool, loading all holdings with one query and each ticker's closes once per run.
+ */
+@Service
+public class RiskAnalyticsService implements DisposableBean {
+
+    private final PortfolioAssetRepository portfolioAssetRepository;
+    private final PriceHistoryStore priceHistoryStore;
+    private final int lookbackDays;
+    private final ForkJoinPool pool;
+
+    private volatile Map<Long, RiskReport> nightly = Map.of();
+    private volatile Instant nightlyCompletedAt;
+
+    public RiskAnalyticsService(PortfolioAssetRepository portfolioAssetRepository,
+                                PriceHistoryStore priceHistoryStore,
+                                @Value("${app.risk.lookback.days:365}") int lookbackDays,
+                                @Value("${app.risk.parallelism:0}") int parallelism) {
+        this.portfolioAssetRepository = portfolioAssetRepository;
+        this.priceHistoryStore = priceHistoryStore;
+        this.lookbackDays = lookbackDays;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public RiskReport report(Long userId) {
+        return compute(userId, portfolioAssetRepository.findHoldingsByUserId(userId), new PriceWindow(today()));
+    }
+
+    public Optional<RiskReport> nightlyReport(Long userId) {
+        return Optional.ofNullable(nightly.get(userId));
+    }
+
+    public Instant getNightlyCompletedAt() {
+        return nightlyCompletedAt;
+    }
+
+    @Scheduled(cron = "${app.risk.nightly.cron:0 30 2 * * *}", zone = "UTC")
+    public void runNightly() {
+        computeAll();
+    }
+
+    public Map<Long, RiskReport> computeAll() {
+        long started = System.nanoTime();
+        Map<Long, List<HoldingRow>> byUser = portfolioAssetRepository.findAllHoldings().stream()
+                .collect(Collectors.groupingBy(HoldingRow::userId));
+        PriceWindow window = new PriceWindow(today());
+
+        Map<Long, RiskReport> reports = pool.submit(() -> byUser.entrySet().parallelStream()
+                .collect(Collectors.toConcurrentMap(Map.Entry::getKey,
+                        e -> compute(e.getKey(), e.getValue(), window)))).join();
+
+        nightly = reports;
+        nightlyCompletedAt = Instant.now();
+        System.out.println("Computed risk for " + reports.size() + " accounts in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+        return reports;
+    }
+
+    RiskReport compute(Long userId, List<HoldingRow> holdings, PriceWindow window) {
+        List<HoldingRow> covered = new ArrayList<>();
+        List<Bars> history = new ArrayList<>();
+        List<String> withoutHistory = new ArrayList<>();
+        for (HoldingRow h : holdings) {
+            if (h.ticker() == null || h.quantity() == null || h.quantity().signum() <= 0) continue;
+            Bars bars = window.bars(h.ticker());
+            if (bars.size() < 2) {
+                withoutHistory.add(h.ticker());
+            } else {
+                covered.add(h);
+                history.add(bars);
+            }
+        }
+
+        int[] days = commonDays(history);
+        int k = covered.size();
+        double[][] returns = new double[k][];
+        double[] exposure = new double[k];
+        double total = 0;
+        for (int i = 0; i < k; i++) {
+            Bars bars = history.get(i);
+            // usually every holding trades on the same days and the shared series can be used as is
+            returns[i] = days.length == bars.size()
+                    ? window.returns(covered.get(i).ticker())
+                    : RiskMath.returns(closesOn(bars, days));
+            BigDecimal price = covered.get(i).closePrice();
+            exposure[i] = covered.get(i).quantity().doubleValue()
+                    * (price != null ? price.doubleValue() : bars.close()[bars.size() - 1]);
+            total += exposure[i];
+        }
+
+        int observations = Math.max(days.length - 1, 0);
+        List<RiskReport.AssetRisk> assets = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            assets.add(new RiskReport.AssetRisk(covered.get(i).ticker(), covered.get(i).quantity(), money(exposure[i]),
+                    total > 0 ? exposure[i] / total : 0.0,
+                    metric(RiskMath.stdev(returns[i]) * Math.sqrt(RiskMath.TRADING_DAYS))));
+        }
+        LocalDate asOf = days.length > 0 ? LocalDate.ofEpochDay(days[days.length - 1]) : null;
+        if (observations < 2) {
+            return new RiskReport(userId, asOf, observations, money(total), assets, null,
+                    null, null, null, null, new double[0][], withoutHistory);
+        }
+
+        double[] pnl = RiskMath.combine(returns, exposure);
+        double mean = RiskMath.mean(pnl);
+        double sigma = RiskMath.stdev(pnl);
+        return new RiskReport(userId, asOf, observations, money(total), assets,
+                total > 0 ? metric(sigma / total * Math.sqrt(RiskMath.TRADING_DAYS)) : null,
+                money(RiskMath.historicalVar(pnl, 0.95)), money(RiskMath.historicalVar(pnl, 0.99)),
+                money(RiskMath.parametricVar(mean, sigma, 0.95)), money(RiskMath.parametricVar(mean, sigma, 0.99)),
+                RiskMath.correlation(returns), withoutHistory);
+    }
+
+    // days on which every series has a bar, found by walking all of them in step
+    static int[] commonDays(List<Bars> series) {
+        if (series.isEmpty()) return new int[0];
+        int[] pos = new int[series.size()];
+        int[] out = new int[series.get(0).size()];
+        int n = 0;
+        outer:
+        while (true) {
+            int day = Integer.MIN_VALUE;
+            for (int s = 0; s < pos.length; s++) {
+                if (pos[s] >= series.get(s).size()) break outer;
+                day = Math.max(day, series.get(s).days()[pos[s]]);
+            }
+            boolean all = true;
+            for (int s = 0; s < pos.length; s++) {
+                int[] d = series.get(s).days();
+                while (pos[s] < d.length && d[pos[s]] < day) pos[s]++;
+                if (pos[s] >= d.length) break outer;
+                if (d[pos[s]] != day) all = false;
+            }
+            if (all) {
+                out[n++] = day;
+                for (int s = 0; s < pos.length; s++) pos[s]++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static double[] closesOn(Bars bars, int[] days) {
+        double[] prices = new double[days.length];
+        int j = 0;
+        for (int i = 0; i < days.length; i++) {
+            while (bars.days()[j] < days[i]) j++;
+            prices[i] = bars.close()[j];
+        }
+        return prices;
+    }
+
+    private static Double metric(double value) {
+        return Double.isFinite(value) ? value : null;
+    }
+
+    private static BigDecimal money(double value) {
+        return Double.isFinite(value) ? BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP) : null;
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    // each ticker's closes and returns over the lookback, computed once per run
+    final class PriceWindow {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Map<String, Bars> bars = new ConcurrentHashMap<>();
+        private final Map<String, double[]> returns = new ConcurrentHashMap<>();
+
+        PriceWindow(LocalDate to) {
+            this.to = to;
+            this.from = to.minusDays(lookbackDays);
+        }
+
+        Bars bars(String ticker) {
+            return bars.computeIfAbsent(ticker, t -> priceHistoryStore.bars(t, from, to).orElse(Bars.EMPTY));
+        }
+
+        // shared between users, so callers must not modify it
+        double[] returns(String ticker) {
+            return returns.computeIfAbsent(ticker, t -> RiskMath.returns(bars(t).close()));
+        }
+    }
+}
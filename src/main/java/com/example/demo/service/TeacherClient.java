@@ -0,0 +1,374 @@
+package com.example.demo.service;
+
+import com.example.demo.concurrent.CircuitBreaker;
+import com.example.demo.exception.TeacherServiceException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Non-blocking client of the AI teacher (FastAPI) service. Requests go out asynchronously
+ * over one pooled {@link HttpClient}, so no thread waits for the model to answer. At most
+ * {@code app.teacher.max-concurrent} requests are in flight (bulkhead) and further ones are
+ * refused at once; timeouts, connection errors and 5xx answers count towards a
+ * {@link CircuitBreaker} that stops calling a service which is down. A streamed answer
+ * holds its bulkhead permit until it ends or is cancelled.
+ */
+@Component
+public class TeacherClient implements DisposableBean {
+
+    // content='...' (or "...") of a Python ChatCompletionOutputMessage repr
+    private static final Pattern MESSAGE_CONTENT =
+            Pattern.compile("^\\w*Message\\(.*?\\bcontent=(['\"])((?:\\\\.|(?!\\1).)*)\\1", Pattern.DOTALL);
+
+    private final String baseUrl;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final HttpClient http;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker breaker;
+
+    public TeacherClient(ObjectMapper objectMapper,
+                         @Value("${app.teacher.url:http://127.0.0.1:5049/items}") String baseUrl,
+                         @Value("${app.teacher.connect-timeout.ms:2000}") long connectTimeoutMillis,
+                         @Value("${app.teacher.timeout.ms:60000}") long timeoutMillis,
+                         @Value("${app.teacher.max-concurrent:32}") int maxConcurrent,
+                         @Value("${app.teacher.breaker.failures:5}") int breakerFailures,
+                         @Value("${app.teacher.breaker.open.ms:30000}") long breakerOpenMillis) {
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.bulkhead = new Semaphore(Math.max(1, maxConcurrent));
+        this.breaker = new CircuitBreaker("teacher", breakerFailures, breakerOpenMillis);
+
+        // only completes responses; the connections themselves are multiplexed by the client
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "teacher-client-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .executor(executor)
+                .build();
+    }
+
+    public CompletableFuture<String> createConversation() {
+        return post("/conversations", null).thenApply(json -> text(json, "conversation_id"));
+    }
+
+    public CompletableFuture<String> ask(String conversationId, String message) {
+        String path = "/conversations/" + URLEncoder.encode(conversationId, StandardCharsets.UTF_8) + "/message";
+        return post(path, Map.of("message", message)).thenApply(json -> messageContent(text(json, "answer")));
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    public int availablePermits() {
+        return bulkhead.availablePermits();
+    }
+
+    /**
+     * Streams the answer: {@code onToken} gets each piece as the service produces it, and the
+     * returned future completes with the whole answer. Cancelling the future closes the
+     * connection, which makes the service stop generating. If {@code onToken} throws, the
+     * stream is closed and the future fails with that exception.
+     */
+    public CompletableFuture<String> stream(String conversationId, String message, Consumer<String> onToken) {
+        String path = "/conversations/" + URLEncoder.encode(conversationId, StandardCharsets.UTF_8) + "/message/stream";
+        HttpRequest request;
+        try {
+            request = request(path, Map.of("message", message), "text/event-stream");
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Could not encode chat request", e));
+        }
+        TeacherServiceException refused = acquire();
+        if (refused != null) {
+            return CompletableFuture.failedFuture(refused);
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        TokenSubscriber tokens = new TokenSubscriber(onToken, result);
+        AtomicInteger status = new AtomicInteger();
+        CompletableFuture<HttpResponse<Void>> response;
+        try {
+            response = http.sendAsync(request, info -> {
+                status.set(info.statusCode());
+                return info.statusCode() == 200
+                        ? HttpResponse.BodySubscribers.fromLineSubscriber(tokens)
+                        : HttpResponse.BodySubscribers.discarding();
+            });
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            breaker.onFailure();
+            return CompletableFuture.failedFuture(
+                    new TeacherServiceException("AI teacher service could not be called: " + e.getMessage(), 0));
+        }
+
+        result.whenComplete((answer, error) -> {
+            if (error != null) {
+                // cancelled by the caller or the consumer failed: stop reading and drop the connection
+                tokens.cancel();
+                response.cancel(true);
+            }
+        });
+        response.whenComplete((resp, error) -> {
+            bulkhead.release();
+            int code = status.get();
+            if (code >= 500) {
+                breaker.onFailure();
+            } else if (code > 0) {
+                breaker.onSuccess();
+            } else if (result.isDone()) {
+                // abandoned before the service answered, which says nothing about its health
+                breaker.release();
+            } else {
+                breaker.onFailure();
+            }
+
+            if (error != null) {
+                result.completeExceptionally(unreachable(error));
+            } else if (code != 200) {
+                result.completeExceptionally(new TeacherServiceException("AI teacher service answered HTTP " + code, code));
+            } else if (!result.isDone()) {
+                result.completeExceptionally(new TeacherServiceException("AI teacher service ended the answer early", code));
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<JsonNode> post(String path, Object body) {
+        HttpRequest request;
+        try {
+            request = request(path, body, "application/json");
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Could not encode chat request", e));
+        }
+        TeacherServiceException refused = acquire();
+        if (refused != null) {
+            return CompletableFuture.failedFuture(refused);
+        }
+
+        CompletableFuture<HttpResponse<String>> response;
+        try {
+            response = http.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            breaker.onFailure();
+            return CompletableFuture.failedFuture(
+                    new TeacherServiceException("AI teacher service could not be called: " + e.getMessage(), 0));
+        }
+        return response.handle((resp, error) -> {
+            bulkhead.release();
+            if (error != null) {
+                breaker.onFailure();
+                throw unreachable(error);
+            }
+            if (resp.statusCode() >= 500) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            if (resp.statusCode() >= 300) {
+                throw new TeacherServiceException("AI teacher service answered HTTP " + resp.statusCode(), resp.statusCode());
+            }
+            try {
+                return objectMapper.readTree(resp.body());
+            } catch (IOException e) {
+                throw new TeacherServiceException("AI teacher service sent an unreadable answer", resp.statusCode());
+            }
+        });
+    }
+
+    private HttpRequest request(String path, Object body, String accept) throws IOException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", accept)
+                .POST(body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    // takes a bulkhead permit and passes the breaker; returns why not if the call may not go out
+    private TeacherServiceException acquire() {
+        if (!bulkhead.tryAcquire()) {
+            return new TeacherServiceException("Too many chat requests in progress, try again shortly", 0);
+        }
+        if (!breaker.tryAcquire()) {
+            bulkhead.release();
+            return new TeacherServiceException("AI teacher service is unavailable, try again later", 0);
+        }
+        return null;
+    }
+
+    private static TeacherServiceException unreachable(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return new TeacherServiceException(cause instanceof HttpTimeoutException
+                ? "AI teacher service did not answer in time"
+                : "AI teacher service is unreachable: " + cause.getMessage(), 0);
+    }
+
+    /**
+     * Reads the service's server-sent events line by line: {@code data: {"token": ...}} events
+     * carry the answer, {@code event: done} ends it and {@code event: error} fails it.
+     */
+    private final class TokenSubscriber implements Flow.Subscriber<String> {
+
+        private final Consumer<String> onToken;
+        private final CompletableFuture<String> result;
+        private final StringBuilder answer = new StringBuilder();
+        private volatile Flow.Subscription subscription;
+        private String event;
+        private String data;
+
+        TokenSubscriber(Consumer<String> onToken, CompletableFuture<String> result) {
+            this.onToken = onToken;
+            this.result = result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (result.isDone()) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (result.isDone()) {
+                return;
+            }
+            if (line.isEmpty()) {
+                dispatch();
+                event = null;
+                data = null;
+            } else if (line.startsWith("event:")) {
+                event = line.substring(6).trim();
+            } else if (line.startsWith("data:")) {
+                data = line.substring(5).trim();
+            }
+        }
+
+        private void dispatch() {
+            if ("done".equals(event)) {
+                result.complete(answer.toString());
+                return;
+            }
+            JsonNode json;
+            try {
+                json = data != null ? objectMapper.readTree(data) : null;
+            } catch (IOException e) {
+                return;
+            }
+            if ("error".equals(event)) {
+                String reason = json != null ? json.path("error").asText("") : "";
+                result.completeExceptionally(new TeacherServiceException("AI teacher service failed: " + reason, 200));
+                cancel();
+                return;
+            }
+            JsonNode token = json != null ? json.get("token") : null;
+            if (token == null || token.isNull()) {
+                return;
+            }
+            try {
+                onToken.accept(token.asText());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                cancel();
+                return;
+            }
+            answer.append(token.asText());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // reported through the response future
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void cancel() {
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+    }
+
+    private static String text(JsonNode json, String field) {
+        JsonNode value = json.get(field);
+        if (value == null || value.isNull()) {
+            throw new TeacherServiceException("AI teacher service answer has no " + field, 200);
+        }
+        return value.asText();
+    }
+
+    /**
+     * The text of an answer. Older versions of the service answered /message with the repr of
+     * the whole completion message rather than its content, unlike /message/stream; the
+     * content is taken out of it so both endpoints give the same text.
+     */
+    static String messageContent(String answer) {
+        Matcher m = MESSAGE_CONTENT.matcher(answer);
+        if (!m.find()) {
+            return answer;
+        }
+        String quoted = m.group(2);
+        StringBuilder text = new StringBuilder(quoted.length());
+        for (int i = 0; i < quoted.length(); i++) {
+            char c = quoted.charAt(i);
+            if (c != '\\' || i + 1 == quoted.length()) {
+                text.append(c);
+                continue;
+            }
+            char next = quoted.charAt(++i);
+            switch (next) {
+                case 'n' -> text.append('\n');
+                case 't' -> text.append('\t');
+                case 'r' -> text.append('\r');
+                default -> text.append(next);
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TradeOrder;
+import com.example.demo.entities.TransactionType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Applies one user's batch of orders with plain JDBC: the balance and positions are read
+ * once, the orders are applied in memory, and the new transactions, new positions, position
+ * updates, the trade ledger events and the balance are written as JDBC batches. Runs in the
+ * caller's transaction.
+ */
+@Service
+public class TradeBatchWriter {
+
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO user_transactions (user_id, asset_id, amount, price, type, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_LOT =
+            "INSERT INTO portfolio_asset (user_id, asset_id, quantity, purchase_price, cost_basis) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_LOT =
+            "UPDATE portfolio_asset SET quantity = ?, purchase_price = ?, cost_basis = ? WHERE id = ?";
+    private static final String DELETE_LOT = "DELETE FROM portfolio_asset WHERE id = ?";
+    private static final String INSERT_EVENT =
+            "INSERT INTO trade_events (user_id, asset_id, transaction_id, kind, quantity_delta, cost_delta, cash_delta, price, timestamp) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_BALANCE = "UPDATE users SET balance = ? WHERE id = ?";
+
+    private static final class Lot {
+        final Long id;
+        final long assetId;
+        BigDecimal quantity;
+        BigDecimal price;
+        BigDecimal cost;
+        boolean changed;
+
+        Lot(Long id, long assetId, BigDecimal quantity, BigDecimal price, BigDecimal cost) {
+            this.id = id;
+            this.assetId = assetId;
+            this.quantity = quantity;
+            this.price = price;
+            this.cost = cost;
+        }
+
+        void buy(BigDecimal amount, BigDecimal buyPrice) {
+            cost = cost.add(amount.multiply(buyPrice));
+            quantity = quantity.add(amount);
+            price = cost.divide(quantity, 2, RoundingMode.HALF_UP);
+            changed = true;
+        }
+
+        void sell(BigDecimal amount) {
+            cost = amount.compareTo(quantity) >= 0 ? BigDecimal.ZERO
+                    : cost.subtract(cost.multiply(amount).divide(quantity, 8, RoundingMode.HALF_UP));
+            quantity = quantity.subtract(amount);
+            changed = true;
+        }
+    }
+
+    private record TransactionRow(long assetId, BigDecimal amount, BigDecimal price, TransactionType type,
+                                  BigDecimal quantityDelta, BigDecimal costDelta, BigDecimal cashDelta) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TradeBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns, per order, null when it was applied or the reason it was rejected. Rejected
+     * orders write nothing; the others are applied in order.
+     */
+    public List<String> applyGroup(Long userId, List<TradeOrder> orders) {
+        List<BigDecimal> balances = jdbcTemplate.query("SELECT balance FROM users WHERE id = ?",
+                (rs, i) -> rs.getBigDecimal(1), userId);
+        if (balances.isEmpty()) {
+            return Collections.nCopies(orders.size(), "User not found");
+        }
+        BigDecimal balance = balances.get(0) != null ? balances.get(0) : BigDecimal.ZERO;
+        BigDecimal startBalance = balance;
+
+        Map<Long, Lot> lots = new HashMap<>();
+        Map<Long, Lot> positions = new HashMap<>();
+        jdbcTemplate.query("SELECT id, asset_id, quantity, purchase_price, cost_basis FROM portfolio_asset WHERE user_id = ?", rs -> {
+            BigDecimal quantity = rs.getBigDecimal(3);
+            BigDecimal price = rs.getBigDecimal(4);
+            BigDecimal cost = rs.getBigDecimal(5);
+            Lot lot = new Lot(rs.getLong(1), rs.getLong(2), quantity, price,
+                    cost != null ? cost : quantity.multiply(price));
+            lots.put(lot.id, lot);
+            positions.put(lot.assetId, lot);
+        }, userId);
+        Map<String, Long> assetIds = loadAssetIds(orders);
+
+        List<String> errors = new ArrayList<>(orders.size());
+        List<TransactionRow> transactions = new ArrayList<>();
+        List<Lot> newLots = new ArrayList<>();
+        for (TradeOrder order : orders) {
+            String error = validate(order);
+            if (error == null && order.type() == TransactionType.BUY) {
+                Long assetId = assetIds.get(order.ticker());
+                if (assetId == null) {
+                    error = "Asset not found";
+                } else {
+                    Lot position = positions.get(assetId);
+                    if (position != null) {
+                        position.buy(order.amount(), order.price());
+                    } else {
+                        position = new Lot(null, assetId, order.amount(), order.price(),
+                                order.amount().multiply(order.price()));
+                        positions.put(assetId, position);
+                        newLots.add(position);
+                    }
+                    transactions.add(new TransactionRow(assetId, order.amount(), order.price(), TransactionType.BUY,
+                            order.amount(), order.amount().multiply(order.price()), BigDecimal.ZERO));
+                }
+            } else if (error == null) {
+                Lot lot = lots.get(order.assetId());
+                if (lot == null || lot.quantity.signum() <= 0) {
+                    error = "PortfolioAsset not found";
+                } else {
+                    // like the single-order path, a sale larger than the position sells all of it
+                    BigDecimal sold = lot.quantity.min(order.amount());
+                    BigDecimal costBefore = lot.cost;
+                    lot.sell(sold);
+                    BigDecimal proceeds = sold.multiply(order.price());
+                    balance = balance.add(proceeds);
+                    transactions.add(new TransactionRow(lot.assetId, order.amount(), order.price(), TransactionType.SELL,
+                            sold.negate(), lot.cost.subtract(costBefore), proceeds));
+                }
+            }
+            errors.add(error);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> transactionIds = insertTransactions(userId, transactions, now);
+        if (!transactions.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_EVENT, indexed(transactions.size(), (ps, i) -> {
+                TransactionRow t = transactions.get(i);
+                ps.setLong(1, userId);
+                ps.setLong(2, t.assetId());
+                ps.setLong(3, transactionIds.get(i));
+                ps.setString(4, t.type().name());
+                ps.setBigDecimal(5, t.quantityDelta());
+                ps.setBigDecimal(6, t.costDelta());
+                ps.setBigDecimal(7, t.cashDelta());
+                ps.setBigDecimal(8, t.price());
+                ps.setTimestamp(9, now);
+            }));
+        }
+        batch(INSERT_LOT, newLots, (ps, l) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, l.assetId);
+            ps.setBigDecimal(3, l.quantity);
+            ps.setBigDecimal(4, l.price);
+            ps.setBigDecimal(5, l.cost);
+        });
+        List<Lot> updated = new ArrayList<>();
+        List<Lot> emptied = new ArrayList<>();
+        for (Lot lot : lots.values()) {
+            if (lot.changed) {
+                (lot.quantity.signum() > 0 ? updated : emptied).add(lot);
+            }
+        }
+        batch(UPDATE_LOT, updated, (ps, l) -> {
+            ps.setBigDecimal(1, l.quantity);
+            ps.setBigDecimal(2, l.price);
+            ps.setBigDecimal(3, l.cost);
+            ps.setLong(4, l.id);
+        });
+        batch(DELETE_LOT, emptied, (ps, l) -> ps.setLong(1, l.id));
+        if (balance.compareTo(startBalance) != 0) {
+            jdbcTemplate.update(UPDATE_BALANCE, balance, userId);
+        }
+        return errors;
+    }
+
+    private List<Long> insertTransactions(Long userId, List<TransactionRow> transactions, Timestamp now) {
+        if (transactions.isEmpty()) {
+            return List.of();
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_TRANSACTION, new String[]{"id"}),
+                indexed(transactions.size(), (ps, i) -> {
+                    TransactionRow t = transactions.get(i);
+                    ps.setLong(1, userId);
+                    ps.setLong(2, t.assetId());
+                    ps.setBigDecimal(3, t.amount());
+                    ps.setBigDecimal(4, t.price());
+                    ps.setString(5, t.type().name());
+                    ps.setTimestamp(6, now);
+                }), keys);
+        List<Long> ids = new ArrayList<>(transactions.size());
+        for (Map<String, Object> key : keys.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    private static String validate(TradeOrder order) {
+        if (order.type() == null) return "type is required";
+        if (order.amount() == null || order.amount().signum() <= 0) return "amount must be positive";
+        if (order.price() == null || order.price().signum() < 0) return "price must not be negative";
+        if (order.type() == TransactionType.BUY && (order.ticker() == null || order.ticker().isBlank())) {
+            return "ticker is required for BUY";
+        }
+        if (order.type() == TransactionType.SELL && order.assetId() == null) return "assetId is required for SELL";
+        return null;
+    }
+
+    private Map<String, Long> loadAssetIds(List<TradeOrder> orders) {
+        Set<String> tickers = new HashSet<>();
+        for (TradeOrder order : orders) {
+            if (order.type() == TransactionType.BUY && order.ticker() != null) {
+                tickers.add(order.ticker());
+            }
+        }
+        Map<String, Long> ids = new HashMap<>();
+        if (tickers.isEmpty()) {
+            return ids;
+        }
+        String in = String.join(", ", Collections.nCopies(tickers.size(), "?"));
+        jdbcTemplate.query("SELECT id, ticker FROM asset WHERE ticker IN (" + in + ")",
+                rs -> {
+                    ids.put(rs.getString(2), rs.getLong(1));
+                }, tickers.toArray());
+        return ids;
+    }
+
+    private interface IndexedSetter {
+        void setValues(PreparedStatement ps, int i) throws SQLException;
+    }
+
+    private static BatchPreparedStatementSetter indexed(int size, IndexedSetter setter) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setter.setValues(ps, i);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return size;
+            }
+        };
+    }
+
+    private <T> void batch(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows, rows.size(), setter);
+        }
+    }
+}
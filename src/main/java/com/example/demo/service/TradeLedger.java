@@ -0,0 +1,181 @@
+package com.example.demo.service;
+
+import com.example.demo.entities.LedgerSnapshot;
+import com.example.demo.entities.TradeEvent;
+import com.example.demo.entities.TradeEventKind;
+import com.example.demo.entities.TransactionType;
+import com.example.demo.entities.UserTransaction;
+import com.example.demo.repository.LedgerSnapshotRepository;
+import com.example.demo.repository.TradeEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append-only ledger of trade events. A user's positions and net trade cash are the sum of
+ * their events; {@link #state(Long)} starts from the latest {@link LedgerSnapshot} and
+ * replays only the events after it, writing a new snapshot once more than
+ * {@code app.ledger.snapshot.interval} events had to be replayed.
+ *
+ * <p>Callers hold the user's trade lock and run in a transaction.
+ */
+@Service
+public class TradeLedger {
+
+    public record Holding(BigDecimal quantity, BigDecimal costBasis) {
+
+        static final Holding EMPTY = new Holding(BigDecimal.ZERO, BigDecimal.ZERO);
+
+        // cost of taking amount out of the holding at average cost
+        BigDecimal costOf(BigDecimal amount) {
+            if (quantity.signum() <= 0) return BigDecimal.ZERO;
+            if (amount.compareTo(quantity) >= 0) return costBasis;
+            return costBasis.multiply(amount).divide(quantity, 8, RoundingMode.HALF_UP);
+        }
+    }
+
+    public record LedgerState(Long userId, long lastEventId, BigDecimal cash, Map<Long, Holding> positions, int replayed) {
+
+        public Holding holding(Long assetId) {
+            return positions.getOrDefault(assetId, Holding.EMPTY);
+        }
+
+        public LedgerState apply(TradeEvent event) {
+            Map<Long, Holding> next = new HashMap<>(positions);
+            fold(next, event);
+            return new LedgerState(userId, event.getId() != null ? event.getId() : lastEventId,
+                    cash.add(event.getCashDelta()), Collections.unmodifiableMap(next), replayed);
+        }
+    }
+
+    private final TradeEventRepository eventRepository;
+    private final LedgerSnapshotRepository snapshotRepository;
+    private final int snapshotInterval;
+
+    public TradeLedger(TradeEventRepository eventRepository,
+                       LedgerSnapshotRepository snapshotRepository,
+                       @Value("${app.ledger.snapshot.interval:100}") int snapshotInterval) {
+        this.eventRepository = eventRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public TradeEvent recordBuy(Long userId, Long assetId, Long transactionId, BigDecimal amount, BigDecimal price) {
+        return append(new TradeEvent(userId, assetId, transactionId, TradeEventKind.BUY,
+                amount, amount.multiply(price), BigDecimal.ZERO, price));
+    }
+
+    public TradeEvent recordSell(Long userId, Long assetId, Long transactionId,
+                                 BigDecimal sold, BigDecimal soldCost, BigDecimal price) {
+        return append(new TradeEvent(userId, assetId, transactionId, TradeEventKind.SELL,
+                sold.negate(), soldCost.negate(), sold.multiply(price), price));
+    }
+
+    /**
+     * Records the transaction as it is now against {@code state}, which must already include
+     * any reversal of its previous version. A sale is capped at the quantity held.
+     */
+    public TradeEvent recordTrade(Long userId, UserTransaction transaction, LedgerState state) {
+        Long assetId = transaction.getAsset().getId();
+        if (transaction.getType() == TransactionType.BUY) {
+            return recordBuy(userId, assetId, transaction.getId(), transaction.getAmount(), transaction.getPrice());
+        }
+        Holding holding = state.holding(assetId);
+        BigDecimal sold = holding.quantity().max(BigDecimal.ZERO).min(transaction.getAmount());
+        return recordSell(userId, assetId, transaction.getId(), sold, holding.costOf(sold), transaction.getPrice());
+    }
+
+    /**
+     * Appends compensating events that cancel everything still in effect for the
+     * transaction. Call it before the transaction is modified: a transaction from before the
+     * ledger has no events, so its effect is estimated from its own fields.
+     */
+    public List<TradeEvent> reverse(Long userId, UserTransaction transaction) {
+        List<TradeEvent> events = eventRepository.findByUserIdAndTransactionIdOrderByIdAsc(userId, transaction.getId());
+        Set<Long> reversed = new HashSet<>();
+        for (TradeEvent event : events) {
+            if (event.getKind() == TradeEventKind.REVERSAL) reversed.add(event.getReversedEventId());
+        }
+
+        List<TradeEvent> appended = new ArrayList<>();
+        for (TradeEvent event : events) {
+            if (event.getKind() != TradeEventKind.REVERSAL && !reversed.contains(event.getId())) {
+                appended.add(append(event.reversal()));
+            }
+        }
+        if (events.isEmpty()) {
+            appended.add(append(legacyReversal(userId, transaction)));
+        }
+        return appended;
+    }
+
+    private TradeEvent legacyReversal(Long userId, UserTransaction transaction) {
+        Long assetId = transaction.getAsset().getId();
+        Holding holding = state(userId).holding(assetId);
+        BigDecimal amount = transaction.getAmount();
+        if (transaction.getType() == TransactionType.BUY) {
+            BigDecimal removed = holding.quantity().max(BigDecimal.ZERO).min(amount);
+            return new TradeEvent(userId, assetId, transaction.getId(), TradeEventKind.REVERSAL,
+                    removed.negate(), holding.costOf(removed).negate(), BigDecimal.ZERO, transaction.getPrice());
+        }
+        // the sold units come back at the current average cost, or at the sale price if none are held
+        BigDecimal unitCost = holding.quantity().signum() > 0
+                ? holding.costBasis().divide(holding.quantity(), 8, RoundingMode.HALF_UP)
+                : transaction.getPrice();
+        return new TradeEvent(userId, assetId, transaction.getId(), TradeEventKind.REVERSAL,
+                amount, amount.multiply(unitCost), amount.multiply(transaction.getPrice()).negate(), transaction.getPrice());
+    }
+
+    public LedgerState state(Long userId) {
+        LedgerSnapshot snapshot = snapshotRepository.findFirstByUserIdOrderByLastEventIdDesc(userId).orElse(null);
+        long lastEventId = 0;
+        BigDecimal cash = BigDecimal.ZERO;
+        Map<Long, Holding> positions = new HashMap<>();
+        if (snapshot != null) {
+            lastEventId = snapshot.getLastEventId();
+            cash = snapshot.getCash();
+            for (LedgerSnapshot.Position p : snapshot.getPositions()) {
+                positions.put(p.getAssetId(), new Holding(p.getQuantity(), p.getCostBasis()));
+            }
+        }
+
+        List<TradeEvent> events = eventRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, lastEventId);
+        for (TradeEvent event : events) {
+            fold(positions, event);
+            cash = cash.add(event.getCashDelta());
+            lastEventId = event.getId();
+        }
+
+        if (events.size() >= snapshotInterval) {
+            List<LedgerSnapshot.Position> snapshotPositions = new ArrayList<>(positions.size());
+            positions.forEach((assetId, h) -> snapshotPositions.add(new LedgerSnapshot.Position(assetId, h.quantity(), h.costBasis())));
+            snapshotRepository.save(new LedgerSnapshot(userId, lastEventId, cash, snapshotPositions));
+        }
+        return new LedgerState(userId, lastEventId, cash, Collections.unmodifiableMap(positions), events.size());
+    }
+
+    private TradeEvent append(TradeEvent event) {
+        eventRepository.save(event);
+        return event;
+    }
+
+    private static void fold(Map<Long, Holding> positions, TradeEvent event) {
+        if (event.getAssetId() == null) return;
+        Holding h = positions.getOrDefault(event.getAssetId(), Holding.EMPTY);
+        Holding next = new Holding(h.quantity().add(event.getQuantityDelta()), h.costBasis().add(event.getCostDelta()));
+        if (next.quantity().signum() == 0 && next.costBasis().signum() == 0) {
+            positions.remove(event.getAssetId());
+        } else {
+            positions.put(event.getAssetId(), next);
+        }
+    }
+}
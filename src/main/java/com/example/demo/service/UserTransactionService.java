@@ -1,35 +1,157 @@
 package com.example.demo.service;
 
+import com.example.demo.concurrent.StripedLocks;
+import com.example.demo.dto.TradeBatchResult;
+import com.example.demo.dto.TradeOrder;
+import com.example.demo.dto.TradeResult;
+import com.example.demo.dto.TransactionCursor;
+import com.example.demo.dto.TransactionPage;
+import com.example.demo.dto.TransactionQuery;
+import com.example.demo.dto.TransactionSummary;
 import com.example.demo.entities.*;
 import com.example.demo.repository.AssetRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserTransactionRepository;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Trades, edits and deletes of one user are serialized on a striped lock and each runs in its
+ * own transaction that commits before the lock is released, so two requests for the same
+ * account never interleave their read-modify-write of balance and positions. Requests for
+ * different users proceed in parallel.
+ *
+ * <p>Every trade is also appended to the {@link TradeLedger}. Edits and deletes append
+ * compensating events there and take the affected position from the ledger state instead of
+ * working backwards from the current rows.
+ */
 @Service
 public class UserTransactionService {
 
+    private static final int LOCK_STRIPES = 256;
+
+    private record Trade(UserTransaction transaction, Asset asset, BigDecimal quantity, BigDecimal cost) {
+    }
+
     private final UserRepository userRepository;
     private final AssetRepository assetRepository;
+    private final UserTransactionRepository transactionRepository;
+    private final PortfolioValuationEngine valuationEngine;
+    private final TradeBatchWriter batchWriter;
+    private final TradeLedger ledger;
+    private final TransactionTemplate transactionTemplate;
+
+    private final StripedLocks userLocks = new StripedLocks(LOCK_STRIPES);
 
     public UserTransactionService(UserRepository userRepository,
-                                  AssetRepository assetRepository) {
+                                  AssetRepository assetRepository,
+                                  UserTransactionRepository transactionRepository,
+                                  PortfolioValuationEngine valuationEngine,
+                                  TradeBatchWriter batchWriter,
+                                  TradeLedger ledger,
+                                  PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.assetRepository = assetRepository;
+        this.transactionRepository = transactionRepository;
+        this.valuationEngine = valuationEngine;
+        this.batchWriter = batchWriter;
+        this.ledger = ledger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    public List<UserTransaction> getTransactionsForUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getTransactions();
+    public TransactionPage getTransactionHistory(TransactionQuery query) {
+        List<TransactionSummary> rows = transactionRepository.findPage(
+                new TransactionQuery(query.userId(), query.from(), query.to(), query.after(), query.limit() + 1));
+        if (rows.size() <= query.limit()) {
+            return new TransactionPage(rows, null);
+        }
+        List<TransactionSummary> items = List.copyOf(rows.subList(0, query.limit()));
+        TransactionSummary last = items.get(items.size() - 1);
+        return new TransactionPage(items, new TransactionCursor(last.timestamp(), last.id()).encode());
+    }
+
+    @Transactional(readOnly = true)
+    public void exportTransactions(TransactionQuery query, Consumer<TransactionSummary> sink) {
+        try (Stream<TransactionSummary> rows = transactionRepository.stream(query)) {
+            rows.forEach(sink);
+        }
     }
 
     public UserTransaction addTransaction(Long userId, String assetTicker, BigDecimal amount, BigDecimal price, TransactionType type, Long assetId) {
+        return userLocks.withLock(userId, () -> {
+            valuationEngine.tradeStarting(userId);
+            Trade trade;
+            try {
+                trade = transactionTemplate.execute(status -> applyTrade(userId, assetTicker, amount, price, type, assetId));
+            } catch (RuntimeException | Error e) {
+                valuationEngine.tradeFailed(userId);
+                throw e;
+            }
+            valuationEngine.applyTrade(userId, trade.asset(), trade.quantity(), trade.cost());
+            return trade.transaction();
+        });
+    }
+
+    /**
+     * Applies the orders grouped by user: each user's orders run in order, under that user's
+     * lock and in one transaction. An order that cannot be applied is reported without
+     * affecting the rest of its group; a group whose transaction fails reports all of its
+     * orders as failed without affecting other users.
+     */
+    public TradeBatchResult executeBatch(List<TradeOrder> orders) {
+        TradeResult[] results = new TradeResult[orders.size()];
+        Map<Long, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            TradeOrder order = orders.get(i);
+            if (order == null || order.userId() == null) {
+                results[i] = new TradeResult(i, null, false, "userId is required");
+            } else {
+                groups.computeIfAbsent(order.userId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        for (Map.Entry<Long, List<Integer>> group : groups.entrySet()) {
+            Long userId = group.getKey();
+            List<Integer> indexes = group.getValue();
+            List<TradeOrder> groupOrders = indexes.stream().map(orders::get).toList();
+            try {
+                List<String> errors = userLocks.withLock(userId, () -> {
+                    List<String> outcome = transactionTemplate.execute(status -> batchWriter.applyGroup(userId, groupOrders));
+                    valuationEngine.evict(userId);
+                    return outcome;
+                });
+                for (int j = 0; j < indexes.size(); j++) {
+                    String error = errors.get(j);
+                    results[indexes.get(j)] = new TradeResult(indexes.get(j), userId, error == null, error);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Batch for user " + userId + " failed: " + e.getMessage());
+                for (int index : indexes) {
+                    results[index] = new TradeResult(index, userId, false, e.getMessage());
+                }
+            }
+        }
+
+        int applied = 0;
+        for (TradeResult result : results) {
+            if (result.applied()) applied++;
+        }
+        return new TradeBatchResult(applied, results.length - applied, List.of(results));
+    }
+
+    private Trade applyTrade(Long userId, String assetTicker, BigDecimal amount, BigDecimal price, TransactionType type, Long assetId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -48,122 +170,157 @@ public class UserTransactionService {
         }
 
         UserTransaction transaction = new UserTransaction();
+        transaction.setUserId(userId);
         transaction.setAsset(asset);
         transaction.setAmount(amount);
         transaction.setPrice(price);
         transaction.setType(type);
-        user.addTransaction(transaction);
+        // persisted now so the ledger event can refer to its id
+        transactionRepository.save(transaction);
 
         if (type == TransactionType.BUY) {
-            PortfolioAsset pa = new PortfolioAsset();
-            pa.setUser(user);
-            pa.setAsset(asset);
-            pa.setQuantity(amount);
-            pa.setPurchasePrice(price);
-            user.addAsset(pa);
-        } else if (type == TransactionType.SELL) {
-            BigDecimal remaining = amount;
-
-            if (portfolioAsset.getQuantity().compareTo(remaining) <= 0) {
-                remaining = remaining.subtract(portfolioAsset.getQuantity());
-                user.setBalance(user.getBalance().add(portfolioAsset.getQuantity().multiply(price)));
-                user.getPortfolioAssets().remove(portfolioAsset);
+            PortfolioAsset position = positionOf(user, asset);
+            if (position != null) {
+                position.addQuantity(amount, price);
             } else {
-                portfolioAsset.setQuantity(portfolioAsset.getQuantity().subtract(remaining));
-                user.setBalance(user.getBalance().add(remaining.multiply(price)));
+                PortfolioAsset pa = new PortfolioAsset();
+                pa.setUser(user);
+                pa.setAsset(asset);
+                pa.setQuantity(amount);
+                pa.setPurchasePrice(price);
+                pa.setCostBasis(amount.multiply(price));
+                user.addAsset(pa);
             }
         }
 
+        BigDecimal sold = BigDecimal.ZERO;
+        BigDecimal soldCost = BigDecimal.ZERO;
+        if (type == TransactionType.SELL) {
+            // a sale larger than the position sells the whole position
+            sold = portfolioAsset.getQuantity().min(amount);
+            soldCost = reducePosition(user, portfolioAsset, sold);
+            user.setBalance(user.getBalance().add(sold.multiply(price)));
+        }
+
         userRepository.save(user);
-        return transaction;
+
+        if (type == TransactionType.SELL) {
+            ledger.recordSell(userId, asset.getId(), transaction.getId(), sold, soldCost, price);
+            return new Trade(transaction, asset, sold.negate(), soldCost.negate());
+        }
+        ledger.recordBuy(userId, asset.getId(), transaction.getId(), amount, price);
+        return new Trade(transaction, asset, amount, amount.multiply(price));
     }
 
     public UserTransaction updateTransaction(Long userId, Long transactionId,
                                              BigDecimal newAmount,
                                              BigDecimal newPrice,
                                              TransactionType newType) {
+        return userLocks.withLock(userId, () -> {
+            UserTransaction transaction = transactionTemplate.execute(
+                    status -> applyUpdate(userId, transactionId, newAmount, newPrice, newType));
+            valuationEngine.evict(userId);
+            return transaction;
+        });
+    }
+
+    private UserTransaction applyUpdate(Long userId, Long transactionId,
+                                        BigDecimal newAmount,
+                                        BigDecimal newPrice,
+                                        TransactionType newType) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        UserTransaction transaction = user.getTransactions().stream()
-                .filter(t -> t.getId().equals(transactionId))
-                .findFirst()
+        UserTransaction transaction = transactionRepository.findByIdAndUserId(transactionId, userId)
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
 
-        TransactionType oldType = transaction.getType();
-        BigDecimal oldAmount = transaction.getAmount();
-        BigDecimal oldPrice = transaction.getPrice();
-        Asset asset = transaction.getAsset();
+        List<TradeEvent> events = new ArrayList<>(ledger.reverse(userId, transaction));
 
         if (newAmount != null) transaction.setAmount(newAmount);
         if (newPrice != null) transaction.setPrice(newPrice);
         if (newType != null) transaction.setType(newType);
 
-        if (oldType == TransactionType.BUY && transaction.getType() == TransactionType.SELL) {
-            PortfolioAsset pa = user.getPortfolioAssets().stream()
-                    .filter(p -> p.getAsset().getId().equals(asset.getId()) && p.getQuantity().compareTo(oldAmount) == 0)
-                    .findFirst()
-                    .orElse(null);
-
-            if (pa != null) {
-                user.getPortfolioAssets().remove(pa);
-            }
-
-            user.setBalance(user.getBalance().add(transaction.getAmount().multiply(transaction.getPrice())));
-        }
+        TradeLedger.LedgerState state = ledger.state(userId);
+        TradeEvent replacement = ledger.recordTrade(userId, transaction, state);
+        events.add(replacement);
+        applyLedger(user, transaction.getAsset(), state.apply(replacement), events);
 
         userRepository.save(user);
+        transactionRepository.save(transaction);
         return transaction;
     }
 
 
     public void deleteTransaction(Long userId, Long transactionId) {
+        userLocks.withLock(userId, () -> {
+            transactionTemplate.executeWithoutResult(status -> applyDelete(userId, transactionId));
+            valuationEngine.evict(userId);
+        });
+    }
+
+    private void applyDelete(Long userId, Long transactionId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        UserTransaction transaction = user.getTransactions().stream()
-                .filter(t -> t.getId().equals(transactionId))
-                .findFirst()
+        UserTransaction transaction = transactionRepository.findByIdAndUserId(transactionId, userId)
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
 
-        if (transaction.getType() == TransactionType.BUY) {
-            PortfolioAsset pa = user.getPortfolioAssets().stream()
-                    .filter(p -> p.getAsset().getId().equals(transaction.getAsset().getId())
-                            && p.getQuantity().compareTo(transaction.getAmount()) == 0)
-                    .findFirst()
-                    .orElse(null);
+        List<TradeEvent> events = ledger.reverse(userId, transaction);
+        applyLedger(user, transaction.getAsset(), ledger.state(userId), events);
 
-            if (pa != null) {
-                user.getPortfolioAssets().remove(pa);
-            }
-        } else if (transaction.getType() == TransactionType.SELL) {
-            BigDecimal totalSellValue = transaction.getPrice().multiply(transaction.getAmount());
-            user.setBalance(user.getBalance().subtract(totalSellValue));
+        // only touch the collection if it is already loaded, the row is deleted directly
+        if (Hibernate.isInitialized(user.getTransactions())) {
+            user.getTransactions().remove(transaction);
         }
 
-        user.getTransactions().remove(transaction);
-
         userRepository.save(user);
+        transactionRepository.delete(transaction);
     }
 
-    public BigDecimal calculateProfitLoss(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    // brings the asset's position in line with the ledger and books the cash of the new events
+    private static void applyLedger(User user, Asset asset, TradeLedger.LedgerState state, List<TradeEvent> events) {
+        TradeLedger.Holding holding = state.holding(asset.getId());
+        PortfolioAsset pa = positionOf(user, asset);
+        if (holding.quantity().signum() <= 0) {
+            if (pa != null) user.getPortfolioAssets().remove(pa);
+        } else if (pa != null) {
+            pa.setHolding(holding.quantity(), holding.costBasis());
+        } else {
+            pa = new PortfolioAsset();
+            pa.setUser(user);
+            pa.setAsset(asset);
+            pa.setHolding(holding.quantity(), holding.costBasis());
+            user.addAsset(pa);
+        }
 
-        BigDecimal totalProfit = BigDecimal.ZERO;
+        BigDecimal cash = BigDecimal.ZERO;
+        for (TradeEvent event : events) {
+            cash = cash.add(event.getCashDelta());
+        }
+        if (cash.signum() != 0) {
+            user.setBalance(user.getBalance().add(cash));
+        }
+    }
 
+    private static PortfolioAsset positionOf(User user, Asset asset) {
         for (PortfolioAsset pa : user.getPortfolioAssets()) {
-            BigDecimal assetProfit = pa.getAsset().getClosePrice()
-                    .subtract(pa.getPurchasePrice())
-                    .multiply(pa.getQuantity());
-
-            pa.setProfitAsset(assetProfit.setScale(2, RoundingMode.HALF_UP));
-
-            totalProfit = totalProfit.add(assetProfit);
+            if (pa.getAsset() != null && pa.getAsset().getId().equals(asset.getId())) {
+                return pa;
+            }
         }
-
-        return totalProfit.setScale(2, RoundingMode.HALF_UP);
+        return null;
     }
 
+    // returns the cost taken out; an emptied position is removed
+    private static BigDecimal reducePosition(User user, PortfolioAsset position, BigDecimal amount) {
+        BigDecimal cost = position.removeQuantity(amount);
+        if (position.getQuantity().signum() <= 0) {
+            user.getPortfolioAssets().remove(position);
+        }
+        return cost;
+    }
 
+    public BigDecimal calculateProfitLoss(Long userId) {
+        return valuationEngine.valuation(userId).profitLoss();
+    }
 }
\ No newline at end of file
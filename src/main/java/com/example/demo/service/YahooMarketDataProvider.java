@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import yahoofinance.Stock;
+import yahoofinance.YahooFinance;
+import yahoofinance.quotes.stock.StockQuote;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "app.marketdata.provider", havingValue = "yahoo")
+public class YahooMarketDataProvider implements MarketDataProvider {
+
+    @Override
+    public String name() {
+        return "yahoo";
+    }
+
+    @Override
+    public List<AssetQuote> fetch(List<String> tickers) throws IOException {
+        Map<String, Stock> stocks = YahooFinance.get(tickers.toArray(new String[0]));
+        List<AssetQuote> result = new ArrayList<>(stocks.size());
+        for (Stock stock : stocks.values()) {
+            StockQuote quote = stock.getQuote();
+            if (quote == null || quote.getPrice() == null) continue;
+
+            result.add(new AssetQuote(
+                    quote.getLastTradeTime() != null ? quote.getLastTradeTime().toInstant() : Instant.now(),
+                    quote.getOpen(),
+                    quote.getDayHigh(),
+                    quote.getDayLow(),
+                    quote.getPrice(),
+                    quote.getVolume() != null ? BigDecimal.valueOf(quote.getVolume()) : null,
+                    quote.getPreviousClose(),
+                    stock.getName() != null ? stock.getName() : "",
+                    stock.getSymbol()));
+        }
+        return result;
+    }
+}
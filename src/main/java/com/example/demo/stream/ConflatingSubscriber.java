@@ -0,0 +1,125 @@
+package com.example.demo.stream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * One client of a {@link StreamDispatcher}. Updates are keyed (by ticker, position, ...);
+ * an update replaces any pending update with the same key, and pending updates go out as
+ * one batch at most once per the dispatcher's interval. At most one write per subscriber
+ * is in flight, so a slow client holds back only itself: while its write is blocked,
+ * newer updates keep replacing older ones and it receives the latest values once it
+ * catches up. The backlog is bounded by the number of distinct keys.
+ */
+public final class ConflatingSubscriber<K, V> {
+
+    public interface Sink<V> {
+
+        void send(List<V> batch) throws IOException;
+
+        default void heartbeat() throws IOException {
+        }
+
+        default void close() {
+        }
+    }
+
+    private final StreamDispatcher dispatcher;
+    private final Sink<V> sink;
+    private final Consumer<ConflatingSubscriber<K, V>> onClose;
+
+    private LinkedHashMap<K, V> pending = new LinkedHashMap<>();
+    // a flush is scheduled or running; guards against a second concurrent write
+    private boolean busy;
+    private long lastSentAt;
+    private boolean closed;
+
+    private long offered;
+    private long sent;
+
+    ConflatingSubscriber(StreamDispatcher dispatcher, Sink<V> sink, Consumer<ConflatingSubscriber<K, V>> onClose) {
+        this.dispatcher = dispatcher;
+        this.sink = sink;
+        this.onClose = onClose;
+        this.lastSentAt = System.nanoTime() - dispatcher.minIntervalNanos();
+    }
+
+    public void offer(K key, V value) {
+        long delay;
+        synchronized (this) {
+            if (closed) return;
+            offered++;
+            pending.put(key, value);
+            if (busy) return;
+            busy = true;
+            delay = lastSentAt + dispatcher.minIntervalNanos() - System.nanoTime();
+        }
+        dispatcher.schedule(this::flush, delay);
+    }
+
+    void heartbeat() {
+        synchronized (this) {
+            if (closed || busy) return;
+            busy = true;
+        }
+        dispatcher.schedule(this::flush, 0);
+    }
+
+    private void flush() {
+        List<V> batch;
+        synchronized (this) {
+            if (closed) return;
+            batch = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+        }
+        try {
+            if (batch.isEmpty()) {
+                sink.heartbeat();
+            } else {
+                sink.send(batch);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            return;
+        }
+
+        long delay;
+        synchronized (this) {
+            if (!batch.isEmpty()) {
+                lastSentAt = System.nanoTime();
+                sent += batch.size();
+            }
+            if (closed || pending.isEmpty()) {
+                busy = false;
+                return;
+            }
+            delay = lastSentAt + dispatcher.minIntervalNanos() - System.nanoTime();
+        }
+        dispatcher.schedule(this::flush, delay);
+    }
+
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            pending.clear();
+        }
+        dispatcher.remove(this);
+        onClose.accept(this);
+        sink.close();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Updates offered so far and updates actually written; the difference was conflated away.
+     */
+    public synchronized long[] counts() {
+        return new long[]{offered, sent};
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes each batch as one named server-sent event with a JSON array as data, and a
+ * heartbeat as an SSE comment line that browsers ignore. Closing the subscriber completes
+ * the response.
+ */
+public class SseSink<V> implements ConflatingSubscriber.Sink<V> {
+
+    private final SseEmitter emitter;
+    private final String eventName;
+
+    public SseSink(SseEmitter emitter, String eventName) {
+        this.emitter = emitter;
+        this.eventName = eventName;
+    }
+
+    @Override
+    public void send(List<V> batch) throws IOException {
+        emitter.send(SseEmitter.event().name(eventName).data(batch, MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+        emitter.send(SseEmitter.event().comment("keep-alive"));
+    }
+
+    @Override
+    public void close() {
+        emitter.complete();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a streamed answer: the pieces of text pending in a batch go out joined as one
+ * "token" event (a JSON string), and a final "done" or "error" event completes the response.
+ * The subscriber is meant to be fed with increasing keys so nothing is conflated away.
+ */
+public class SseTokenSink implements ConflatingSubscriber.Sink<SseTokenSink.Part> {
+
+    public record Part(String event, String data) {
+
+        public static Part token(String text) {
+            return new Part("token", text);
+        }
+
+        public static Part done() {
+            return new Part("done", "");
+        }
+
+        public static Part error(String message) {
+            return new Part("error", String.valueOf(message));
+        }
+    }
+
+    private final SseEmitter emitter;
+
+    public SseTokenSink(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void send(List<Part> batch) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (Part part : batch) {
+            if (part.event().equals("token")) {
+                text.append(part.data());
+                continue;
+            }
+            sendText(text);
+            emitter.send(SseEmitter.event().name(part.event()).data(part.data()));
+            emitter.complete();
+            return;
+        }
+        sendText(text);
+    }
+
+    private void sendText(StringBuilder text) throws IOException {
+        if (text.length() > 0) {
+            emitter.send(SseEmitter.event().name("token").data(text.toString(), MediaType.APPLICATION_JSON));
+        }
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+        emitter.send(SseEmitter.event().comment("keep-alive"));
+    }
+
+    @Override
+    public void close() {
+        emitter.complete();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.stream;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Timer and writer threads shared by all {@link ConflatingSubscriber}s of one stream.
+ * Connections themselves hold no thread (they are async responses); a thread is only
+ * used while a batch is being written, so a small pool serves thousands of clients.
+ * Idle subscribers get a heartbeat every {@code heartbeatMillis} so dead connections are
+ * noticed and closed.
+ */
+public final class StreamDispatcher implements AutoCloseable {
+
+    private final long minIntervalNanos;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService writers;
+    private final Set<ConflatingSubscriber<?, ?>> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param maxRate batches per second per subscriber
+     */
+    public StreamDispatcher(String name, int writerThreads, double maxRate, long heartbeatMillis) {
+        this.minIntervalNanos = maxRate > 0 ? (long) (1_000_000_000L / maxRate) : 0;
+        this.timer = Executors.newSingleThreadScheduledExecutor(threads(name + "-timer"));
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), threads(name + "-writer"));
+        if (heartbeatMillis > 0) {
+            timer.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public <K, V> ConflatingSubscriber<K, V> subscribe(ConflatingSubscriber.Sink<V> sink,
+                                                       Consumer<ConflatingSubscriber<K, V>> onClose) {
+        ConflatingSubscriber<K, V> subscriber = new ConflatingSubscriber<>(this, sink, onClose);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    public int size() {
+        return subscribers.size();
+    }
+
+    long minIntervalNanos() {
+        return minIntervalNanos;
+    }
+
+    void remove(ConflatingSubscriber<?, ?> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    void schedule(Runnable flush, long delayNanos) {
+        try {
+            if (delayNanos <= 0) {
+                writers.execute(flush);
+            } else {
+                timer.schedule(() -> execute(flush), delayNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    private void execute(Runnable flush) {
+        try {
+            writers.execute(flush);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    private void heartbeat() {
+        for (ConflatingSubscriber<?, ?> subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ConflatingSubscriber<?, ?> subscriber : subscribers) {
+            subscriber.close();
+        }
+        timer.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    private static ThreadFactory threads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
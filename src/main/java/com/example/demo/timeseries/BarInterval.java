@@ -0,0 +1,47 @@
+package com.example.demo.timeseries;
+
+import com.example.demo.exception.BadRequestException;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Bucket width for downsampling daily bars. Weeks start on Monday.
+ */
+public enum BarInterval {
+    DAY("1d"),
+    WEEK("1w"),
+    MONTH("1m");
+
+    private final String param;
+
+    BarInterval(String param) {
+        this.param = param;
+    }
+
+    public String param() {
+        return param;
+    }
+
+    // days in the same bucket map to the same key, keys increase with the day
+    int bucket(int epochDay) {
+        return switch (this) {
+            case DAY -> epochDay;
+            // epoch day 0 was a Thursday
+            case WEEK -> Math.floorDiv(epochDay + 3, 7);
+            case MONTH -> {
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                yield date.getYear() * 12 + date.getMonthValue() - 1;
+            }
+        };
+    }
+
+    public static BarInterval fromParam(String value) {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "1d", "d", "day", "daily" -> DAY;
+            case "1w", "w", "week", "weekly" -> WEEK;
+            case "1m", "1mo", "m", "month", "monthly" -> MONTH;
+            default -> throw new BadRequestException("Unsupported interval: " + value);
+        };
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.timeseries;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Daily OHLCV bars of one instrument held in parallel primitive arrays, sorted by day, so a
+ * range query is two binary searches and a few array copies. A bar for a day that is already
+ * there replaces it; a bar for a new day is appended, or, when it is older than the last one
+ * (a late or back-filled quote), inserted in its place by shifting the later bars up.
+ *
+ * <p>Each bar also has a fixed-size binary record ({@link #RECORD_BYTES}: the epoch day as
+ * an int, then open, high, low, close and volume as doubles) used by the on-disk files.
+ */
+public final class BarSeries {
+
+    public static final int RECORD_BYTES = Integer.BYTES + 5 * Double.BYTES;
+
+    public enum Put { APPENDED, INSERTED, REPLACED, UNCHANGED }
+
+    private int size;
+    private int[] days;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private double[] volume;
+
+    public BarSeries() {
+        this(16);
+    }
+
+    public BarSeries(int capacity) {
+        int n = Math.max(1, capacity);
+        days = new int[n];
+        open = new double[n];
+        high = new double[n];
+        low = new double[n];
+        close = new double[n];
+        volume = new double[n];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int lastDay() {
+        return size == 0 ? Integer.MIN_VALUE : days[size - 1];
+    }
+
+    public synchronized Put put(int day, double o, double h, double l, double c, double v) {
+        int index = size == 0 || day > days[size - 1] ? size : lowerBound(day);
+        Put result;
+        if (index < size && days[index] == day) {
+            if (same(open[index], o) && same(high[index], h) && same(low[index], l)
+                    && same(close[index], c) && same(volume[index], v)) {
+                return Put.UNCHANGED;
+            }
+            result = Put.REPLACED;
+        } else {
+            if (size == days.length) grow();
+            if (index < size) {
+                shiftUp(index);
+                result = Put.INSERTED;
+            } else {
+                result = Put.APPENDED;
+            }
+            size++;
+        }
+        days[index] = day;
+        open[index] = o;
+        high[index] = h;
+        low[index] = l;
+        close[index] = c;
+        volume[index] = v;
+        return result;
+    }
+
+    /**
+     * Position of the bar for {@code day}, or -1 when there is none.
+     */
+    public synchronized int indexOf(int day) {
+        int index = lowerBound(day);
+        return index < size && days[index] == day ? index : -1;
+    }
+
+    /**
+     * Bars with {@code fromDay <= day <= toDay}.
+     */
+    public synchronized Bars range(int fromDay, int toDay) {
+        int from = lowerBound(fromDay);
+        int to = lowerBound(toDay == Integer.MAX_VALUE ? toDay : toDay + 1);
+        if (from >= to) {
+            return Bars.EMPTY;
+        }
+        return new Bars(Arrays.copyOfRange(days, from, to),
+                Arrays.copyOfRange(open, from, to),
+                Arrays.copyOfRange(high, from, to),
+                Arrays.copyOfRange(low, from, to),
+                Arrays.copyOfRange(close, from, to),
+                Arrays.copyOfRange(volume, from, to));
+    }
+
+    public synchronized void writeRecord(int index, ByteBuffer out) {
+        out.putInt(days[index])
+                .putDouble(open[index])
+                .putDouble(high[index])
+                .putDouble(low[index])
+                .putDouble(close[index])
+                .putDouble(volume[index]);
+    }
+
+    /**
+     * Reads the complete records in {@code in}; a trailing partial record is ignored.
+     */
+    public static BarSeries read(ByteBuffer in) {
+        int records = in.remaining() / RECORD_BYTES;
+        BarSeries series = new BarSeries(records + 16);
+        for (int i = 0; i < records; i++) {
+            series.put(in.getInt(), in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+        }
+        return series;
+    }
+
+    private int lowerBound(int day) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void shiftUp(int index) {
+        int moved = size - index;
+        System.arraycopy(days, index, days, index + 1, moved);
+        System.arraycopy(open, index, open, index + 1, moved);
+        System.arraycopy(high, index, high, index + 1, moved);
+        System.arraycopy(low, index, low, index + 1, moved);
+        System.arraycopy(close, index, close, index + 1, moved);
+        System.arraycopy(volume, index, volume, index + 1, moved);
+    }
+
+    private void grow() {
+        int n = days.length * 2;
+        days = Arrays.copyOf(days, n);
+        open = Arrays.copyOf(open, n);
+        high = Arrays.copyOf(high, n);
+        low = Arrays.copyOf(low, n);
+        close = Arrays.copyOf(close, n);
+        volume = Arrays.copyOf(volume, n);
+    }
+
+    private static boolean same(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+}
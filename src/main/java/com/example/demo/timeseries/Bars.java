@@ -0,0 +1,75 @@
+package com.example.demo.timeseries;
+
+/**
+ * An immutable run of OHLCV bars in columnar form, oldest first. Days are epoch days.
+ */
+public record Bars(int[] days, double[] open, double[] high, double[] low, double[] close, double[] volume) {
+
+    public static final Bars EMPTY = new Bars(new int[0], new double[0], new double[0], new double[0], new double[0], new double[0]);
+
+    public int size() {
+        return days.length;
+    }
+
+    /**
+     * Merges the bars of each interval bucket: first open, highest high, lowest low, last
+     * close, summed volume. A bucket is dated by its first bar.
+     */
+    public Bars downsample(BarInterval interval) {
+        if (interval == BarInterval.DAY || size() < 2) {
+            return this;
+        }
+        int[] keys = new int[size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = interval.bucket(days[i]);
+        }
+        return merge(keys);
+    }
+
+    /**
+     * Merges runs of consecutive bars so that at most {@code points} remain.
+     */
+    public Bars limit(int points) {
+        if (points <= 0 || size() <= points) {
+            return this;
+        }
+        int width = (size() + points - 1) / points;
+        int[] keys = new int[size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i / width;
+        }
+        return merge(keys);
+    }
+
+    private Bars merge(int[] keys) {
+        int groups = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) groups++;
+        }
+        int[] d = new int[groups];
+        double[] o = new double[groups];
+        double[] h = new double[groups];
+        double[] l = new double[groups];
+        double[] c = new double[groups];
+        double[] v = new double[groups];
+
+        int g = -1;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                g++;
+                d[g] = days[i];
+                o[g] = open[i];
+                h[g] = high[i];
+                l[g] = low[i];
+                v[g] = 0;
+            } else {
+                // unlike Math.max/min, a missing (NaN) high or low does not spoil the whole bucket
+                if (high[i] > h[g] || Double.isNaN(h[g])) h[g] = high[i];
+                if (low[i] < l[g] || Double.isNaN(l[g])) l[g] = low[i];
+            }
+            c[g] = close[i];
+            if (!Double.isNaN(volume[i])) v[g] += volume[i];
+        }
+        return new Bars(d, o, h, l, c, v);
+    }
+}
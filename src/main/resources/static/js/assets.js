@@ -15,6 +15,20 @@ if (marketSelect) {
         });
 }
 
+let priceStream = null;
+
+// prices pushed by the server after the list is loaded, instead of re-fetching the list
+function streamPrices(market = "") {
+    if (priceStream) priceStream.close();
+    priceStream = new EventSource(market ? `/api/stream/prices?market=${encodeURIComponent(market)}` : '/api/stream/prices');
+    priceStream.addEventListener('prices', (e) => {
+        JSON.parse(e.data).forEach(tick => {
+            const price = document.getElementById(`price-${tick.ticker}`);
+            if (price) price.textContent = tick.closePrice ?? 'N/A';
+        });
+    });
+}
+
 function fetchAssets(market = "") {
     let url = '/api/assets';
     if (market) url = `/api/assets/market/${market}`;
@@ -29,7 +43,7 @@ function fetchAssets(market = "") {
                     card.className = 'asset-card';
                     card.innerHTML = `
                         <h3>${asset.name} (${asset.ticker})</h3>
-                        <p>Price: ${asset.closePrice ?? 'N/A'}</p>
+                        <p>Price: <span class="price" id="price-${asset.ticker}">${asset.closePrice ?? 'N/A'}</span></p>
                         <button class="detailsBtn" data-ticker="${asset.ticker}">Details</button>
                         <button class="addBtn" data-ticker="${asset.ticker}" data-close="${asset.closePrice ?? 0}">Add</button>
                         <div class="addForm" id="form-${asset.ticker}" style="display:none; margin-top:10px;">
@@ -86,6 +100,7 @@ function fetchAssets(market = "") {
                         });
                     });
                 });
+                streamPrices(market);
             }
         });
 }
@@ -4,14 +4,36 @@ const portfolioTransactionsDiv = document.getElementById('portfolioTransactions'
 
 const userId = 1;
 
+let pnlStream = null;
+
+// position P&L pushed by the server on price changes; a lot card shows its asset's position
+function streamPnl() {
+    if (pnlStream) return;
+    pnlStream = new EventSource(`/api/stream/portfolio/${userId}`);
+    pnlStream.addEventListener('pnl', (e) => {
+        JSON.parse(e.data).forEach(tick => {
+            if (tick.assetId == null) {
+                const total = document.getElementById('profitLoss');
+                if (total) total.textContent = tick.profitLoss;
+                return;
+            }
+            document.querySelectorAll(`.pnl-asset-${tick.assetId}`).forEach(el => el.textContent = tick.profitLoss);
+            document.querySelectorAll(`.price-asset-${tick.assetId}`).forEach(el => el.textContent = tick.price ?? 'N/A');
+        });
+    });
+}
+
 function fetchPortfolio() {
-    fetch(`/api/portfolio/${userId}`)
-        .then(res => res.json())
-        .then(data => {
+    Promise.all([
+        fetch(`/api/portfolio/${userId}`).then(res => res.json()),
+        fetch(`/api/transactions?userId=${userId}&limit=100`).then(res => res.json())
+    ])
+        .then(([data, history]) => {
+            data.transactions = history.items;
             portfolioInfo.innerHTML = `
                 <p><strong>User:</strong> ${data.user}</p>
                 <p><strong>Balance:</strong> ${data.balance}</p>
-                <p><strong>Profit/Loss:</strong> ${data.profitLoss}</p>
+                <p><strong>Profit/Loss:</strong> <span id="profitLoss">${data.profitLoss}</span></p>
             `;
 
             portfolioAssetsDiv.innerHTML = "";
@@ -23,6 +45,8 @@ function fetchPortfolio() {
                     <h3>${asset.asset.name} (${asset.asset.ticker})</h3>
                     <p>Quantity: <span id="assetQty-${asset.id}">${asset.quantity}</span></p>
                     <p>Purchase Price: <span id="assetPrice-${asset.id}">${asset.purchasePrice}</span></p>
+                    <p>Price: <span class="price-asset-${asset.asset.id}">${asset.asset.closePrice ?? 'N/A'}</span></p>
+                    <p>Position P/L: <span class="pnl-asset-${asset.asset.id}">${asset.profitAsset ?? '-'}</span></p>
                     <label>Quantity to sell:</label>
                     <input type="number" step="0.01" id="sellAmount-${asset.id}" value="1">
                     <label>Price to sell:</label>
@@ -142,3 +166,4 @@ function fetchPortfolio() {
 }
 
 fetchPortfolio();
+streamPnl();
@@ -0,0 +1,126 @@
+package com.example.demo;
+
+import com.example.demo.entities.MarketType;
+import com.example.demo.service.AssetBulkWriter;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.AssetQuote;
+import com.example.demo.service.IngestStats;
+import com.example.demo.service.PriceHistoryStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs each upsert statement against H2 (the MySQL one in H2's MySQL mode).
+ */
+class AssetBulkWriterTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private final List<AssetChangeSet> published = new ArrayList<>();
+    private MarketType stocks;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("h2-test-schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO market_type (name) VALUES ('STOCK')");
+        stocks = new MarketType("STOCK");
+        stocks.setId(jdbcTemplate.queryForObject("SELECT id FROM market_type", Long.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private AssetBulkWriter writer(String dialect) {
+        return new AssetBulkWriter(jdbcTemplate, new DataSourceTransactionManager(database), event -> published.add((AssetChangeSet) event),
+                new PriceHistoryStore(""), 2, dialect);
+    }
+
+    private static AssetQuote quote(String ticker, String close) {
+        BigDecimal price = new BigDecimal(close);
+        return new AssetQuote(Instant.parse("2026-10-16T00:00:00Z"), price, price, price, price,
+                new BigDecimal("1000"), new BigDecimal("100"), ticker + " Inc", ticker);
+    }
+
+    private BigDecimal close(String ticker) {
+        return jdbcTemplate.queryForObject("SELECT close_price FROM asset WHERE ticker = ?", BigDecimal.class, ticker);
+    }
+
+    private void upsertTwice(AssetBulkWriter writer) {
+        IngestStats first = writer.write(Stream.of(quote("AAPL", "200"), quote("MSFT", "400"), quote("NVDA", "120")), stocks);
+        assertEquals(3, first.inserted());
+        Map<String, Object> apple = jdbcTemplate.queryForMap("SELECT * FROM asset WHERE ticker = 'AAPL'");
+        assertEquals("AAPL Inc", apple.get("NAME"));
+        assertEquals(0, new BigDecimal("100.00").compareTo((BigDecimal) apple.get("PERCENT_CHANGE")));
+        assertTrue(((BigDecimal) apple.get("PRICE_TO_BUY")).compareTo(new BigDecimal("200")) > 0);
+        assertEquals(stocks.getId(), ((Number) apple.get("MARKET_TYPE_ID")).longValue());
+        Long appleId = ((Number) apple.get("ID")).longValue();
+
+        published.clear();
+        IngestStats second = writer.write(Stream.of(quote("AAPL", "210"), quote("MSFT", "400"), quote("TSLA", "250")), stocks);
+
+        assertEquals(1, second.inserted());
+        assertEquals(1, second.updated());
+        assertEquals(1, second.unchanged());
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM asset", Integer.class));
+        assertEquals(appleId, jdbcTemplate.queryForObject("SELECT id FROM asset WHERE ticker = 'AAPL'", Long.class));
+        assertEquals(0, new BigDecimal("210").compareTo(close("AAPL")));
+        assertEquals(0, new BigDecimal("400").compareTo(close("MSFT")));
+
+        assertEquals(1, published.size());
+        List<AssetChangeSet.Change> changes = published.get(0).changes();
+        assertEquals(List.of("AAPL", "TSLA"), changes.stream().map(AssetChangeSet.Change::ticker).sorted().toList());
+        AssetChangeSet.Change apple2 = changes.stream().filter(c -> c.ticker().equals("AAPL")).findFirst().orElseThrow();
+        assertEquals(appleId, apple2.assetId());
+        assertEquals(0, new BigDecimal("200").compareTo(apple2.oldClose()));
+        assertTrue(changes.stream().filter(c -> c.ticker().equals("TSLA")).findFirst().orElseThrow().isNew());
+    }
+
+    @Test
+    void testH2Merge() {
+        upsertTwice(writer(""));
+    }
+
+    @Test
+    void testMysqlUpsert() {
+        jdbcTemplate.execute("SET MODE MySQL");
+        // an AUTO_INCREMENT column in MySQL assigns an id when NULL is inserted; H2 only does so on request
+        jdbcTemplate.execute("ALTER TABLE asset ALTER COLUMN id SET DEFAULT ON NULL");
+        upsertTwice(writer("mysql"));
+    }
+
+    @Test
+    void testGenericUpdateAndInsert() {
+        upsertTwice(writer("generic"));
+    }
+
+    @Test
+    void testTickerRepeatedInOneChunkIsWrittenOnce() {
+        IngestStats stats = writer("").write(Stream.of(quote("AAPL", "190"), quote("AAPL", "200")), stocks);
+
+        assertEquals(2, stats.rows());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM asset", Integer.class));
+        assertEquals(0, new BigDecimal("200").compareTo(close("AAPL")));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo;
+
+import com.example.demo.service.AssetMigration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the startup asset migration against a database holding duplicate tickers, as left
+ * behind before the unique ticker constraint existed.
+ */
+class AssetMigrationTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private AssetMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("h2-test-schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        migration = new AssetMigration(jdbcTemplate, new DataSourceTransactionManager(database));
+
+        jdbcTemplate.execute("ALTER TABLE asset DROP CONSTRAINT uk_asset_ticker");
+        jdbcTemplate.update("INSERT INTO asset (id, ticker, name, name_key, close_price, last_updated) VALUES "
+                + "(1, 'AAPL', 'Apple Inc.', 'APPLE INC.', 220.00, TIMESTAMP WITH TIME ZONE '2026-10-01 00:00:00+00'), "
+                + "(2, 'AAPL', 'Apple Inc.', 'APPLE INC.', 227.75, TIMESTAMP WITH TIME ZONE '2026-10-16 00:00:00+00'), "
+                + "(3, 'MSFT', 'Microsoft Corporation', 'MICROSOFT CORPORATION', 504.26, NULL), "
+                + "(4, 'TSLA', 'Tesla, Inc.', 'TESLA, INC.', 250.00, NULL), "
+                + "(5, 'TSLA', 'Tesla, Inc.', 'TESLA, INC.', 251.00, NULL)");
+        jdbcTemplate.update("INSERT INTO users (id, username, balance) VALUES (1, 'alice', 0), (2, 'bob', 0)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private List<Long> ids(String ticker) {
+        return jdbcTemplate.queryForList("SELECT id FROM asset WHERE ticker = ? ORDER BY id", Long.class, ticker);
+    }
+
+    @Test
+    void testMergesDuplicatesIntoMostRecentlyUpdatedAsset() {
+        migration.run(null);
+
+        assertEquals(List.of(2L), ids("AAPL"));
+        assertEquals(List.of(3L), ids("MSFT"));
+        // no update time on either: the newest row wins
+        assertEquals(List.of(5L), ids("TSLA"));
+        assertEquals(0, new BigDecimal("227.75").compareTo(
+                jdbcTemplate.queryForObject("SELECT close_price FROM asset WHERE id = 2", BigDecimal.class)));
+    }
+
+    @Test
+    void testAddsUniqueTickerConstraintOnceMerged() {
+        migration.run(null);
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("INSERT INTO asset (ticker) VALUES ('AAPL')"));
+    }
+
+    @Test
+    void testMovesTransactionsEventsAndPositions() {
+        jdbcTemplate.update("INSERT INTO user_transactions (user_id, asset_id, amount, price, type) VALUES "
+                + "(1, 1, 10, 100, 'BUY'), (1, 2, 5, 120, 'BUY'), (2, 1, 3, 110, 'BUY')");
+        jdbcTemplate.update("INSERT INTO trade_events (user_id, asset_id, kind, quantity_delta, cost_delta, cash_delta, price) VALUES "
+                + "(1, 1, 'BUY', 10, 1000, 0, 100), (1, 2, 'BUY', 5, 600, 0, 120), (2, 1, 'BUY', 3, 330, 0, 110)");
+        jdbcTemplate.update("INSERT INTO portfolio_asset (user_id, asset_id, quantity, purchase_price, cost_basis) VALUES "
+                + "(1, 1, 10, 100, 1000), (1, 2, 5, 120, 600), (2, 1, 3, 110, NULL), (2, 3, 1, 500, 500)");
+
+        migration.run(null);
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_transactions WHERE asset_id = 1", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_transactions WHERE asset_id = 2", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM trade_events WHERE asset_id = 2", Integer.class));
+
+        // alice held both rows: one position at the combined weighted-average cost
+        Map<String, Object> alice = jdbcTemplate.queryForMap(
+                "SELECT quantity, purchase_price, cost_basis FROM portfolio_asset WHERE user_id = 1");
+        assertEquals(0, new BigDecimal("15").compareTo((BigDecimal) alice.get("QUANTITY")));
+        assertEquals(0, new BigDecimal("1600").compareTo((BigDecimal) alice.get("COST_BASIS")));
+        assertEquals(0, new BigDecimal("106.67").compareTo((BigDecimal) alice.get("PURCHASE_PRICE")));
+
+        // bob only held the duplicate: his position moves as it is
+        assertEquals(List.of(2L, 3L), jdbcTemplate.queryForList(
+                "SELECT asset_id FROM portfolio_asset WHERE user_id = 2 ORDER BY asset_id", Long.class));
+        assertEquals(0, new BigDecimal("3").compareTo(jdbcTemplate.queryForObject(
+                "SELECT quantity FROM portfolio_asset WHERE user_id = 2 AND asset_id = 2", BigDecimal.class)));
+    }
+
+    @Test
+    void testDropsLedgerSnapshotsNamingMergedAsset() {
+        jdbcTemplate.update("INSERT INTO ledger_snapshots (id, user_id, last_event_id, cash) VALUES (1, 1, 10, 0), (2, 2, 11, 0)");
+        jdbcTemplate.update("INSERT INTO ledger_snapshot_positions (snapshot_id, asset_id, quantity, cost_basis) VALUES "
+                + "(1, 1, 10, 1000), (1, 3, 1, 500), (2, 3, 1, 500)");
+
+        migration.run(null);
+
+        assertEquals(List.of(2L), jdbcTemplate.queryForList("SELECT id FROM ledger_snapshots", Long.class));
+        assertEquals(List.of(2L), jdbcTemplate.queryForList("SELECT snapshot_id FROM ledger_snapshot_positions", Long.class));
+    }
+
+    @Test
+    void testSecondRunChangesNothing() {
+        migration.run(null);
+        List<Map<String, Object>> before = jdbcTemplate.queryForList("SELECT * FROM asset ORDER BY id");
+
+        migration.run(null);
+
+        assertEquals(before, jdbcTemplate.queryForList("SELECT * FROM asset ORDER BY id"));
+    }
+}
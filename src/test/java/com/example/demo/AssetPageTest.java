@@ -0,0 +1,214 @@
+package com.example.demo;
+
+import com.example.demo.controller.MarketController;
+import com.example.demo.dto.AssetCursor;
+import com.example.demo.dto.AssetPage;
+import com.example.demo.dto.AssetSortField;
+import com.example.demo.dto.AssetSummary;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.GlobalExceptionHandler;
+import com.example.demo.repository.AssetQueryRepositoryImpl;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.service.AssetMigration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Walks the keyset-paginated asset listing page by page against H2.
+ */
+class AssetPageTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private MarketController controller;
+    private final List<AssetSummary> assets = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("h2-test-schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO market_type (id, name) VALUES (1, 'STOCK'), (2, 'CRYPTO')");
+
+        insert("AAPL", "Apple Inc.", "STOCK", "227.75", "42445300", "1.27");
+        insert("MSFT", "Microsoft Corporation", "STOCK", "504.26", "21621700", "-0.59");
+        insert("AMZN", "Amazon.com, Inc.", "STOCK", "227.75", null, "1.27");
+        insert("APP", "AppLovin Corporation", "STOCK", null, "5000000", null);
+        insert("BTC-USD", "Bitcoin USD", "CRYPTO", "64000.00", "31000000000", "2.10");
+        insert("ETH-USD", "Ethereum USD", "CRYPTO", null, null, "-3.40");
+        insert("APE-USD", "ApeCoin USD", "CRYPTO", "0.64", "42445300", null);
+        insert("A_B", "A_B 100% Fund", "STOCK", "10.00", "100", "0.00");
+        insert("NOK", "Nokia Oyj", "STOCK", null, "42445300", "1.27");
+
+        AssetRepository assetRepository = mock(AssetRepository.class);
+        AssetQueryRepositoryImpl pages = new AssetQueryRepositoryImpl(jdbcTemplate);
+        when(assetRepository.findPage(any())).thenAnswer(invocation -> pages.findPage(invocation.getArgument(0)));
+        controller = new MarketController(assetRepository, null, null, null, null, null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private void insert(String ticker, String name, String market, String close, String volume, String change) {
+        long marketId = "STOCK".equals(market) ? 1 : 2;
+        jdbcTemplate.update("INSERT INTO asset (ticker, name, name_key, close_price, volume, percent_change, market_type_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                ticker, name, name.toUpperCase(), decimal(close), decimal(volume), decimal(change), marketId);
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM asset WHERE ticker = ?", Long.class, ticker);
+        assets.add(new AssetSummary(id, ticker, name, market, decimal(close), decimal(change), decimal(volume), null));
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    /** Every page of the listing, followed through the cursors. */
+    private List<AssetPage> walk(String market, String prefix, String sort, String direction, int limit) {
+        List<AssetPage> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            AssetPage page = controller.getAssetPage(market, prefix, sort, direction, limit, cursor);
+            pages.add(page);
+            cursor = page.nextCursor();
+            assertTrue(pages.size() <= assets.size() + 1, "cursor does not advance");
+        } while (cursor != null);
+        return pages;
+    }
+
+    private static List<String> tickers(List<AssetPage> pages) {
+        return pages.stream().flatMap(p -> p.items().stream()).map(AssetSummary::ticker).toList();
+    }
+
+    /** Sort values ascending or descending with equal values by id the same way, nulls always last. */
+    private List<String> expected(AssetSortField field, boolean descending, Function<AssetSummary, Boolean> filter) {
+        Comparator<AssetSummary> byValue = Comparator.comparing(field::valueOf);
+        Comparator<AssetSummary> order = byValue.thenComparing(AssetSummary::id);
+        if (descending) order = order.reversed();
+        List<AssetSummary> valued = assets.stream()
+                .filter(filter::apply).filter(a -> field.valueOf(a) != null).sorted(order).toList();
+        Comparator<AssetSummary> byId = Comparator.comparing(AssetSummary::id);
+        List<AssetSummary> nulls = assets.stream()
+                .filter(filter::apply).filter(a -> field.valueOf(a) == null)
+                .sorted(descending ? byId.reversed() : byId).toList();
+        List<String> tickers = new ArrayList<>();
+        valued.forEach(a -> tickers.add(a.ticker()));
+        nulls.forEach(a -> tickers.add(a.ticker()));
+        return tickers;
+    }
+
+    @Test
+    void testEverySortAndDirectionVisitsEachAssetOnceWithNullsLast() {
+        Map<String, AssetSortField> sorts = Map.of(
+                "close", AssetSortField.CLOSE, "volume", AssetSortField.VOLUME, "change", AssetSortField.PERCENT_CHANGE);
+        for (Map.Entry<String, AssetSortField> sort : sorts.entrySet()) {
+            for (String direction : List.of("asc", "desc")) {
+                for (int limit : List.of(1, 2, 3, 4, 50)) {
+                    List<String> tickers = tickers(walk(null, null, sort.getKey(), direction, limit));
+                    assertEquals(expected(sort.getValue(), "desc".equals(direction), a -> true), tickers,
+                            sort.getKey() + " " + direction + " by " + limit);
+                    assertEquals(tickers.size(), new HashSet<>(tickers).size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPageBoundaries() {
+        // 9 assets: full pages carry a cursor, the page that reaches the end does not
+        List<AssetPage> byThree = walk(null, null, "close", "desc", 3);
+        assertEquals(List.of(3, 3, 3), byThree.stream().map(p -> p.items().size()).toList());
+        assertNotNull(byThree.get(1).nextCursor());
+        assertNull(byThree.get(2).nextCursor());
+
+        List<AssetPage> byFour = walk(null, null, "close", "desc", 4);
+        assertEquals(List.of(4, 4, 1), byFour.stream().map(p -> p.items().size()).toList());
+
+        // the second page starts exactly in the null range
+        List<AssetPage> byValued = walk(null, null, "close", "desc", 6);
+        assertEquals(List.of(6, 3), byValued.stream().map(p -> p.items().size()).toList());
+        assertTrue(byValued.get(1).items().stream().allMatch(a -> a.closePrice() == null));
+
+        AssetPage single = controller.getAssetPage(null, null, "close", "desc", 50, null);
+        assertEquals(9, single.items().size());
+        assertNull(single.nextCursor());
+    }
+
+    @Test
+    void testCursorInNullRangeContinuesById() {
+        AssetPage first = controller.getAssetPage(null, null, "close", "asc", 7, null);
+        AssetCursor cursor = AssetCursor.decode(first.nextCursor());
+        assertNull(cursor.value());
+
+        AssetPage rest = controller.getAssetPage(null, null, "close", "asc", 7, first.nextCursor());
+        assertEquals(2, rest.items().size());
+        assertTrue(rest.items().get(0).id() > cursor.id());
+        assertNull(rest.nextCursor());
+    }
+
+    @Test
+    void testMarketAndPrefixFilters() {
+        assertEquals(expected(AssetSortField.VOLUME, true, a -> a.market().equals("CRYPTO")),
+                tickers(walk("CRYPTO", null, "volume", "desc", 1)));
+        assertEquals(List.of("APE-USD", "AAPL", "APP"), tickers(walk(null, "ap", "close", "asc", 2)));
+        assertEquals(List.of("APE-USD"), tickers(walk("CRYPTO", "AP", "close", "asc", 2)));
+        // LIKE wildcards in the prefix are matched literally
+        assertEquals(List.of("A_B"), tickers(walk(null, "A_B 100%", "close", "asc", 2)));
+        assertTrue(tickers(walk(null, "A%", "close", "asc", 2)).isEmpty());
+    }
+
+    @Test
+    void testCursorEncoding() {
+        AssetCursor cursor = new AssetCursor(new BigDecimal("227.75"), 42L);
+        String token = cursor.encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, AssetCursor.decode(token));
+        assertEquals(new AssetCursor(null, 7L), AssetCursor.decode(new AssetCursor(null, 7L).encode()));
+        assertEquals(new BigDecimal("-0.000001"),
+                AssetCursor.decode(new AssetCursor(new BigDecimal("-1E-6"), 1L).encode()).value());
+    }
+
+    @Test
+    void testBadParametersAreBadRequests() {
+        assertThrows(BadRequestException.class, () -> AssetCursor.decode("not a cursor"));
+        assertThrows(BadRequestException.class, () -> AssetCursor.decode(new AssetCursor(null, 1L).encode().substring(1)));
+        assertThrows(BadRequestException.class, () -> controller.getAssetPage(null, null, "name", "asc", 10, null));
+        assertThrows(BadRequestException.class, () -> controller.getAssetPage(null, null, "close", "asc", 10, "%%%"));
+
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+        assertEquals(HttpStatus.BAD_REQUEST, handler.handleBadRequest(new BadRequestException("Invalid cursor: x")).getStatusCode());
+    }
+
+    @Test
+    void testMigrationFillsMissingNameKeys() {
+        jdbcTemplate.update("UPDATE asset SET name_key = NULL WHERE ticker IN ('AAPL', 'APP')");
+
+        new AssetMigration(jdbcTemplate, new DataSourceTransactionManager(database)).run(null);
+
+        assertEquals(List.of("AAPL", "APP"), tickers(walk(null, "app", "close", "asc", 5)));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM asset WHERE name_key IS NULL", Integer.class));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo;
+
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.MarketType;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.service.AssetSearchIndex;
+import com.example.demo.service.MarketDataRefreshedEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Typeahead latency of {@link AssetSearchIndex#suggest} over a synthetic asset table:
+ * ticker prefixes, company-name words, and misspellings that fall through to the
+ * one-edit fuzzy pass.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.demo.AssetSearchIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssetSearchIndexBenchmark {
+
+    private static final String[] WORDS = {"Global", "Pacific", "Energy", "Holdings", "Capital", "Digital",
+            "Health", "Systems", "Partners", "Resources", "Networks", "Foods", "Motors", "Pharma", "Bank"};
+
+    @Param({"5000"})
+    public int assets;
+
+    private AssetSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        MarketType stocks = new MarketType("STOCK");
+        List<Asset> rows = new ArrayList<>(assets);
+        for (int i = 0; i < assets; i++) {
+            Asset asset = new Asset();
+            asset.setId((long) i + 1);
+            asset.setTicker(ticker(i));
+            asset.setName(WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i);
+            asset.setMarketType(stocks);
+            rows.add(asset);
+        }
+        AssetRepository repository = mock(AssetRepository.class);
+        when(repository.findAll()).thenReturn(rows);
+        index = new AssetSearchIndex(repository);
+        index.onMarketDataRefreshed(new MarketDataRefreshedEvent(Instant.now()));
+    }
+
+    private static String ticker(int i) {
+        StringBuilder ticker = new StringBuilder();
+        for (int n = i; ticker.length() < 4; n /= 26) {
+            ticker.append((char) ('A' + n % 26));
+        }
+        return ticker.toString();
+    }
+
+    @Benchmark
+    public List<AssetSearchIndex.Suggestion> tickerPrefix() {
+        return index.suggest("AB", 10);
+    }
+
+    @Benchmark
+    public List<AssetSearchIndex.Suggestion> nameWord() {
+        return index.suggest("pharma", 10);
+    }
+
+    @Benchmark
+    public List<AssetSearchIndex.Suggestion> fuzzy() {
+        return index.suggest("pahrma", 10);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(AssetSearchIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
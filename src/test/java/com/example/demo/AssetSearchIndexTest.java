@@ -0,0 +1,106 @@
+package com.example.demo;
+
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.MarketType;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.AssetSearchIndex;
+import com.example.demo.service.MarketDataRefreshedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+class AssetSearchIndexTest {
+
+    private AssetRepository assetRepository;
+    private AssetSearchIndex searchIndex;
+    private MarketType stockType;
+
+    @BeforeEach
+    void setUp() {
+        assetRepository = mock(AssetRepository.class);
+        searchIndex = new AssetSearchIndex(assetRepository);
+        stockType = new MarketType("STOCK");
+
+        when(assetRepository.findAll()).thenReturn(List.of(
+                asset(1L, "AAPL", "Apple Inc."),
+                asset(2L, "AMZN", "Amazon.com, Inc."),
+                asset(3L, "MSFT", "Microsoft Corporation"),
+                asset(4L, "BRK-B", "Berkshire Hathaway Inc.")));
+        searchIndex.onMarketDataRefreshed(new MarketDataRefreshedEvent(Instant.now()));
+    }
+
+    @Test
+    void testSuggest_tickerPrefixRanksBeforeNameMatches() {
+        List<AssetSearchIndex.Suggestion> result = searchIndex.suggest("a", 10);
+
+        assertEquals(List.of("AAPL", "AMZN"), result.stream().map(AssetSearchIndex.Suggestion::ticker).toList());
+    }
+
+    @Test
+    void testSuggest_matchesNameWordsAndIgnoresPunctuation() {
+        assertEquals("MSFT", searchIndex.suggest("micro", 5).get(0).ticker());
+        assertEquals("BRK-B", searchIndex.suggest("brkb", 5).get(0).ticker());
+        assertEquals("BRK-B", searchIndex.suggest("hathaway", 5).get(0).ticker());
+    }
+
+    @Test
+    void testSuggest_fallsBackToOneEditFuzzyMatch() {
+        assertEquals("MSFT", searchIndex.suggest("mircosoft", 5).get(0).ticker());
+        assertEquals("AMZN", searchIndex.suggest("amazno", 5).get(0).ticker());
+        assertTrue(searchIndex.suggest("zzzz", 5).isEmpty());
+    }
+
+    @Test
+    void testChangeSet_addsNewAssetsWithoutFullReload() {
+        when(assetRepository.findAllById(anyIterable())).thenReturn(List.of(asset(5L, "NVDA", "NVIDIA Corporation")));
+
+        searchIndex.onAssetsChanged(new AssetChangeSet("STOCK",
+                List.of(new AssetChangeSet.Change(5L, "NVDA", null, new BigDecimal("120.00"))),
+                Instant.now()));
+
+        assertEquals("NVDA", searchIndex.suggest("nvi", 5).get(0).ticker());
+        assertEquals(5, searchIndex.size());
+        verify(assetRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testPersistedAssetsAreSuggestedBeforeAnyRefresh() {
+        AssetSearchIndex atStartup = new AssetSearchIndex(assetRepository);
+        atStartup.onApplicationReady();
+
+        assertEquals("MSFT", atStartup.suggest("msf", 5).get(0).ticker());
+        assertEquals(4, atStartup.size());
+
+        // a later refresh does not read everything again
+        atStartup.onMarketDataRefreshed(new MarketDataRefreshedEvent(Instant.now()));
+        verify(assetRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testFailedStartupLoadIsRetriedByTheFirstQuery() {
+        AssetSearchIndex atStartup = new AssetSearchIndex(assetRepository);
+        when(assetRepository.findAll()).thenThrow(new RuntimeException("database is starting"));
+        atStartup.onApplicationReady();
+        assertEquals(0, atStartup.size());
+
+        doReturn(List.of(asset(1L, "AAPL", "Apple Inc."))).when(assetRepository).findAll();
+        assertEquals("AAPL", atStartup.suggest("apple", 5).get(0).ticker());
+    }
+
+    private Asset asset(Long id, String ticker, String name) {
+        Asset asset = new Asset();
+        asset.setId(id);
+        asset.setTicker(ticker);
+        asset.setName(name);
+        asset.setMarketType(stockType);
+        return asset;
+    }
+}
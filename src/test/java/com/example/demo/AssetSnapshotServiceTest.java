@@ -0,0 +1,167 @@
+package com.example.demo;
+
+import com.example.demo.controller.MarketController;
+import com.example.demo.entities.Asset;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.AssetSnapshotService;
+import com.example.demo.service.QuoteCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AssetSnapshotServiceTest {
+
+    private QuoteCache quoteCache;
+    private AssetSnapshotService snapshots;
+    private MarketController controller;
+    private Asset apple;
+    private Asset bitcoin;
+
+    @BeforeEach
+    void setUp() {
+        quoteCache = mock(QuoteCache.class);
+        snapshots = new AssetSnapshotService(quoteCache, new ObjectMapper(), true);
+        controller = new MarketController(null, null, quoteCache, snapshots, null, null, null);
+
+        apple = asset(1L, "AAPL", "227.75");
+        bitcoin = asset(2L, "BTC-USD", "64000.00");
+        when(quoteCache.all()).thenReturn(List.of(apple, bitcoin));
+        when(quoteCache.byMarket("STOCK")).thenReturn(List.of(apple));
+        when(quoteCache.byMarket("CRYPTO")).thenReturn(List.of(bitcoin));
+    }
+
+    private static Asset asset(Long id, String ticker, String close) {
+        Asset asset = new Asset();
+        asset.setId(id);
+        asset.setTicker(ticker);
+        asset.setClosePrice(new BigDecimal(close));
+        return asset;
+    }
+
+    private static AssetChangeSet changed(String market, Asset asset, String oldClose) {
+        return new AssetChangeSet(market, List.of(new AssetChangeSet.Change(asset.getId(), asset.getTicker(),
+                new BigDecimal(oldClose), asset.getClosePrice())), Instant.now());
+    }
+
+    private static String gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(in.readAllBytes());
+        }
+    }
+
+    private ResponseEntity<byte[]> getAll(MockHttpServletResponse response, String ifNoneMatch, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/assets");
+        if (ifNoneMatch != null) request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        if (acceptEncoding != null) request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        return controller.getAllAssets(new ServletWebRequest(request, response));
+    }
+
+    @Test
+    void testSnapshotIsReusedUntilItsMarketChanges() {
+        AssetSnapshotService.Snapshot all = snapshots.all();
+        AssetSnapshotService.Snapshot crypto = snapshots.byMarket("CRYPTO");
+        AssetSnapshotService.Snapshot stock = snapshots.byMarket("STOCK");
+
+        assertSame(all, snapshots.all());
+        assertSame(stock, snapshots.byMarket("STOCK"));
+        verify(quoteCache, times(1)).all();
+
+        apple.setClosePrice(new BigDecimal("230.10"));
+        snapshots.onAssetsChanged(changed("STOCK", apple, "227.75"));
+
+        assertNotSame(stock, snapshots.byMarket("STOCK"));
+        assertNotSame(all, snapshots.all());
+        assertSame(crypto, snapshots.byMarket("CRYPTO"));
+        assertTrue(new String(snapshots.byMarket("STOCK").json()).contains("230.1"));
+        verify(quoteCache, times(2)).all();
+        verify(quoteCache, times(1)).byMarket("CRYPTO");
+    }
+
+    @Test
+    void testEtagIsStableForSameContentAndChangesWithIt() {
+        String etag = snapshots.all().etag();
+
+        snapshots.onAssetsChanged(changed("CRYPTO", bitcoin, "64000.00"));
+        assertEquals(etag, snapshots.all().etag());
+
+        bitcoin.setClosePrice(new BigDecimal("63500.00"));
+        snapshots.onAssetsChanged(changed("CRYPTO", bitcoin, "64000.00"));
+        assertNotEquals(etag, snapshots.all().etag());
+        assertTrue(snapshots.all().etag().matches("\"[0-9a-f]{32}\""));
+    }
+
+    @Test
+    void testGzipBodyMatchesJson() throws IOException {
+        AssetSnapshotService.Snapshot snapshot = snapshots.all();
+
+        assertEquals(new String(snapshot.json()), gunzip(snapshot.gzip()));
+        assertNull(new AssetSnapshotService(quoteCache, new ObjectMapper(), false).all().gzip());
+    }
+
+    @Test
+    void testResponseCarriesEtagAndPlainJsonWithoutAcceptEncoding() {
+        ResponseEntity<byte[]> response = getAll(new MockHttpServletResponse(), null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(snapshots.all().etag(), response.getHeaders().getETag());
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), response.getHeaders().getVary());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(snapshots.all().json(), response.getBody());
+    }
+
+    @Test
+    void testGzipIsSentOnlyWhenAccepted() throws IOException {
+        ResponseEntity<byte[]> gzipped = getAll(new MockHttpServletResponse(), null, "gzip, deflate, br");
+
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(snapshots.all().gzip(), gzipped.getBody());
+        assertEquals(new String(snapshots.all().json()), gunzip(gzipped.getBody()));
+
+        ResponseEntity<byte[]> identity = getAll(new MockHttpServletResponse(), null, "identity");
+        assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(snapshots.all().json(), identity.getBody());
+    }
+
+    @Test
+    void testMatchingIfNoneMatchIsNotModified() {
+        String etag = snapshots.all().etag();
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<byte[]> response = getAll(servletResponse, etag, "gzip");
+
+        assertNull(response);
+        assertEquals(304, servletResponse.getStatus());
+        assertEquals(etag, servletResponse.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testStaleIfNoneMatchGetsFreshBody() {
+        String stale = snapshots.all().etag();
+        bitcoin.setClosePrice(new BigDecimal("63500.00"));
+        snapshots.onAssetsChanged(changed("CRYPTO", bitcoin, "64000.00"));
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<byte[]> response = getAll(servletResponse, stale, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(200, servletResponse.getStatus());
+        assertNotEquals(stale, response.getHeaders().getETag());
+        assertTrue(new String(response.getBody()).contains("63500"));
+    }
+}
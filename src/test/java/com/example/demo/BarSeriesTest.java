@@ -0,0 +1,117 @@
+package com.example.demo;
+
+import com.example.demo.timeseries.BarInterval;
+import com.example.demo.timeseries.BarSeries;
+import com.example.demo.timeseries.Bars;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BarSeriesTest {
+
+    private static int day(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+
+    @Test
+    void testPut_appendsAndReplacesLastDay() {
+        BarSeries series = new BarSeries(1);
+
+        assertEquals(BarSeries.Put.APPENDED, series.put(day("2025-08-21"), 1, 2, 0.5, 1.5, 100));
+        assertEquals(BarSeries.Put.APPENDED, series.put(day("2025-08-22"), 1.5, 3, 1, 2, 200));
+        assertEquals(BarSeries.Put.REPLACED, series.put(day("2025-08-22"), 1.5, 3, 1, 2.5, 250));
+        assertEquals(BarSeries.Put.UNCHANGED, series.put(day("2025-08-22"), 1.5, 3, 1, 2.5, 250));
+
+        Bars all = series.range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals(2, all.size());
+        assertEquals(2.5, all.close()[1]);
+    }
+
+    @Test
+    void testPut_insertsOlderDaysInOrder() {
+        BarSeries series = new BarSeries(2);
+        series.put(day("2025-08-20"), 1, 1, 1, 20, 1);
+        series.put(day("2025-08-25"), 1, 1, 1, 25, 1);
+
+        assertEquals(BarSeries.Put.INSERTED, series.put(day("2025-08-22"), 1, 1, 1, 22, 1));
+        assertEquals(BarSeries.Put.INSERTED, series.put(day("2025-08-18"), 1, 1, 1, 18, 1));
+        assertEquals(BarSeries.Put.INSERTED, series.put(day("2025-08-21"), 1, 1, 1, 21, 1));
+        assertEquals(BarSeries.Put.REPLACED, series.put(day("2025-08-20"), 1, 1, 1, 20.5, 1));
+        assertEquals(BarSeries.Put.UNCHANGED, series.put(day("2025-08-18"), 1, 1, 1, 18, 1));
+
+        Bars all = series.range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertArrayEquals(new int[]{day("2025-08-18"), day("2025-08-20"), day("2025-08-21"), day("2025-08-22"), day("2025-08-25")},
+                all.days());
+        assertArrayEquals(new double[]{18, 20.5, 21, 22, 25}, all.close());
+        assertEquals(2, series.indexOf(day("2025-08-21")));
+        assertEquals(-1, series.indexOf(day("2025-08-19")));
+        assertEquals(day("2025-08-25"), series.lastDay());
+    }
+
+    @Test
+    void testRange_isInclusiveOnBothEnds() {
+        BarSeries series = new BarSeries();
+        for (int d = day("2025-08-01"); d <= day("2025-08-31"); d++) {
+            series.put(d, 1, 1, 1, d, 1);
+        }
+
+        Bars bars = series.range(day("2025-08-10"), day("2025-08-12"));
+
+        assertArrayEquals(new int[]{day("2025-08-10"), day("2025-08-11"), day("2025-08-12")}, bars.days());
+        assertEquals(0, series.range(day("2025-09-01"), day("2025-09-30")).size());
+    }
+
+    @Test
+    void testDownsample_weeklyMergesOhlcv() {
+        BarSeries series = new BarSeries();
+        // Friday 2025-08-15, then Monday to Wednesday of the next week
+        series.put(day("2025-08-15"), 10, 11, 9, 10.5, 100);
+        series.put(day("2025-08-18"), 10.5, 12, 10, 11, 100);
+        series.put(day("2025-08-19"), 11, 15, Double.NaN, 14, Double.NaN);
+        series.put(day("2025-08-20"), 14, 14.5, 8, 9, 300);
+
+        Bars weekly = series.range(Integer.MIN_VALUE, Integer.MAX_VALUE).downsample(BarInterval.WEEK);
+
+        assertArrayEquals(new int[]{day("2025-08-15"), day("2025-08-18")}, weekly.days());
+        assertArrayEquals(new double[]{10, 10.5}, weekly.open());
+        assertArrayEquals(new double[]{11, 15}, weekly.high());
+        assertArrayEquals(new double[]{9, 8}, weekly.low());
+        assertArrayEquals(new double[]{10.5, 9}, weekly.close());
+        assertArrayEquals(new double[]{100, 400}, weekly.volume());
+    }
+
+    @Test
+    void testLimit_mergesConsecutiveBarsDownToPoints() {
+        BarSeries series = new BarSeries();
+        for (int i = 0; i < 10; i++) {
+            series.put(i, i, i, i, i, 1);
+        }
+
+        Bars limited = series.range(Integer.MIN_VALUE, Integer.MAX_VALUE).limit(4);
+
+        assertArrayEquals(new int[]{0, 3, 6, 9}, limited.days());
+        assertArrayEquals(new double[]{2, 5, 8, 9}, limited.close());
+        assertArrayEquals(new double[]{3, 3, 3, 1}, limited.volume());
+    }
+
+    @Test
+    void testRecordsRoundTrip() {
+        BarSeries series = new BarSeries();
+        series.put(day("2025-08-21"), 1, 2, 0.5, 1.5, 100);
+        series.put(day("2025-08-22"), 1.5, 3, 1, 2, 200);
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 * BarSeries.RECORD_BYTES + 7);
+        series.writeRecord(0, buffer);
+        series.writeRecord(1, buffer);
+        buffer.put(new byte[7]);
+
+        BarSeries read = BarSeries.read(buffer.flip());
+
+        assertEquals(2, read.size());
+        assertArrayEquals(series.range(Integer.MIN_VALUE, Integer.MAX_VALUE).close(),
+                read.range(Integer.MIN_VALUE, Integer.MAX_VALUE).close());
+    }
+}
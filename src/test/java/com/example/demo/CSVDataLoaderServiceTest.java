@@ -3,29 +3,45 @@ import com.example.demo.entities.Asset;
 import com.example.demo.entities.MarketType;
 import com.example.demo.repository.AssetRepository;
 import com.example.demo.repository.MarketTypeRepository;
+import com.example.demo.service.AssetBulkWriter;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.AssetQuote;
 import com.example.demo.service.CSVDataLoaderService;
+import com.example.demo.service.PriceHistoryStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 public class CSVDataLoaderServiceTest {
     private AssetRepository assetRepository;
     private MarketTypeRepository marketTypeRepository;
+    private AssetBulkWriter bulkWriter;
+    private ApplicationEventPublisher eventPublisher;
     private CSVDataLoaderService service;
 
     @BeforeEach
     void setUp() {
         assetRepository = mock(AssetRepository.class);
         marketTypeRepository = mock(MarketTypeRepository.class);
-        service = new CSVDataLoaderService(assetRepository, marketTypeRepository);
+        bulkWriter = mock(AssetBulkWriter.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        service = new CSVDataLoaderService(assetRepository, marketTypeRepository, bulkWriter, eventPublisher,
+                new PriceHistoryStore(""));
     }
 
     @Test
@@ -84,6 +100,108 @@ public class CSVDataLoaderServiceTest {
         verify(assetRepository, never()).save(any(Asset.class));
     }
 
+    @Test
+    void testLoadCsvToDatabase_skipsUnchangedAsset() throws Exception {
+        Path tempCsv = Files.createTempFile("stocks_data", ".csv");
+        try (FileWriter writer = new FileWriter(tempCsv.toFile())) {
+            writer.write("\"Date\",\"Open\",\"High\",\"Low\",\"Close\",\"Volume\",\"PreviousClose\",\"CompanyName\",\"Symbol\"\n");
+            writer.write("\"2025-08-22 00:00:00-04:00\",\"226.16\",\"229.08\",\"225.41\",\"227.749\",\"42445300\",\"224.90\",\"Apple Inc.\",\"AAPL\"\n");
+        }
+
+        MarketType stockType = new MarketType("STOCK");
+        stockType.setId(1L);
+        Asset existing = new Asset();
+        existing.setId(5L);
+        existing.setTicker("AAPL");
+        existing.setName("Apple Inc.");
+        existing.setOpenPrice(new BigDecimal("226.16"));
+        existing.setHighPrice(new BigDecimal("229.08"));
+        existing.setLowPrice(new BigDecimal("225.41"));
+        existing.setClosePrice(new BigDecimal("227.75"));
+        existing.setVolume(new BigDecimal("42445300.00"));
+        existing.setPreviousClose(new BigDecimal("224.90"));
+        existing.setMarketType(stockType);
+        when(assetRepository.findByTicker("AAPL")).thenReturn(Optional.of(existing));
+
+        service.loadCsvToDatabase(tempCsv.toString(), stockType);
+
+        verify(assetRepository, never()).save(any(Asset.class));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void testLoadCsvToDatabase_publishesChangeSetForChangedClose() throws Exception {
+        Path tempCsv = Files.createTempFile("stocks_data", ".csv");
+        try (FileWriter writer = new FileWriter(tempCsv.toFile())) {
+            writer.write("Date,Open,High,Low,Close,Volume,PreviousClose,CompanyName,Symbol\n");
+            writer.write("2025-08-25,226.47,229.30,226.22,227.16,30965700,227.76,Apple Inc.,AAPL\n");
+        }
+
+        MarketType stockType = new MarketType("STOCK");
+        Asset existing = new Asset();
+        existing.setId(5L);
+        existing.setTicker("AAPL");
+        existing.setClosePrice(new BigDecimal("227.75"));
+        existing.setMarketType(stockType);
+        when(assetRepository.findByTicker("AAPL")).thenReturn(Optional.of(existing));
+
+        service.loadCsvToDatabase(tempCsv.toString(), stockType);
+
+        ArgumentCaptor<AssetChangeSet> captor = ArgumentCaptor.forClass(AssetChangeSet.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        AssetChangeSet.Change change = captor.getValue().changes().get(0);
+        assertEquals("AAPL", change.ticker());
+        assertEquals(new BigDecimal("227.75"), change.oldClose());
+        assertEquals(new BigDecimal("227.16"), change.newClose());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBulkLoadCsvToDatabase_streamsQuotesToWriter() throws Exception {
+        Path tempCsv = Files.createTempFile("stocks_data", ".csv");
+        try (FileWriter writer = new FileWriter(tempCsv.toFile())) {
+            writer.write("\"Date\",\"Open\",\"High\",\"Low\",\"Close\",\"Volume\",\"PreviousClose\",\"CompanyName\",\"Symbol\"\n");
+            writer.write("\"2025-08-22 00:00:00-04:00\",\"226.16\",\"229.08\",\"225.41\",\"227.75\",\"42445300\",\"224.90\",\"Apple Inc.\",\"AAPL\"\n");
+            writer.write("MALFORMED_ROW_WITH_TOO_FEW_FIELDS\n");
+            writer.write("\"2025-08-22 00:00:00-04:00\",\"506.63\",\"508.19\",\"504.12\",\"504.26\",\"21621700\",\"507.23\",\"Microsoft Corporation\",\"MSFT\"\n");
+        }
+
+        MarketType stockType = new MarketType("STOCK");
+        when(bulkWriter.write(any(), eq(stockType))).thenAnswer(invocation -> {
+            List<AssetQuote> quotes = ((Stream<AssetQuote>) invocation.getArgument(0)).collect(Collectors.toList());
+            assertEquals(2, quotes.size());
+            assertEquals("AAPL", quotes.get(0).ticker());
+            assertEquals(new BigDecimal("227.75"), quotes.get(0).closePrice());
+            assertEquals("Microsoft Corporation", quotes.get(1).name());
+            return null;
+        });
+
+        service.bulkLoadCsvToDatabase(tempCsv.toString(), stockType);
+
+        verify(bulkWriter).write(any(), eq(stockType));
+        verify(assetRepository, never()).save(any(Asset.class));
+    }
+
+    @Test
+    void testLoadAll_reportsFailedFilesAndLoadsTheRest() throws Exception {
+        Path tempCsv = Files.createTempFile("stocks_data", ".csv");
+        try (FileWriter writer = new FileWriter(tempCsv.toFile())) {
+            writer.write("Date,Open,High,Low,Close,Volume,PreviousClose,CompanyName,Symbol\n");
+            writer.write("2025-08-25,226.47,229.30,226.22,227.16,30965700,227.76,Apple Inc.,AAPL\n");
+        }
+        String missing = tempCsv.resolveSibling("missing_" + tempCsv.getFileName()).toString();
+        when(assetRepository.findByTicker("AAPL")).thenReturn(Optional.empty());
+
+        Map<String, MarketType> files = new LinkedHashMap<>();
+        files.put(missing, new MarketType("CRYPTO"));
+        files.put(tempCsv.toString(), new MarketType("STOCK"));
+        Map<String, Exception> failures = service.loadAll(files);
+
+        assertEquals(List.of(missing), List.copyOf(failures.keySet()));
+        assertInstanceOf(FileNotFoundException.class, failures.get(missing));
+        verify(assetRepository).save(any(Asset.class));
+    }
+
     @Test
     void testEnsureType_createsNewTypeIfNotFound() {
         when(marketTypeRepository.findByName("STOCK")).thenReturn(Optional.empty());
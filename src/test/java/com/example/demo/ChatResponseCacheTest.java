@@ -0,0 +1,79 @@
+package com.example.demo;
+
+import com.example.demo.service.ChatResponseCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatResponseCacheTest {
+
+    private final ChatResponseCache cache = new ChatResponseCache(100, 60_000, 0.8);
+
+    @Test
+    void testNormalizedQuestionsShareAnAnswer() {
+        cache.put("What is an ETF?", false, "A fund traded on an exchange.");
+
+        assertEquals("A fund traded on an exchange.", cache.get("what's ETF", false));
+        assertEquals("A fund traded on an exchange.", cache.get("  WHAT IS THE ETF!!", false));
+        assertEquals(2, cache.stats().exactHits());
+    }
+
+    @Test
+    void testSimilarQuestionIsAnsweredAndDifferentOneIsNot() {
+        cache.put("Explain compound interest", false, "Interest on interest.");
+
+        assertEquals("Interest on interest.", cache.get("explain compound interests", false));
+        assertNull(cache.get("explain simple interest", false));
+        assertNull(cache.get("what is an NFT", false));
+
+        ChatResponseCache.Stats stats = cache.stats();
+        assertEquals(1, stats.similarHits());
+        assertEquals(2, stats.misses());
+        assertEquals(1.0 / 3, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    void testSimilarityCanBeTurnedOff() {
+        ChatResponseCache exactOnly = new ChatResponseCache(100, 60_000, 1);
+        exactOnly.put("Explain compound interest", false, "Interest on interest.");
+
+        assertNull(exactOnly.get("explain compound interests", false));
+        assertEquals("Interest on interest.", exactOnly.get("Explain compound interest?", false));
+    }
+
+    @Test
+    void testExactMatchingKeepsQuestionsThatDifferOnlyInANumberApart() {
+        cache.put("What was the S&P 500 return over 5 years?", false, "About 90%.");
+        assertEquals("About 90%.", cache.get("What was the S&P 500 return over 10 years?", false));
+
+        ChatResponseCache exactOnly = new ChatResponseCache(100, 60_000, 1);
+        exactOnly.put("What was the S&P 500 return over 5 years?", false, "About 90%.");
+        assertNull(exactOnly.get("What was the S&P 500 return over 10 years?", false));
+    }
+
+    @Test
+    void testFollowUpsAreNeitherStoredNorServed() {
+        cache.put("What is a bond?", false, "A loan to an issuer.");
+
+        assertEquals("A loan to an issuer.", cache.get("what is a bond", true));
+        assertNull(cache.get("and what are its risks?", true));
+        assertNull(cache.get("why?", true));
+
+        cache.put("Give me an example", true, "Like this one.");
+        assertNull(cache.get("Give me an example", false));
+        assertEquals(2, cache.stats().skipped());
+    }
+
+    @Test
+    void testLeastRecentlyUsedAnswersAreEvicted() {
+        ChatResponseCache small = new ChatResponseCache(2, 60_000, 0.8);
+        small.put("what is a stock", false, "stock");
+        small.put("what is a bond", false, "bond");
+        small.get("what is a stock", false);
+        small.put("what is an option", false, "option");
+
+        assertEquals("stock", small.get("what is a stock", false));
+        assertNull(small.get("what is a bond", false));
+        assertEquals(1, small.stats().entries().evictions());
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.demo;
+
+import com.example.demo.concurrent.CircuitBreaker;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.TeacherServiceException;
+import com.example.demo.service.ChatResponseCache;
+import com.example.demo.service.ChatService;
+import com.example.demo.service.TeacherClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the chat client against a local stub of the teacher service.
+ */
+class ChatServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private TeacherClient client;
+
+    // stub state
+    private final Map<String, List<String>> messages = new ConcurrentHashMap<>();
+    private final AtomicInteger conversationIds = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failWith;
+    private volatile CountDownLatch hold;
+    private volatile long tokenDelayMillis;
+    // answer /message the way older services did: the repr of the whole completion message
+    private volatile boolean reprAnswers;
+    private final CountDownLatch streamAborted = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/items/conversations", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (hold != null) hold.countDown();
+        if (client != null) client.destroy();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (hold != null) hold.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failWith > 0) {
+            respond(exchange, failWith, Map.of("detail", "boom"));
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/items/conversations")) {
+            String id = "c" + conversationIds.incrementAndGet();
+            messages.put(id, new CopyOnWriteArrayList<>());
+            respond(exchange, 200, Map.of("conversation_id", id));
+            return;
+        }
+        String id = path.split("/")[3];
+        List<String> history = messages.get(id);
+        if (history == null) {
+            respond(exchange, 404, Map.of("detail", "Conversation not found"));
+            return;
+        }
+        String message = objectMapper.readTree(exchange.getRequestBody()).get("message").asText();
+        history.add(message);
+        if (path.endsWith("/stream")) {
+            stream(exchange, message);
+            return;
+        }
+        String answer = id + ":" + history.size() + ":" + message;
+        respond(exchange, 200, Map.of("answer", reprAnswers ? repr(answer) : answer));
+    }
+
+    // str() of huggingface_hub's ChatCompletionOutputMessage
+    private static String repr(String content) {
+        String quote = content.contains("'") && !content.contains("\"") ? "\"" : "'";
+        String escaped = content.replace("\\", "\\\\").replace("\n", "\\n");
+        if (quote.equals("'")) escaped = escaped.replace("'", "\\'");
+        return "ChatCompletionOutputMessage(role='assistant', content=" + quote + escaped + quote + ", tool_call_id=None, tool_calls=None)";
+    }
+
+    // one token per word, then a done event
+    private void stream(HttpExchange exchange, String message) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            for (String word : message.split(" ")) {
+                String event = "data: " + objectMapper.writeValueAsString(Map.of("token", word + " ")) + "\n\n";
+                out.write(event.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (tokenDelayMillis > 0) Thread.sleep(tokenDelayMillis);
+            }
+            out.write("event: done\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            streamAborted.countDown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.close();
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private ChatService chat(long timeoutMillis, int maxConcurrent, int breakerFailures) {
+        client = new TeacherClient(objectMapper, "http://127.0.0.1:" + server.getAddress().getPort() + "/items",
+                1000, timeoutMillis, maxConcurrent, breakerFailures, 60_000);
+        return new ChatService(client, new ChatResponseCache(100, 60_000, 0.8), 100, 60_000);
+    }
+
+    // a streamed answer is complete at its done event, the permit is returned when the connection ends
+    private void awaitPermits(int permits) throws InterruptedException {
+        for (int i = 0; i < 200 && client.availablePermits() != permits; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(permits, client.availablePermits());
+    }
+
+    private static TeacherServiceException failure(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            assertInstanceOf(TeacherServiceException.class, e.getCause());
+            return (TeacherServiceException) e.getCause();
+        } catch (java.util.concurrent.TimeoutException e) {
+            fail("no answer");
+        }
+        return fail("expected a failure");
+    }
+
+    @Test
+    void testEachSessionKeepsItsOwnConversation() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+
+        assertEquals("c1:1:What is a bond?", chat.ask("alice", "What is a bond?").get(5, TimeUnit.SECONDS));
+        assertEquals("c2:1:What is a stock?", chat.ask("bob", "What is a stock?").get(5, TimeUnit.SECONDS));
+        assertEquals("c1:2:And its yield?", chat.ask("alice", "And its yield?").get(5, TimeUnit.SECONDS));
+        assertEquals(2, conversationIds.get());
+    }
+
+    @Test
+    void testForgottenConversationIsRecreated() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        chat.ask("alice", "hi").get(5, TimeUnit.SECONDS);
+        messages.clear();
+
+        assertEquals("c2:1:again", chat.ask("alice", "again").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCircuitOpensAfterFailuresAndStopsCalling() throws Exception {
+        ChatService chat = chat(5000, 4, 2);
+        failWith = 500;
+
+        assertEquals(500, failure(chat.ask("alice", "q1")).getUpstreamStatus());
+        assertEquals(500, failure(chat.ask("alice", "q2")).getUpstreamStatus());
+        assertEquals(CircuitBreaker.State.OPEN, client.circuitState());
+
+        int before = requests.get();
+        assertEquals(0, failure(chat.ask("alice", "q3")).getUpstreamStatus());
+        assertEquals(before, requests.get());
+    }
+
+    @Test
+    void testBulkheadRefusesWhenFull() throws Exception {
+        ChatService chat = chat(5000, 1, 5);
+        hold = new CountDownLatch(1);
+
+        CompletableFuture<String> first = chat.ask("alice", "slow");
+        assertEquals(0, failure(chat.ask("bob", "next")).getUpstreamStatus());
+
+        hold.countDown();
+        assertEquals("c1:1:slow", first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, client.availablePermits());
+    }
+
+    @Test
+    void testSlowServiceTimesOut() throws Exception {
+        ChatService chat = chat(200, 4, 5);
+        hold = new CountDownLatch(1);
+
+        TeacherServiceException e = failure(chat.ask("alice", "slow"));
+        assertEquals(0, e.getUpstreamStatus());
+        assertTrue(e.getMessage().contains("in time"));
+        assertEquals(4, client.availablePermits());
+    }
+
+    @Test
+    void testBlankQuestionIsRejected() {
+        ChatService chat = chat(5000, 4, 5);
+
+        assertThrows(BadRequestException.class, () -> chat.ask("alice", " "));
+    }
+
+    @Test
+    void testStreamRelaysTokensInOrder() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        List<String> tokens = new CopyOnWriteArrayList<>();
+
+        String answer = chat.stream("alice", "an ETF is a fund", tokens::add).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("an ", "ETF ", "is ", "a ", "fund "), tokens);
+        assertEquals("an ETF is a fund ", answer);
+        awaitPermits(4);
+    }
+
+    @Test
+    void testCancelledStreamStopsGeneration() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        tokenDelayMillis = 20;
+        CountDownLatch firstToken = new CountDownLatch(1);
+        List<String> tokens = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> answer = chat.stream("alice", "word ".repeat(500).trim(), token -> {
+            tokens.add(token);
+            firstToken.countDown();
+        });
+        assertTrue(firstToken.await(5, TimeUnit.SECONDS));
+        answer.cancel(true);
+
+        assertTrue(streamAborted.await(5, TimeUnit.SECONDS));
+        assertTrue(tokens.size() < 500);
+        assertEquals(CircuitBreaker.State.CLOSED, client.circuitState());
+        awaitPermits(4);
+    }
+
+    @Test
+    void testFailingConsumerClosesTheStream() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        tokenDelayMillis = 20;
+
+        CompletableFuture<String> answer = chat.stream("alice", "word ".repeat(500).trim(), token -> {
+            throw new IllegalStateException("client gone");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> answer.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(streamAborted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testStreamRecreatesForgottenConversation() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        chat.ask("alice", "hi").get(5, TimeUnit.SECONDS);
+        messages.clear();
+
+        assertEquals("again ", chat.stream("alice", "again", token -> { }).get(5, TimeUnit.SECONDS));
+        assertEquals(2, conversationIds.get());
+    }
+
+    @Test
+    void testRepeatedQuestionIsAnsweredFromCache() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        String answer = chat.ask("alice", "What is an ETF?").get(5, TimeUnit.SECONDS);
+        int before = requests.get();
+
+        assertEquals(answer, chat.ask("bob", "what is an etf").get(5, TimeUnit.SECONDS));
+        List<String> tokens = new CopyOnWriteArrayList<>();
+        assertEquals(answer, chat.stream("carol", "What's an ETF?", tokens::add).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(answer), tokens);
+        assertEquals(before, requests.get());
+    }
+
+    @Test
+    void testFollowUpGoesToTheConversation() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        chat.ask("alice", "What is a bond?").get(5, TimeUnit.SECONDS);
+        chat.ask("alice", "What are its risks?").get(5, TimeUnit.SECONDS);
+        chat.ask("bob", "What is a stock?").get(5, TimeUnit.SECONDS);
+
+        assertEquals("c2:2:What are its risks?", chat.ask("bob", "What are its risks?").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCachedExchangesAreSentAheadOfTheNextQuestion() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        String etf = chat.ask("bob", "What is an ETF?").get(5, TimeUnit.SECONDS);
+        String bond = chat.ask("bob", "What is a bond?").get(5, TimeUnit.SECONDS);
+
+        assertEquals(etf, chat.ask("alice", "what is an etf").get(5, TimeUnit.SECONDS));
+        assertEquals(bond, chat.stream("alice", "What is a bond", token -> { }).get(5, TimeUnit.SECONDS));
+        assertEquals(1, conversationIds.get());
+
+        chat.ask("alice", "Which of them is riskier?").get(5, TimeUnit.SECONDS);
+        chat.ask("alice", "Why?").get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(
+                "Earlier in this chat I asked and was answered:\n"
+                        + "Q: what is an etf\nA: " + etf + "\n"
+                        + "Q: What is a bond\nA: " + bond + "\n"
+                        + "\nMy question now: Which of them is riskier?",
+                "Why?"), messages.get("c2"));
+    }
+
+    @Test
+    void testStreamedQuestionCarriesCachedExchanges() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        String etf = chat.ask("bob", "What is an ETF?").get(5, TimeUnit.SECONDS);
+        chat.stream("alice", "What is an ETF?", token -> { }).get(5, TimeUnit.SECONDS);
+
+        String answer = chat.stream("alice", "And its fees?", token -> { }).get(5, TimeUnit.SECONDS);
+
+        assertTrue(answer.startsWith("Earlier "), answer);
+        assertEquals("Earlier in this chat I asked and was answered:\nQ: What is an ETF?\nA: " + etf
+                + "\n\nMy question now: And its fees?", messages.get("c2").get(0));
+        assertEquals("c2:2:Thanks", chat.ask("alice", "Thanks").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testAnswerIsTheMessageContentSoAskAndStreamShareIt() throws Exception {
+        ChatService chat = chat(5000, 4, 5);
+        reprAnswers = true;
+
+        assertEquals("c1:1:What's a bond?\nIt's a loan", chat.ask("alice", "What's a bond?\nIt's a loan").get(5, TimeUnit.SECONDS));
+        String answer = chat.ask("alice", "What is an ETF?").get(5, TimeUnit.SECONDS);
+        assertEquals("c1:2:What is an ETF?", answer);
+
+        List<String> tokens = new CopyOnWriteArrayList<>();
+        assertEquals(answer, chat.stream("bob", "what is an etf", tokens::add).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(answer), tokens);
+        chat.ask("bob", "Tell me more about the fees").get(5, TimeUnit.SECONDS);
+        assertTrue(messages.get("c2").get(0).contains("A: " + answer + "\n"), messages.get("c2").get(0));
+    }
+}
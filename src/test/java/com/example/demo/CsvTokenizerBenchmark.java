@@ -0,0 +1,109 @@
+package com.example.demo;
+
+import com.example.demo.csv.CsvTokenizer;
+import com.opencsv.CSVReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the market-data CSV parsing paths on the *_data.csv row shape.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.demo.CsvTokenizerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvTokenizerBenchmark {
+
+    private static final String HEADER = "\"Date\",\"Open\",\"High\",\"Low\",\"Close\",\"Volume\",\"PreviousClose\",\"CompanyName\",\"Symbol\"\n";
+    private static final String ROW = "\"2025-08-25 00:00:00-04:00\",\"226.47999572753906\",\"229.3000030517578\",\"226.22999572753906\","
+            + "\"227.16000366210938\",\"30965700\",\"227.76\",\"Apple, Inc.\",\"AAPL\"\n";
+
+    @Param({"10000"})
+    public int rows;
+
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(HEADER.length() + ROW.length() * rows);
+        sb.append(HEADER);
+        for (int i = 0; i < rows; i++) {
+            sb.append(ROW);
+        }
+        csv = sb.toString();
+    }
+
+    @Benchmark
+    public void regexSplit(Blackhole bh) throws Exception {
+        try (BufferedReader br = new BufferedReader(new StringReader(csv))) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] fields = line.split(",(?=([^\"]*\"[^\"]*\")*[^\"]*$)", -1);
+                if (fields.length < 9) continue;
+                for (int i = 1; i < 7; i++) {
+                    bh.consume(toBigDecimal(fields[i].replace("\"", "").trim()));
+                }
+                bh.consume(fields[7].replace("\"", "").trim());
+                bh.consume(fields[8].replace("\"", "").trim());
+            }
+        }
+    }
+
+    @Benchmark
+    public void openCsvReader(Blackhole bh) throws Exception {
+        try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+            reader.readNext();
+            String[] fields;
+            while ((fields = reader.readNext()) != null) {
+                if (fields.length < 9) continue;
+                for (int i = 1; i < 7; i++) {
+                    bh.consume(toBigDecimal(fields[i].trim()));
+                }
+                bh.consume(fields[7].trim());
+                bh.consume(fields[8].trim());
+            }
+        }
+    }
+
+    @Benchmark
+    public void csvTokenizer(Blackhole bh) throws Exception {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv));
+        tokenizer.next();
+        while (tokenizer.next()) {
+            if (tokenizer.fieldCount() < 9) continue;
+            bh.consume(tokenizer.field(0).toInstant());
+            for (int i = 1; i < 7; i++) {
+                bh.consume(tokenizer.field(i).toBigDecimal());
+            }
+            bh.consume(tokenizer.field(7).toString());
+            bh.consume(tokenizer.field(8).toString());
+        }
+    }
+
+    private static BigDecimal toBigDecimal(String value) {
+        try {
+            return (value != null && !value.isBlank()) ? new BigDecimal(value) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(CsvTokenizerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo;
+
+import com.example.demo.csv.CsvTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+
+    @Test
+    void testTokenize_quotedFieldsWithEmbeddedCommaAndEscapedQuote() {
+        CsvTokenizer tokenizer = new CsvTokenizer();
+
+        int count = tokenizer.tokenize("\"226.16\",\"Apple, \"\"Inc.\"\"\",  AAPL ,");
+
+        assertEquals(4, count);
+        assertEquals("226.16", tokenizer.field(0).toString());
+        assertEquals("Apple, \"Inc.\"", tokenizer.field(1).toString());
+        assertEquals("AAPL", tokenizer.field(2).toString());
+        assertTrue(tokenizer.field(3).isEmpty());
+    }
+
+    @Test
+    void testFieldParsers() {
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        tokenizer.tokenize("\"2025-08-22 00:00:00-04:00\",\"227.75\",\"\",\"nan\",2025-08-22");
+
+        assertEquals(Instant.parse("2025-08-22T04:00:00Z"), tokenizer.field(0).toInstant());
+        assertEquals(new BigDecimal("227.75"), tokenizer.field(1).toBigDecimal());
+        assertNull(tokenizer.field(2).toBigDecimal());
+        assertNull(tokenizer.field(3).toBigDecimal());
+        assertNull(tokenizer.field(1).toInstant());
+        assertEquals(Instant.parse("2025-08-22T00:00:00Z"), tokenizer.field(4).toInstant());
+    }
+
+    @Test
+    void testNext_readsRecordsFromReader() throws Exception {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("a,b\r\n\"multi\nline\",c\nlast"));
+
+        assertTrue(tokenizer.next());
+        assertEquals("b", tokenizer.field(1).toString());
+        assertTrue(tokenizer.next());
+        assertEquals("multi\nline", tokenizer.field(0).toString());
+        assertTrue(tokenizer.next());
+        assertEquals(1, tokenizer.fieldCount());
+        assertEquals("last", tokenizer.field(0).toString());
+        assertFalse(tokenizer.next());
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.demo;
+
+import com.example.demo.csv.MappedCsvReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCsvReaderTest {
+
+    private ForkJoinPool pool;
+    private MappedCsvReader reader;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        reader = new MappedCsvReader(pool);
+        file = Files.createTempFile("mapped-csv", ".csv");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.shutdownNow();
+        Files.deleteIfExists(file);
+    }
+
+    private List<String> readFirstColumn(boolean skipHeader) throws IOException {
+        return reader.read(file, skipHeader, t -> t.field(0).toString());
+    }
+
+    private static List<String> rows(int count) {
+        List<String> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add("row-" + i + ",\"Name, " + i + "\"," + (100 + i % 17) + ".25");
+        }
+        return rows;
+    }
+
+    private static List<String> firstColumn(List<String> rows) {
+        return rows.stream().map(r -> r.substring(0, r.indexOf(','))).toList();
+    }
+
+    @Test
+    void testSmallFileIsOneRange() throws IOException {
+        Files.writeString(file, "ticker,name\nAAPL,Apple\nMSFT,Microsoft\n");
+
+        assertEquals(List.of("AAPL", "MSFT"), readFirstColumn(true));
+        assertEquals(List.of("ticker", "AAPL", "MSFT"), readFirstColumn(false));
+    }
+
+    @Test
+    void testLargeFileKeepsEveryRowOnceInFileOrder() throws IOException {
+        // ~2.5 MB: split into one range per pool thread, each boundary landing inside a line
+        List<String> rows = rows(50_000);
+        List<String> lines = new ArrayList<>(rows);
+        lines.add(0, "ticker,name,price");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        assertTrue(Files.size(file) > 4 * 256 * 1024);
+
+        assertEquals(firstColumn(rows), readFirstColumn(true));
+    }
+
+    @Test
+    void testMultiByteCharactersAcrossRangeBoundaries() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            lines.add("\u017c\u00f3\u0142w-" + i + ",\u20ac" + i);
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        List<String> read = reader.read(file, false, t -> t.field(0) + "|" + t.field(1));
+
+        assertEquals(lines.size(), read.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(lines.get(i).replace(',', '|'), read.get(i));
+        }
+    }
+
+    @Test
+    void testLineLongerThanProbeWindowCrossesBoundary() throws IOException {
+        // a single 300 KB line sits across the first split point, so finding the next line
+        // start has to map several probe windows
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String key = "k" + i;
+            expected.add(key);
+            content.append(key).append(',');
+            if (i == 5_000) {
+                content.append("x".repeat(300 * 1024));
+            } else {
+                content.append("value-").append(i);
+            }
+            content.append('\n');
+        }
+        Files.writeString(file, content);
+
+        List<Integer> lengths = reader.read(file, false, t -> t.field(1).length());
+        assertEquals(expected, readFirstColumn(false));
+        assertEquals(300 * 1024, lengths.get(5_000));
+    }
+
+    @Test
+    void testHeaderOnlyAndEmptyFiles() throws IOException {
+        Files.writeString(file, "ticker,name\n");
+        assertTrue(readFirstColumn(true).isEmpty());
+
+        Files.writeString(file, "ticker,name");
+        assertTrue(readFirstColumn(true).isEmpty());
+
+        Files.writeString(file, "");
+        assertTrue(readFirstColumn(true).isEmpty());
+        assertTrue(readFirstColumn(false).isEmpty());
+    }
+
+    @Test
+    void testMissingTrailingNewlineAndBlankLines() throws IOException {
+        Files.writeString(file, "ticker\nAAPL\n\nMSFT\n\n\nNVDA");
+
+        assertEquals(List.of("AAPL", "MSFT", "NVDA"), readFirstColumn(true));
+    }
+
+    @Test
+    void testNullFromMapperSkipsRecord() throws IOException {
+        List<String> rows = rows(30_000);
+        Files.write(file, rows, StandardCharsets.UTF_8);
+
+        List<String> even = reader.read(file, false, t -> {
+            String key = t.field(0).toString();
+            return Integer.parseInt(key.substring(4)) % 2 == 0 ? key : null;
+        });
+
+        assertEquals(15_000, even.size());
+        for (int i = 0; i < even.size(); i++) {
+            assertEquals("row-" + (2 * i), even.get(i));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo;
+
+import com.example.demo.controller.HealthController;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.repository.MarketTypeRepository;
+import com.example.demo.service.AssetBulkWriter;
+import com.example.demo.service.CSVDataLoaderService;
+import com.example.demo.service.ChatResponseCache;
+import com.example.demo.service.MarketDataBootstrap;
+import com.example.demo.service.MarketDataRefreshedEvent;
+import com.example.demo.service.MarketDataRefresher;
+import com.example.demo.service.PriceHistoryStore;
+import com.example.demo.service.QuoteCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MarketDataBootstrapTest {
+
+    private CSVDataLoaderService loaderService;
+    private MarketDataRefresher refresher;
+    private AssetRepository assetRepository;
+    private final List<Object> events = new ArrayList<>();
+    private MarketDataBootstrap bootstrap;
+    private HealthController health;
+
+    @BeforeEach
+    void setUp() {
+        loaderService = mock(CSVDataLoaderService.class);
+        refresher = mock(MarketDataRefresher.class);
+        assetRepository = mock(AssetRepository.class);
+        ApplicationEventPublisher publisher = events::add;
+        bootstrap = new MarketDataBootstrap(loaderService, refresher, assetRepository, publisher);
+        health = new HealthController(bootstrap, mock(QuoteCache.class), mock(ChatResponseCache.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bootstrap.shutdown();
+    }
+
+    private MarketDataBootstrap.State awaitLoad() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            MarketDataBootstrap.State state = bootstrap.getState();
+            if (state == MarketDataBootstrap.State.READY || state == MarketDataBootstrap.State.FAILED) {
+                return state;
+            }
+            Thread.sleep(10);
+        }
+        return fail("market data load did not finish, state " + bootstrap.getState());
+    }
+
+    private long refreshedEvents() {
+        return events.stream().filter(e -> e instanceof MarketDataRefreshedEvent).count();
+    }
+
+    @Test
+    void testNotReadyBeforeLoadWithoutSnapshot() {
+        ResponseEntity<Map<String, Object>> readiness = health.readiness();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, readiness.getStatusCode());
+        assertEquals(false, readiness.getBody().get("ready"));
+        assertEquals(MarketDataBootstrap.State.PENDING, readiness.getBody().get("marketData"));
+    }
+
+    @Test
+    void testSuccessfulLoadIsReadyAndAnnounced() throws Exception {
+        bootstrap.onApplicationReady();
+
+        assertEquals(MarketDataBootstrap.State.READY, awaitLoad());
+        verify(loaderService).refresh();
+        assertEquals(1, refreshedEvents());
+        assertNotNull(bootstrap.getCompletedAt());
+
+        ResponseEntity<Map<String, Object>> readiness = health.readiness();
+        assertEquals(HttpStatus.OK, readiness.getStatusCode());
+        assertNull(readiness.getBody().get("lastError"));
+    }
+
+    @Test
+    void testUsesRefresherWhenEnabled() throws Exception {
+        when(refresher.isEnabled()).thenReturn(true);
+        when(refresher.refreshAll()).thenReturn(true);
+
+        bootstrap.onApplicationReady();
+
+        assertEquals(MarketDataBootstrap.State.READY, awaitLoad());
+        verify(refresher).refreshAll();
+        verify(loaderService, never()).refresh();
+    }
+
+    @Test
+    void testFailedLoadWithoutSnapshotIsNotReady() throws Exception {
+        doThrow(new IOException("2 of 4 market data files failed to load")).when(loaderService).refresh();
+
+        bootstrap.onApplicationReady();
+
+        assertEquals(MarketDataBootstrap.State.FAILED, awaitLoad());
+        assertEquals(0, refreshedEvents());
+        assertNull(bootstrap.getCompletedAt());
+
+        ResponseEntity<Map<String, Object>> readiness = health.readiness();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, readiness.getStatusCode());
+        assertEquals(MarketDataBootstrap.State.FAILED, readiness.getBody().get("marketData"));
+        assertEquals("2 of 4 market data files failed to load", readiness.getBody().get("lastError"));
+        assertEquals("2 of 4 market data files failed to load", health.health().get("lastError"));
+    }
+
+    @Test
+    void testFailedLoadKeepsServingPersistedSnapshot() throws Exception {
+        when(assetRepository.count()).thenReturn(120L);
+        doThrow(new IOException("feed down")).when(loaderService).refresh();
+
+        bootstrap.onApplicationReady();
+
+        assertEquals(MarketDataBootstrap.State.FAILED, awaitLoad());
+        ResponseEntity<Map<String, Object>> readiness = health.readiness();
+        assertEquals(HttpStatus.OK, readiness.getStatusCode());
+        assertEquals(MarketDataBootstrap.State.FAILED, readiness.getBody().get("marketData"));
+        assertEquals("feed down", readiness.getBody().get("lastError"));
+        assertEquals(true, health.health().get("snapshotAvailable"));
+    }
+
+    @Test
+    void testEveryCsvFileMissingEndsFailed() throws Exception {
+        MarketTypeRepository types = mock(MarketTypeRepository.class);
+        when(types.findByName(any())).thenReturn(Optional.empty());
+        when(types.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        CSVDataLoaderService realLoader = new CSVDataLoaderService(assetRepository, types,
+                mock(AssetBulkWriter.class), events::add, new PriceHistoryStore(""));
+        bootstrap.shutdown();
+        bootstrap = new MarketDataBootstrap(realLoader, refresher, assetRepository, events::add);
+        health = new HealthController(bootstrap, mock(QuoteCache.class), mock(ChatResponseCache.class));
+
+        bootstrap.onApplicationReady();
+
+        assertEquals(MarketDataBootstrap.State.FAILED, awaitLoad());
+        assertTrue(bootstrap.getLastError().startsWith("4 of 4 market data files failed to load"));
+        assertEquals(0, refreshedEvents());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, health.readiness().getStatusCode());
+    }
+}
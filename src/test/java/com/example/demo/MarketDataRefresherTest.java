@@ -0,0 +1,101 @@
+package com.example.demo;
+
+import com.example.demo.entities.MarketType;
+import com.example.demo.repository.MarketTypeRepository;
+import com.example.demo.service.AssetBulkWriter;
+import com.example.demo.service.AssetQuote;
+import com.example.demo.service.MarketDataProvider;
+import com.example.demo.service.MarketDataRefresher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MarketDataRefresherTest {
+
+    private AssetBulkWriter bulkWriter;
+    private MarketDataRefresher refresher;
+    private final List<List<String>> requestedBatches = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        bulkWriter = mock(AssetBulkWriter.class);
+        MarketDataProvider provider = new MarketDataProvider() {
+            @Override
+            public String name() {
+                return "stub";
+            }
+
+            @Override
+            public List<AssetQuote> fetch(List<String> tickers) throws IOException {
+                if (failuresLeft.getAndDecrement() > 0) {
+                    throw new IOException("rate limited");
+                }
+                requestedBatches.add(List.copyOf(tickers));
+                return tickers.stream()
+                        .map(t -> new AssetQuote(Instant.now(), BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE,
+                                BigDecimal.TEN, BigDecimal.ONE, BigDecimal.ONE, t + " Inc.", t))
+                        .collect(Collectors.toList());
+            }
+        };
+        refresher = new MarketDataRefresher(provider, bulkWriter, mock(MarketTypeRepository.class),
+                mock(ApplicationEventPublisher.class), true, 2, 2, 3, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refresher.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRefresh_fetchesInBatchesAndWritesOnce() {
+        MarketType stockType = new MarketType("STOCK");
+        List<String> written = new ArrayList<>();
+        when(bulkWriter.write(any(), eq(stockType))).thenAnswer(invocation -> {
+            ((Stream<AssetQuote>) invocation.getArgument(0)).forEach(q -> written.add(q.ticker()));
+            return null;
+        });
+
+        refresher.refresh(stockType, List.of("AAPL", "MSFT", "NVDA"));
+
+        assertEquals(2, requestedBatches.size());
+        assertEquals(List.of("AAPL", "MSFT", "NVDA"), written);
+        verify(bulkWriter, times(1)).write(any(), eq(stockType));
+    }
+
+    @Test
+    void testRefresh_retriesFailedBatch() {
+        failuresLeft.set(2);
+
+        refresher.refresh(new MarketType("STOCK"), List.of("AAPL"));
+
+        assertEquals(List.of(List.of("AAPL")), requestedBatches);
+    }
+
+    @Test
+    void testRefresh_givesUpAfterMaxAttempts() {
+        failuresLeft.set(3);
+
+        refresher.refresh(new MarketType("STOCK"), List.of("AAPL"));
+
+        assertTrue(requestedBatches.isEmpty());
+        verify(bulkWriter).write(any(), any());
+    }
+}
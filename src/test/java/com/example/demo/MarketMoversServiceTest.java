@@ -0,0 +1,124 @@
+package com.example.demo;
+
+import com.example.demo.dto.MarketSummary;
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.MarketType;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.repository.MarketTypeRepository;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.AssetQuote;
+import com.example.demo.service.MarketDataRefreshedEvent;
+import com.example.demo.service.MarketMoversService;
+import com.example.demo.service.QuoteCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MarketMoversServiceTest {
+
+    private AssetRepository assetRepository;
+    private MarketTypeRepository marketTypeRepository;
+    private QuoteCache quoteCache;
+    private MarketMoversService moversService;
+    private MarketType stockType;
+    private List<Asset> stocks;
+
+    @BeforeEach
+    void setUp() {
+        assetRepository = mock(AssetRepository.class);
+        marketTypeRepository = mock(MarketTypeRepository.class);
+        quoteCache = new QuoteCache(assetRepository, marketTypeRepository, 100, 60_000);
+        moversService = new MarketMoversService(quoteCache, marketTypeRepository, 2);
+
+        stockType = new MarketType("STOCK");
+        stocks = new ArrayList<>(List.of(
+                asset(1L, "AAPL", "110", "100", "500"),
+                asset(2L, "MSFT", "95", "100", "900"),
+                asset(3L, "NVDA", "130", "100", "100"),
+                asset(4L, "IBM", "100", "100", "50"),
+                asset(5L, "INTC", "80", "100", null),
+                asset(6L, "NEW", "10", null, "10")));
+        stocks.get(0).setPercentChange(new BigDecimal("10.00"));
+
+        when(marketTypeRepository.findByName("STOCK")).thenReturn(Optional.of(stockType));
+        when(marketTypeRepository.findAll()).thenReturn(List.of(stockType));
+        when(assetRepository.findByMarketType(stockType)).thenAnswer(inv -> List.copyOf(stocks));
+        when(assetRepository.findAll()).thenAnswer(inv -> List.copyOf(stocks));
+    }
+
+    private Asset asset(Long id, String ticker, String close, String previousClose, String volume) {
+        Asset asset = new Asset();
+        asset.setId(id);
+        asset.setTicker(ticker);
+        asset.setName(ticker + " Inc");
+        asset.setMarketType(stockType);
+        asset.setClosePrice(new BigDecimal(close));
+        asset.setPreviousClose(previousClose != null ? new BigDecimal(previousClose) : null);
+        asset.setVolume(volume != null ? new BigDecimal(volume) : null);
+        return asset;
+    }
+
+    private static List<String> tickers(List<MarketSummary.Mover> movers) {
+        return movers.stream().map(MarketSummary.Mover::ticker).toList();
+    }
+
+    @Test
+    void testPercentChange() {
+        assertEquals(new BigDecimal("1.23"), AssetQuote.percentChange(new BigDecimal("101.23"), new BigDecimal("100")));
+        assertEquals(new BigDecimal("-33.33"), AssetQuote.percentChange(new BigDecimal("2"), new BigDecimal("3")));
+        assertNull(AssetQuote.percentChange(new BigDecimal("2"), BigDecimal.ZERO));
+        assertNull(AssetQuote.percentChange(null, new BigDecimal("3")));
+    }
+
+    @Test
+    void testSummaryCountsAndRanksMovers() {
+        MarketSummary summary = moversService.byMarket("STOCK");
+
+        assertEquals("STOCK", summary.market());
+        assertEquals(6, summary.assets());
+        assertEquals(2, summary.advancers());
+        assertEquals(2, summary.decliners());
+        assertEquals(1, summary.unchanged());
+        assertEquals(0, new BigDecimal("1560").compareTo(summary.totalVolume()));
+        assertEquals(List.of("NVDA", "AAPL"), tickers(summary.topGainers()));
+        assertEquals(List.of("INTC", "MSFT"), tickers(summary.topLosers()));
+        assertEquals(List.of("MSFT", "AAPL"), tickers(summary.mostActive()));
+        assertEquals(new BigDecimal("30.00"), summary.topGainers().get(0).percentChange());
+
+        assertEquals(List.of("NVDA"), tickers(summary.limit(1).topGainers()));
+    }
+
+    @Test
+    void testSummaryIsCachedUntilItsMarketChanges() {
+        moversService.byMarket("STOCK");
+        moversService.byMarket("STOCK");
+        verify(assetRepository, times(1)).findByMarketType(stockType);
+
+        stocks.add(asset(7L, "AMD", "150", "100", "20"));
+        AssetChangeSet changeSet = new AssetChangeSet("STOCK",
+                List.of(new AssetChangeSet.Change(7L, "AMD", null, new BigDecimal("150"))), Instant.now());
+        quoteCache.onAssetsChanged(changeSet);
+        moversService.onAssetsChanged(changeSet);
+
+        assertEquals(List.of("AMD", "NVDA"), tickers(moversService.byMarket("STOCK").topGainers()));
+        verify(assetRepository, times(2)).findByMarketType(stockType);
+    }
+
+    @Test
+    void testRefreshPrecomputesEveryMarket() {
+        moversService.onMarketDataRefreshed(new MarketDataRefreshedEvent(Instant.now()));
+
+        assertEquals(6, moversService.all().assets());
+        assertEquals(6, moversService.byMarket("STOCK").assets());
+        verify(assetRepository, times(1)).findAll();
+        verify(assetRepository, times(1)).findByMarketType(stockType);
+    }
+}
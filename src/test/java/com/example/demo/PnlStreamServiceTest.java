@@ -0,0 +1,143 @@
+package com.example.demo;
+
+import com.example.demo.dto.PnlTick;
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.PortfolioAsset;
+import com.example.demo.repository.PortfolioAssetRepository;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.PnlStreamService;
+import com.example.demo.service.PortfolioValuationEngine;
+import com.example.demo.stream.ConflatingSubscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PnlStreamServiceTest {
+
+    private PortfolioAssetRepository portfolioAssetRepository;
+    private PortfolioValuationEngine engine;
+    private PnlStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        portfolioAssetRepository = mock(PortfolioAssetRepository.class);
+        engine = new PortfolioValuationEngine(portfolioAssetRepository);
+        streamService = new PnlStreamService(engine, 0, 2, 0, 10);
+
+        Asset apple = asset(1L, "AAPL", "200");
+        Asset msft = asset(2L, "MSFT", "400");
+        Asset nvda = asset(3L, "NVDA", "100");
+        when(portfolioAssetRepository.findByUserIdWithAsset(1L)).thenReturn(List.of(
+                lot(apple, "10", "100"), lot(msft, "2", "450")));
+        when(portfolioAssetRepository.findByUserIdWithAsset(2L)).thenReturn(List.of(lot(nvda, "5", "80")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamService.destroy();
+    }
+
+    private static class Collector implements ConflatingSubscriber.Sink<PnlTick> {
+        final List<PnlTick> ticks = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(List<PnlTick> batch) {
+            ticks.addAll(batch);
+        }
+
+        List<PnlTick> drain() throws InterruptedException {
+            Thread.sleep(50);
+            List<PnlTick> drained = List.copyOf(ticks);
+            ticks.clear();
+            return drained;
+        }
+    }
+
+    private void publish(Long assetId, String ticker, String close) {
+        AssetChangeSet changeSet = new AssetChangeSet("STOCK",
+                List.of(new AssetChangeSet.Change(assetId, ticker, BigDecimal.ONE, new BigDecimal(close))), Instant.now());
+        engine.onAssetsChanged(changeSet);
+        streamService.onAssetsChanged(changeSet);
+    }
+
+    @Test
+    void testSubscribe_sendsWholePortfolioFirst() throws InterruptedException {
+        Collector collector = new Collector();
+        streamService.subscribe(1L, collector);
+
+        List<PnlTick> ticks = collector.drain();
+        assertEquals(3, ticks.size());
+        PnlTick total = ticks.get(2);
+        assertNull(total.assetId());
+        assertEquals(new BigDecimal("1900.00"), total.costBasis());
+        assertEquals(new BigDecimal("2800.00"), total.marketValue());
+        assertEquals(new BigDecimal("900.00"), total.profitLoss());
+    }
+
+    @Test
+    void testPriceTick_pushesOnlyChangedPositionAndTotalToHolders() throws InterruptedException {
+        Collector holder = new Collector();
+        Collector other = new Collector();
+        streamService.subscribe(1L, holder);
+        streamService.subscribe(2L, other);
+        holder.drain();
+        other.drain();
+
+        publish(1L, "AAPL", "210");
+
+        List<PnlTick> ticks = holder.drain();
+        assertEquals(2, ticks.size());
+        assertEquals("AAPL", ticks.get(0).ticker());
+        assertEquals(new BigDecimal("1100.00"), ticks.get(0).profitLoss());
+        assertNull(ticks.get(1).assetId());
+        assertEquals(new BigDecimal("1000.00"), ticks.get(1).profitLoss());
+        assertEquals(List.of(), other.drain());
+    }
+
+    @Test
+    void testPriceTick_withoutSubscribersDoesNoWork() {
+        engine.valuation(1L);
+
+        publish(1L, "AAPL", "210");
+
+        verify(portfolioAssetRepository, times(1)).findByUserIdWithAsset(1L);
+        verify(portfolioAssetRepository, never()).findByUserIdWithAsset(2L);
+    }
+
+    @Test
+    void testClosedSubscriberIsUnindexed() throws InterruptedException {
+        Collector collector = new Collector();
+        ConflatingSubscriber<Long, PnlTick> subscriber = streamService.subscribe(1L, collector);
+        collector.drain();
+        subscriber.close();
+
+        publish(1L, "AAPL", "210");
+
+        assertEquals(List.of(), collector.drain());
+        assertEquals(0, streamService.subscribers());
+    }
+
+    private static Asset asset(Long id, String ticker, String close) {
+        Asset asset = new Asset();
+        asset.setId(id);
+        asset.setTicker(ticker);
+        asset.setClosePrice(new BigDecimal(close));
+        return asset;
+    }
+
+    private static PortfolioAsset lot(Asset asset, String quantity, String purchasePrice) {
+        PortfolioAsset pa = new PortfolioAsset();
+        pa.setAsset(asset);
+        pa.setQuantity(new BigDecimal(quantity));
+        pa.setPurchasePrice(new BigDecimal(purchasePrice));
+        return pa;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo;
+
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.PortfolioAsset;
+import com.example.demo.entities.TransactionType;
+import com.example.demo.entities.User;
+import com.example.demo.entities.UserTransaction;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.repository.PortfolioAssetRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.MarketDataBootstrap;
+import com.example.demo.service.PortfolioReadService;
+import com.example.demo.service.UserTransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares GET /api/portfolio/{userId} as it was (four repository calls plus lazy loads)
+ * with the single-query read model, on an in-memory H2 seeded from the fixture provider.
+ * Besides latency it prints the JDBC statements executed per request.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.demo.PortfolioReadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PortfolioReadBenchmark {
+
+    @Param({"20"})
+    public int positions;
+
+    private ConfigurableApplicationContext context;
+    private Statistics statistics;
+    private TransactionTemplate transactionTemplate;
+    private UserRepository userRepository;
+    private PortfolioAssetRepository portfolioAssetRepository;
+    private PortfolioReadService portfolioReadService;
+    private Long userId;
+
+    private long requests;
+    private long statementsBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:portfolio-bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "app.marketdata.provider=fixture",
+                        "app.polling.interval.ms=3600000")
+                .run();
+
+        MarketDataBootstrap bootstrap = context.getBean(MarketDataBootstrap.class);
+        for (int i = 0; i < 600 && !bootstrap.isReady(); i++) {
+            Thread.sleep(100);
+        }
+
+        userRepository = context.getBean(UserRepository.class);
+        portfolioAssetRepository = context.getBean(PortfolioAssetRepository.class);
+        portfolioReadService = context.getBean(PortfolioReadService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setUsername("bench");
+        userId = userRepository.save(user).getId();
+
+        UserTransactionService transactionService = context.getBean(UserTransactionService.class);
+        List<Asset> assets = context.getBean(AssetRepository.class).findAll();
+        for (int i = 0; i < positions && i < assets.size(); i++) {
+            Asset asset = assets.get(i);
+            BigDecimal price = asset.getClosePrice() != null ? asset.getClosePrice() : BigDecimal.TEN;
+            transactionService.addTransaction(userId, asset.getTicker(), BigDecimal.ONE, price, TransactionType.BUY, null);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        requests = 0;
+        statementsBefore = statistics.getPrepareStatementCount();
+    }
+
+    @Benchmark
+    public void legacyPortfolio(Blackhole bh) {
+        // what PortfolioController did before, inside one session as with open-in-view
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            List<PortfolioAsset> assets = portfolioAssetRepository.findByUser_Id(userId);
+            List<UserTransaction> transactions = userRepository.findById(userId).orElseThrow().getTransactions();
+            BigDecimal profit = BigDecimal.ZERO;
+            for (PortfolioAsset pa : userRepository.findById(userId).orElseThrow().getPortfolioAssets()) {
+                profit = profit.add(pa.getAsset().getClosePrice().subtract(pa.getPurchasePrice()).multiply(pa.getQuantity()));
+            }
+            bh.consume(user.getBalance());
+            bh.consume(assets.size());
+            bh.consume(transactions.size());
+            bh.consume(profit);
+        });
+        requests++;
+    }
+
+    @Benchmark
+    public void readModelPortfolio(Blackhole bh) {
+        bh.consume(portfolioReadService.portfolio(userId));
+        requests++;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportStatements() {
+        if (requests > 0) {
+            System.out.printf("%n  statements/request: %.2f%n",
+                    (double) (statistics.getPrepareStatementCount() - statementsBefore) / requests);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(PortfolioReadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo;
+
+import com.example.demo.dto.PortfolioRow;
+import com.example.demo.dto.PortfolioView;
+import com.example.demo.repository.PortfolioAssetRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.PortfolioReadService;
+import com.example.demo.service.PortfolioValuationEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class PortfolioReadServiceTest {
+
+    private UserRepository userRepository;
+    private PortfolioAssetRepository portfolioAssetRepository;
+    private PortfolioValuationEngine valuationEngine;
+    private PortfolioReadService portfolioReadService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        portfolioAssetRepository = mock(PortfolioAssetRepository.class);
+        valuationEngine = new PortfolioValuationEngine(portfolioAssetRepository);
+        portfolioReadService = new PortfolioReadService(userRepository, valuationEngine);
+
+        when(userRepository.findPortfolioRows(1L)).thenReturn(List.of(
+                row(10L, "10", "100", 1L, "AAPL", "200"),
+                row(11L, "2", "450", 2L, "MSFT", "400")));
+    }
+
+    @Test
+    void testPortfolio_buildsViewFromSingleQuery() {
+        PortfolioView view = portfolioReadService.portfolio(1L);
+
+        assertEquals("john", view.user());
+        assertEquals(new BigDecimal("500"), view.balance());
+        assertEquals(2, view.assets().size());
+        assertEquals(new BigDecimal("1000.00"), view.assets().get(0).profitAsset());
+        assertEquals(new BigDecimal("900.00"), view.profitLoss());
+        verify(userRepository, times(1)).findPortfolioRows(1L);
+        verify(portfolioAssetRepository, never()).findByUserIdWithAsset(anyLong());
+    }
+
+    @Test
+    void testPortfolio_usesLivePricesFromValuationEngine() {
+        portfolioReadService.portfolio(1L);
+        valuationEngine.onAssetsChanged(new AssetChangeSet("STOCK",
+                List.of(new AssetChangeSet.Change(1L, "AAPL", new BigDecimal("200.00"), new BigDecimal("210.00"))),
+                Instant.now()));
+
+        PortfolioView view = portfolioReadService.portfolio(1L);
+
+        assertEquals(new BigDecimal("210.00"), view.assets().get(0).asset().closePrice());
+        assertEquals(new BigDecimal("1100.00"), view.assets().get(0).profitAsset());
+        assertEquals(new BigDecimal("1000.00"), view.profitLoss());
+    }
+
+    @Test
+    void testPortfolio_userWithoutPositions() {
+        when(userRepository.findPortfolioRows(2L)).thenReturn(List.of(
+                new PortfolioRow(2L, "anna", BigDecimal.ZERO, null, null, null, null, null, null, null, null)));
+
+        PortfolioView view = portfolioReadService.portfolio(2L);
+
+        assertTrue(view.assets().isEmpty());
+        assertEquals(new BigDecimal("0.00"), view.profitLoss());
+    }
+
+    @Test
+    void testPortfolio_unknownUser() {
+        when(userRepository.findPortfolioRows(3L)).thenReturn(List.of());
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> portfolioReadService.portfolio(3L));
+        assertEquals("User not found", ex.getMessage());
+    }
+
+    private static PortfolioRow row(Long lotId, String quantity, String purchasePrice,
+                                    Long assetId, String ticker, String close) {
+        return new PortfolioRow(1L, "john", new BigDecimal("500"), lotId, new BigDecimal(quantity),
+                new BigDecimal(purchasePrice), new BigDecimal(quantity).multiply(new BigDecimal(purchasePrice)), assetId, ticker, ticker + " Inc.", new BigDecimal(close));
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.demo;
+
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.PortfolioAsset;
+import com.example.demo.repository.PortfolioAssetRepository;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.PortfolioValuationEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PortfolioValuationEngineTest {
+
+    private PortfolioAssetRepository portfolioAssetRepository;
+    private PortfolioValuationEngine engine;
+    private Asset apple;
+    private Asset msft;
+
+    @BeforeEach
+    void setUp() {
+        portfolioAssetRepository = mock(PortfolioAssetRepository.class);
+        engine = new PortfolioValuationEngine(portfolioAssetRepository);
+
+        apple = asset(1L, "AAPL", "200");
+        msft = asset(2L, "MSFT", "400");
+
+        when(portfolioAssetRepository.findByUserIdWithAsset(1L)).thenReturn(List.of(
+                lot(apple, "10", "100"),
+                lot(apple, "5", "160"),
+                lot(msft, "2", "450")));
+    }
+
+    @Test
+    void testValuation_aggregatesLotsPerAssetAndLoadsOnce() {
+        PortfolioValuationEngine.Valuation valuation = engine.valuation(1L);
+        engine.valuation(1L);
+
+        assertEquals(2, valuation.positions().size());
+        assertEquals(new BigDecimal("15"), valuation.positions().get(0).quantity());
+        assertEquals(new BigDecimal("2700.00"), valuation.costBasis());
+        assertEquals(new BigDecimal("3800.00"), valuation.marketValue());
+        assertEquals(new BigDecimal("1100.00"), valuation.profitLoss());
+        verify(portfolioAssetRepository, times(1)).findByUserIdWithAsset(1L);
+    }
+
+    @Test
+    void testPriceTick_revaluesOnlyHeldAsset() {
+        engine.valuation(1L);
+
+        engine.onAssetsChanged(new AssetChangeSet("STOCK",
+                List.of(new AssetChangeSet.Change(1L, "AAPL", new BigDecimal("200.00"), new BigDecimal("210.00")),
+                        new AssetChangeSet.Change(99L, "NVDA", new BigDecimal("100.00"), new BigDecimal("120.00"))),
+                Instant.now()));
+
+        assertEquals(new BigDecimal("3950.00"), engine.valuation(1L).marketValue());
+        assertEquals(new BigDecimal("1250.00"), engine.valuation(1L).profitLoss());
+    }
+
+    @Test
+    void testTrades_updateLoadedBookIncrementally() {
+        engine.valuation(1L);
+
+        engine.applyTrade(1L, apple, new BigDecimal("-10"), new BigDecimal("-1000"));
+        engine.applyTrade(1L, msft, new BigDecimal("-2"), new BigDecimal("-900"));
+
+        PortfolioValuationEngine.Valuation valuation = engine.valuation(1L);
+        assertEquals(1, valuation.positions().size());
+        assertEquals(new BigDecimal("800.00"), valuation.costBasis());
+        assertEquals(new BigDecimal("1000.00"), valuation.marketValue());
+        verify(portfolioAssetRepository, times(1)).findByUserIdWithAsset(1L);
+    }
+
+    @Test
+    void testTrade_forUnloadedUserIsReadFromDatabaseLater() {
+        engine.applyTrade(1L, apple, BigDecimal.ONE, new BigDecimal("200"));
+
+        assertEquals(new BigDecimal("1100.00"), engine.valuation(1L).profitLoss());
+    }
+
+    @Test
+    void testPartialValuation_returnsRequestedPositionsWithPortfolioTotals() {
+        PortfolioValuationEngine.Valuation valuation = engine.valuation(1L, List.of(2L, 99L));
+
+        assertEquals(1, valuation.positions().size());
+        assertEquals("MSFT", valuation.positions().get(0).ticker());
+        assertEquals(new BigDecimal("3800.00"), valuation.marketValue());
+        assertEquals(new BigDecimal("1100.00"), valuation.profitLoss());
+    }
+
+    @Test
+    void testLoadBetweenSaveAndApply_isNotKeptSoTradeCountsOnce() {
+        engine.tradeStarting(1L);
+        // the trade is saved; a cold read now sees it in the database
+        when(portfolioAssetRepository.findByUserIdWithAsset(1L)).thenReturn(List.of(
+                lot(apple, "10", "100"), lot(apple, "5", "160"), lot(apple, "1", "200"), lot(msft, "2", "450")));
+        assertEquals(new BigDecimal("16"), engine.valuation(1L).positions().get(0).quantity());
+
+        engine.applyTrade(1L, apple, BigDecimal.ONE, new BigDecimal("200"));
+
+        assertEquals(new BigDecimal("16"), engine.valuation(1L).positions().get(0).quantity());
+        assertEquals(new BigDecimal("16"), engine.valuation(1L).positions().get(0).quantity());
+        verify(portfolioAssetRepository, times(2)).findByUserIdWithAsset(1L);
+    }
+
+    @Test
+    void testLoadStartedBeforeTradeAndFinishedDuringIt_isNotKept() {
+        PortfolioValuationEngine.Valuation during = engine.valuation(1L, () -> {
+            engine.tradeStarting(1L);
+            return List.of(new PortfolioValuationEngine.Lot(1L, "AAPL", new BigDecimal("200"),
+                    new BigDecimal("16"), new BigDecimal("2000")));
+        });
+        engine.applyTrade(1L, apple, BigDecimal.ONE, new BigDecimal("200"));
+
+        assertEquals(new BigDecimal("16"), during.positions().get(0).quantity());
+        // reloaded from the repository, not the book built during the trade plus the trade again
+        assertEquals(new BigDecimal("15"), engine.valuation(1L).positions().get(0).quantity());
+    }
+
+    @Test
+    void testFailedTrade_letsLaterLoadsBeKept() {
+        engine.tradeStarting(1L);
+        engine.valuation(1L);
+        engine.tradeFailed(1L);
+
+        engine.valuation(1L);
+        engine.valuation(1L);
+
+        verify(portfolioAssetRepository, times(2)).findByUserIdWithAsset(1L);
+    }
+
+    @Test
+    void testConcurrentLoadsAndTrades_neverCountATradeTwice() throws Exception {
+        Object database = new Object();
+        BigDecimal[] saved = {BigDecimal.ZERO};
+        int trades = 2_000;
+        List<Thread> threads = new ArrayList<>();
+        AtomicBoolean trading = new AtomicBoolean(true);
+        Supplier<List<PortfolioValuationEngine.Lot>> read = () -> {
+            synchronized (database) {
+                return saved[0].signum() == 0 ? List.of()
+                        : List.of(new PortfolioValuationEngine.Lot(1L, "AAPL", new BigDecimal("200"),
+                        saved[0], saved[0].multiply(new BigDecimal("200"))));
+            }
+        };
+
+        threads.add(new Thread(() -> {
+            for (int i = 0; i < trades; i++) {
+                engine.tradeStarting(1L);
+                synchronized (database) {
+                    saved[0] = saved[0].add(BigDecimal.ONE);
+                }
+                engine.applyTrade(1L, apple, BigDecimal.ONE, new BigDecimal("200"));
+                if (i % 7 == 0) {
+                    engine.evict(1L);
+                }
+            }
+            trading.set(false);
+        }));
+        for (int r = 0; r < 3; r++) {
+            threads.add(new Thread(() -> {
+                while (trading.get()) {
+                    engine.valuation(1L, read);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+
+        // whatever book survived is read twice: once as loaded or kept, once more from the cache
+        for (int i = 0; i < 2; i++) {
+            PortfolioValuationEngine.Valuation valuation = engine.valuation(1L, read);
+            assertEquals(0, new BigDecimal(trades).compareTo(valuation.positions().get(0).quantity()));
+        }
+    }
+
+    private static Asset asset(Long id, String ticker, String close) {
+        Asset asset = new Asset();
+        asset.setId(id);
+        asset.setTicker(ticker);
+        asset.setClosePrice(new BigDecimal(close));
+        return asset;
+    }
+
+    private static PortfolioAsset lot(Asset asset, String quantity, String purchasePrice) {
+        PortfolioAsset pa = new PortfolioAsset();
+        pa.setAsset(asset);
+        pa.setQuantity(new BigDecimal(quantity));
+        pa.setPurchasePrice(new BigDecimal(purchasePrice));
+        return pa;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo;
+
+import com.example.demo.service.AssetQuote;
+import com.example.demo.service.PriceHistoryStore;
+import com.example.demo.timeseries.Bars;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceHistoryStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static AssetQuote quote(String ticker, String date, String close) {
+        BigDecimal c = new BigDecimal(close);
+        return new AssetQuote(Instant.parse(date + "T04:00:00Z"), c, c, c, c, BigDecimal.TEN, null, ticker, ticker);
+    }
+
+    @Test
+    void testHistorySurvivesRestartAndSameDayUpdates() {
+        PriceHistoryStore store = new PriceHistoryStore(dir.toString());
+        store.record(List.of(quote("AAPL", "2025-08-21", "226.01"), quote("^GSPC", "2025-08-21", "6370.17")));
+        store.record(List.of(quote("AAPL", "2025-08-22", "227.10")));
+        store.record(List.of(quote("AAPL", "2025-08-22", "227.75")));
+
+        PriceHistoryStore reopened = new PriceHistoryStore(dir.toString());
+        Bars bars = reopened.bars("AAPL", null, null).orElseThrow();
+
+        assertArrayEquals(new int[]{(int) LocalDate.parse("2025-08-21").toEpochDay(), (int) LocalDate.parse("2025-08-22").toEpochDay()},
+                bars.days());
+        assertArrayEquals(new double[]{226.01, 227.75}, bars.close());
+        assertEquals(1, reopened.bars("^GSPC", LocalDate.parse("2025-08-01"), null).orElseThrow().size());
+        assertTrue(reopened.bars("MSFT", null, null).isEmpty());
+    }
+
+    @Test
+    void testLateQuotesAreInsertedAndSurviveRestart() {
+        PriceHistoryStore store = new PriceHistoryStore(dir.toString());
+        store.record(List.of(quote("AAPL", "2025-08-20", "220"), quote("AAPL", "2025-08-25", "225")));
+        store.record(List.of(quote("AAPL", "2025-08-22", "222")));
+        store.record(List.of(quote("AAPL", "2025-08-18", "218")));
+        store.record(List.of(quote("AAPL", "2025-08-20", "220.50")));
+
+        PriceHistoryStore reopened = new PriceHistoryStore(dir.toString());
+        Bars bars = reopened.bars("AAPL", null, null).orElseThrow();
+
+        assertArrayEquals(new int[]{(int) LocalDate.parse("2025-08-18").toEpochDay(), (int) LocalDate.parse("2025-08-20").toEpochDay(),
+                        (int) LocalDate.parse("2025-08-22").toEpochDay(), (int) LocalDate.parse("2025-08-25").toEpochDay()},
+                bars.days());
+        assertArrayEquals(new double[]{218, 220.50, 222, 225}, bars.close());
+        assertArrayEquals(bars.close(), store.bars("AAPL", null, null).orElseThrow().close());
+    }
+
+    @Test
+    void testMemoryOnlyStoreWithoutDirectory() {
+        PriceHistoryStore store = new PriceHistoryStore("");
+        store.record(List.of(quote("BTC-USD", "2025-08-22", "116000")));
+
+        assertEquals(1, store.bars("BTC-USD", null, LocalDate.parse("2025-08-22")).orElseThrow().size());
+        assertEquals(0, store.bars("BTC-USD", null, LocalDate.parse("2025-08-21")).orElseThrow().size());
+    }
+}
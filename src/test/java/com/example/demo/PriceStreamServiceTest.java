@@ -0,0 +1,148 @@
+package com.example.demo;
+
+import com.example.demo.dto.PriceTick;
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.MarketType;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.MarketNotFoundException;
+import com.example.demo.exception.TooManySubscribersException;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.repository.MarketTypeRepository;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.PriceStreamService;
+import com.example.demo.service.QuoteCache;
+import com.example.demo.stream.ConflatingSubscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PriceStreamServiceTest {
+
+    private AssetRepository assetRepository;
+    private MarketTypeRepository marketTypeRepository;
+    private QuoteCache quoteCache;
+    private PriceStreamService streamService;
+    private MarketType stockType;
+    private List<Asset> stocks;
+
+    @BeforeEach
+    void setUp() {
+        assetRepository = mock(AssetRepository.class);
+        marketTypeRepository = mock(MarketTypeRepository.class);
+        quoteCache = new QuoteCache(assetRepository, marketTypeRepository, 100, 60_000);
+        streamService = new PriceStreamService(quoteCache, 0, 2, 0, 3);
+
+        stockType = new MarketType("STOCK");
+        stocks = new ArrayList<>(List.of(asset(1L, "AAPL", "200"), asset(2L, "MSFT", "400")));
+        when(marketTypeRepository.findByName("STOCK")).thenReturn(Optional.of(stockType));
+        when(marketTypeRepository.findByName("CRYPTO")).thenReturn(Optional.empty());
+        when(assetRepository.findByMarketType(stockType)).thenAnswer(inv -> List.copyOf(stocks));
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamService.destroy();
+    }
+
+    private Asset asset(Long id, String ticker, String close) {
+        Asset asset = new Asset();
+        asset.setId(id);
+        asset.setTicker(ticker);
+        asset.setMarketType(stockType);
+        asset.setClosePrice(new BigDecimal(close));
+        asset.setPreviousClose(new BigDecimal("100"));
+        return asset;
+    }
+
+    private static class Collector implements ConflatingSubscriber.Sink<PriceTick> {
+        final List<PriceTick> ticks = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(List<PriceTick> batch) {
+            ticks.addAll(batch);
+        }
+
+        List<String> tickers() throws InterruptedException {
+            Thread.sleep(50);
+            return ticks.stream().map(PriceTick::ticker).sorted().toList();
+        }
+    }
+
+    private void publish(String... tickersAndCloses) {
+        List<AssetChangeSet.Change> changes = new ArrayList<>();
+        for (int i = 0; i < tickersAndCloses.length; i += 2) {
+            String ticker = tickersAndCloses[i];
+            BigDecimal close = new BigDecimal(tickersAndCloses[i + 1]);
+            stocks.stream().filter(a -> a.getTicker().equals(ticker)).forEach(a -> a.setClosePrice(close));
+            changes.add(new AssetChangeSet.Change((long) i, ticker, null, close));
+        }
+        AssetChangeSet changeSet = new AssetChangeSet("STOCK", changes, Instant.now());
+        quoteCache.onAssetsChanged(changeSet);
+        streamService.onAssetsChanged(changeSet);
+    }
+
+    @Test
+    void testTicksReachTickerMarketAndWildcardSubscribers() throws InterruptedException {
+        Collector apple = new Collector();
+        Collector market = new Collector();
+        Collector everything = new Collector();
+        streamService.subscribe(List.of("AAPL"), null, apple);
+        streamService.subscribe(null, "STOCK", market);
+        streamService.subscribe(null, null, everything);
+
+        publish("MSFT", "410");
+
+        assertEquals(List.of(), apple.tickers());
+        assertEquals(List.of("MSFT"), market.tickers());
+        assertEquals(List.of("MSFT"), everything.tickers());
+        PriceTick tick = market.ticks.get(0);
+        assertEquals(0, new BigDecimal("410").compareTo(tick.closePrice()));
+        assertEquals("STOCK", tick.market());
+
+        publish("AAPL", "210");
+        assertEquals(List.of("AAPL"), apple.tickers());
+    }
+
+    @Test
+    void testNoQuoteReadWithoutInterestedSubscribers() {
+        streamService.subscribe(List.of("NVDA"), null, new Collector());
+
+        publish("MSFT", "410");
+
+        verify(assetRepository, never()).findByMarketType(any());
+    }
+
+    @Test
+    void testClosedSubscriberIsUnindexed() throws InterruptedException {
+        Collector apple = new Collector();
+        ConflatingSubscriber<String, PriceTick> subscriber = streamService.subscribe(List.of("AAPL"), null, apple);
+        subscriber.close();
+
+        publish("AAPL", "210");
+
+        assertEquals(List.of(), apple.tickers());
+        assertEquals(0, streamService.subscribers());
+        verify(assetRepository, never()).findByMarketType(any());
+    }
+
+    @Test
+    void testSubscriptionLimits() {
+        assertThrows(MarketNotFoundException.class, () -> streamService.subscribe(null, "CRYPTO", new Collector()));
+        List<String> tooMany = new ArrayList<>();
+        for (int i = 0; i <= PriceStreamService.MAX_TICKERS; i++) tooMany.add("T" + i);
+        assertThrows(BadRequestException.class, () -> streamService.subscribe(tooMany, null, new Collector()));
+
+        for (int i = 0; i < 3; i++) streamService.subscribe(List.of("AAPL"), null, new Collector());
+        assertThrows(TooManySubscribersException.class, () -> streamService.subscribe(List.of("AAPL"), null, new Collector()));
+    }
+}
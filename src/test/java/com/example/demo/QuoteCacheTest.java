@@ -0,0 +1,83 @@
+package com.example.demo;
+
+import com.example.demo.entities.Asset;
+import com.example.demo.entities.MarketType;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.repository.MarketTypeRepository;
+import com.example.demo.service.AssetChangeSet;
+import com.example.demo.service.QuoteCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QuoteCacheTest {
+
+    private AssetRepository assetRepository;
+    private MarketTypeRepository marketTypeRepository;
+    private QuoteCache quoteCache;
+    private MarketType stockType;
+    private Asset apple;
+
+    @BeforeEach
+    void setUp() {
+        assetRepository = mock(AssetRepository.class);
+        marketTypeRepository = mock(MarketTypeRepository.class);
+        quoteCache = new QuoteCache(assetRepository, marketTypeRepository, 100, 60_000);
+
+        stockType = new MarketType("STOCK");
+        apple = new Asset();
+        apple.setId(1L);
+        apple.setTicker("AAPL");
+        apple.setMarketType(stockType);
+
+        when(assetRepository.findByTicker("AAPL")).thenReturn(Optional.of(apple));
+        when(marketTypeRepository.findByName("STOCK")).thenReturn(Optional.of(stockType));
+        when(assetRepository.findByMarketType(stockType)).thenReturn(List.of(apple));
+    }
+
+    @Test
+    void testByTicker_secondReadIsServedFromCache() {
+        assertSame(apple, quoteCache.byTicker("AAPL").orElseThrow());
+        assertSame(apple, quoteCache.byTicker("AAPL").orElseThrow());
+
+        verify(assetRepository, times(1)).findByTicker("AAPL");
+        assertEquals(1, quoteCache.tickerStats().hits());
+        assertEquals(1, quoteCache.tickerStats().misses());
+    }
+
+    @Test
+    void testByMarket_usesBothQueriesOnlyOnce() {
+        quoteCache.byMarket("STOCK");
+        quoteCache.byMarket("STOCK");
+
+        verify(marketTypeRepository, times(1)).findByName("STOCK");
+        verify(assetRepository, times(1)).findByMarketType(stockType);
+    }
+
+    @Test
+    void testChangeSet_invalidatesOnlyAffectedEntries() {
+        when(assetRepository.findByTicker("MSFT")).thenReturn(Optional.of(new Asset()));
+        quoteCache.byTicker("AAPL");
+        quoteCache.byTicker("MSFT");
+        quoteCache.byMarket("STOCK");
+
+        quoteCache.onAssetsChanged(new AssetChangeSet("STOCK",
+                List.of(new AssetChangeSet.Change(1L, "AAPL", new BigDecimal("227.75"), new BigDecimal("228.00"))),
+                Instant.now()));
+
+        quoteCache.byTicker("AAPL");
+        quoteCache.byTicker("MSFT");
+        quoteCache.byMarket("STOCK");
+
+        verify(assetRepository, times(2)).findByTicker("AAPL");
+        verify(assetRepository, times(1)).findByTicker("MSFT");
+        verify(assetRepository, times(2)).findByMarketType(stockType);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo;
+
+import com.example.demo.dto.HoldingRow;
+import com.example.demo.dto.RiskReport;
+import com.example.demo.repository.PortfolioAssetRepository;
+import com.example.demo.service.PriceHistoryStore;
+import com.example.demo.service.RiskAnalyticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RiskAnalyticsServiceTest {
+
+    private PortfolioAssetRepository portfolioAssetRepository;
+    private RiskAnalyticsService riskService;
+    private int today;
+
+    @BeforeEach
+    void setUp() {
+        portfolioAssetRepository = mock(PortfolioAssetRepository.class);
+        PriceHistoryStore history = new PriceHistoryStore("");
+        riskService = new RiskAnalyticsService(portfolioAssetRepository, history, 365, 2);
+        today = (int) LocalDate.now(ZoneOffset.UTC).toEpochDay();
+
+        double[] aapl = {100, 110, 99, 108.9};
+        for (int i = 0; i < aapl.length; i++) {
+            put(history, "AAPL", today - 3 + i, aapl[i]);
+        }
+        // no bar two days ago, so that day is left out of every AAPL+MSFT calculation
+        put(history, "MSFT", today - 3, 400);
+        put(history, "MSFT", today - 2, 404);
+        put(history, "MSFT", today, 399.96);
+        put(history, "OLD", today - 900, 10);
+        put(history, "OLD", today - 899, 11);
+    }
+
+    @AfterEach
+    void tearDown() {
+        riskService.destroy();
+    }
+
+    private static void put(PriceHistoryStore history, String ticker, int day, double close) {
+        history.put(ticker, day, close, close, close, close, 1000);
+    }
+
+    private static HoldingRow holding(long userId, String ticker, String quantity, String price) {
+        return new HoldingRow(userId, (long) ticker.hashCode(), ticker, new BigDecimal(quantity), new BigDecimal(price));
+    }
+
+    @Test
+    void testReportAlignsHistoryOnCommonDays() {
+        when(portfolioAssetRepository.findHoldingsByUserId(1L)).thenReturn(List.of(
+                holding(1L, "AAPL", "10", "108.9"),
+                holding(1L, "MSFT", "2", "399.96"),
+                holding(1L, "OLD", "5", "11"),
+                holding(1L, "NEW", "1", "50")));
+
+        RiskReport report = riskService.report(1L);
+
+        assertEquals(LocalDate.ofEpochDay(today), report.asOf());
+        assertEquals(2, report.observations());
+        assertEquals(List.of("OLD", "NEW"), report.withoutHistory());
+        assertEquals(List.of("AAPL", "MSFT"), report.assets().stream().map(RiskReport.AssetRisk::ticker).toList());
+        assertEquals(0, new BigDecimal("1888.92").compareTo(report.marketValue()));
+        // AAPL +10% then -1%, MSFT +1% then -1%: daily P&L about +116.90 and -18.89
+        assertEquals(0, new BigDecimal("18.89").compareTo(report.historicalVar95()));
+        assertEquals(1.0, report.correlation()[0][1], 1e-9);
+        assertNotNull(report.parametricVar99());
+        assertTrue(report.parametricVar99().compareTo(report.parametricVar95()) > 0);
+        assertTrue(report.portfolioVolatility() > 0);
+    }
+
+    @Test
+    void testReportWithoutEnoughHistory() {
+        when(portfolioAssetRepository.findHoldingsByUserId(2L)).thenReturn(List.of(holding(2L, "NEW", "1", "50")));
+
+        RiskReport report = riskService.report(2L);
+
+        assertEquals(0, report.observations());
+        assertNull(report.historicalVar95());
+        assertNull(report.portfolioVolatility());
+        assertEquals(List.of("NEW"), report.withoutHistory());
+    }
+
+    @Test
+    void testNightlyRunCoversEveryAccount() {
+        when(portfolioAssetRepository.findAllHoldings()).thenReturn(List.of(
+                holding(1L, "AAPL", "10", "108.9"),
+                holding(2L, "AAPL", "1", "108.9"),
+                holding(2L, "MSFT", "1", "399.96"),
+                holding(3L, "NEW", "1", "50")));
+
+        Map<Long, RiskReport> reports = riskService.computeAll();
+
+        assertEquals(3, reports.size());
+        assertEquals(3, reports.get(1L).observations());
+        assertEquals(2, reports.get(2L).observations());
+        assertSame(reports.get(2L), riskService.nightlyReport(2L).orElseThrow());
+        assertTrue(riskService.nightlyReport(4L).isEmpty());
+        assertNotNull(riskService.getNightlyCompletedAt());
+        verify(portfolioAssetRepository, never()).findHoldingsByUserId(anyLong());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo;
+
+import com.example.demo.risk.RiskMath;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RiskMathTest {
+
+    @Test
+    void testReturnsAndVolatility() {
+        double[] r = RiskMath.returns(new double[]{100, 110, 99, 99});
+
+        assertArrayEquals(new double[]{0.10, -0.10, 0.0}, r, 1e-12);
+        assertEquals(0.0, RiskMath.mean(r), 1e-12);
+        assertEquals(0.1, RiskMath.stdev(r), 1e-12);
+        assertTrue(Double.isNaN(RiskMath.stdev(new double[]{0.01})));
+    }
+
+    @Test
+    void testCorrelation() {
+        double[] a = {0.01, -0.02, 0.03, 0.00};
+        double[] b = {0.02, -0.04, 0.06, 0.00};
+        double[] flat = {0, 0, 0, 0};
+
+        double[][] c = RiskMath.correlation(new double[][]{a, b, negate(a), flat});
+
+        assertEquals(1.0, c[0][1], 1e-12);
+        assertEquals(-1.0, c[0][2], 1e-12);
+        assertEquals(c[1][2], c[2][1]);
+        assertEquals(0.0, c[0][3]);
+        assertEquals(1.0, c[3][3]);
+    }
+
+    @Test
+    void testPortfolioPnlAndVar() {
+        double[] pnl = RiskMath.combine(new double[][]{{0.01, -0.02}, {0.02, 0.01}}, new double[]{1000, 500});
+        assertArrayEquals(new double[]{20, -15}, pnl, 1e-9);
+
+        double[] losses = new double[100];
+        for (int i = 0; i < losses.length; i++) {
+            losses[i] = i - 50;
+        }
+        assertEquals(45.0, RiskMath.historicalVar(losses, 0.95));
+        assertEquals(49.0, RiskMath.historicalVar(losses, 0.99));
+        assertEquals(0.0, RiskMath.historicalVar(new double[]{1, 2, 3}, 0.95));
+
+        assertEquals(1.6448536, RiskMath.normalQuantile(0.95), 1e-6);
+        assertEquals(2.3263479, RiskMath.normalQuantile(0.99), 1e-6);
+        assertEquals(-1.6448536, RiskMath.normalQuantile(0.05), 1e-6);
+        assertEquals(1.6448536 * 100 - 5, RiskMath.parametricVar(5, 100, 0.95), 1e-4);
+    }
+
+    private static double[] negate(double[] x) {
+        double[] out = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            out[i] = -x[i];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo;
+
+import com.example.demo.stream.ConflatingSubscriber;
+import com.example.demo.stream.SseTokenSink;
+import com.example.demo.stream.StreamDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseTokenSinkTest {
+
+    private StreamDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) dispatcher.close();
+    }
+
+    // records what would go over the wire; the first write can be held to play a slow client
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new ArrayList<>();
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean failing;
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            writing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) throw new IOException("Broken pipe");
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                text.append(data.getData());
+            }
+            synchronized (this) {
+                events.add(text.toString());
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        synchronized List<String> events() {
+            return new ArrayList<>(events);
+        }
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void testTokensAreQueuedWhileTheClientIsSlowAndSentInOrderBeforeDone() throws InterruptedException {
+        dispatcher = new StreamDispatcher("test", 1, 0, 0);
+        RecordingEmitter emitter = new RecordingEmitter();
+        ConflatingSubscriber<Long, SseTokenSink.Part> subscriber = dispatcher.subscribe(new SseTokenSink(emitter), s -> { });
+
+        subscriber.offer(1L, SseTokenSink.Part.token("Bonds "));
+        assertTrue(emitter.writing.await(5, TimeUnit.SECONDS));
+        // the writer is stuck on the client; offering does not wait for it
+        long start = System.nanoTime();
+        subscriber.offer(2L, SseTokenSink.Part.token("pay "));
+        subscriber.offer(3L, SseTokenSink.Part.token("a coupon."));
+        subscriber.offer(4L, SseTokenSink.Part.done());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(emitter.events().isEmpty());
+
+        emitter.release.countDown();
+        await(() -> emitter.completed);
+
+        List<String> events = emitter.events();
+        assertEquals(3, events.size());
+        // the token text is converted to a JSON string when the response is written
+        assertEquals(List.of("event:token\ndata:Bonds \n\n", "event:token\ndata:pay a coupon.\n\n", "event:done\ndata:\n\n"),
+                events);
+    }
+
+    @Test
+    void testErrorIsSentAfterPendingTokens() throws InterruptedException {
+        dispatcher = new StreamDispatcher("test", 1, 0, 0);
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.release.countDown();
+        ConflatingSubscriber<Long, SseTokenSink.Part> subscriber = dispatcher.subscribe(new SseTokenSink(emitter), s -> { });
+
+        subscriber.offer(1L, SseTokenSink.Part.token("Stocks"));
+        subscriber.offer(2L, SseTokenSink.Part.error("Teacher service timed out"));
+        await(() -> emitter.completed);
+
+        assertEquals(List.of("event:token\ndata:Stocks\n\n", "event:error\ndata:Teacher service timed out\n\n"),
+                emitter.events());
+    }
+
+    @Test
+    void testFailedWriteClosesTheSubscriber() throws InterruptedException {
+        dispatcher = new StreamDispatcher("test", 1, 0, 0);
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.failing = true;
+        emitter.release.countDown();
+        AtomicBoolean closed = new AtomicBoolean();
+        ConflatingSubscriber<Long, SseTokenSink.Part> subscriber =
+                dispatcher.subscribe(new SseTokenSink(emitter), s -> closed.set(true));
+
+        subscriber.offer(1L, SseTokenSink.Part.token("Hello"));
+        await(closed::get);
+
+        assertTrue(subscriber.isClosed());
+        assertEquals(0, dispatcher.size());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo;
+
+import com.example.demo.stream.ConflatingSubscriber;
+import com.example.demo.stream.StreamDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamDispatcherTest {
+
+    private StreamDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) dispatcher.close();
+    }
+
+    private static class RecordingSink implements ConflatingSubscriber.Sink<String> {
+        final List<List<String>> batches = new ArrayList<>();
+        final List<Long> sentAt = new ArrayList<>();
+        final AtomicInteger heartbeats = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        volatile CountDownLatch gate;
+
+        @Override
+        public void send(List<String> batch) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                if (gate != null) gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                batches.add(batch);
+                sentAt.add(System.nanoTime());
+            }
+            inFlight.decrementAndGet();
+        }
+
+        @Override
+        public void heartbeat() {
+            heartbeats.incrementAndGet();
+        }
+
+        synchronized int size() {
+            return batches.size();
+        }
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void testUpdatesAreConflatedAndRateLimited() throws InterruptedException {
+        dispatcher = new StreamDispatcher("test", 2, 10, 0);
+        RecordingSink sink = new RecordingSink();
+        ConflatingSubscriber<String, String> subscriber = dispatcher.subscribe(sink, s -> { });
+
+        subscriber.offer("AAPL", "AAPL=1");
+        await(() -> sink.size() == 1);
+        subscriber.offer("AAPL", "AAPL=2");
+        subscriber.offer("MSFT", "MSFT=1");
+        subscriber.offer("AAPL", "AAPL=3");
+        await(() -> sink.size() == 2);
+
+        assertEquals(List.of("AAPL=1"), sink.batches.get(0));
+        assertEquals(List.of("AAPL=3", "MSFT=1"), sink.batches.get(1));
+        assertTrue(sink.sentAt.get(1) - sink.sentAt.get(0) >= TimeUnit.MILLISECONDS.toNanos(95));
+        assertArrayEquals(new long[]{4, 3}, subscriber.counts());
+    }
+
+    @Test
+    void testSlowConsumerGetsLatestValuesWithOneWriteInFlight() throws InterruptedException {
+        dispatcher = new StreamDispatcher("test", 4, 0, 0);
+        RecordingSink sink = new RecordingSink();
+        sink.gate = new CountDownLatch(1);
+        ConflatingSubscriber<String, String> subscriber = dispatcher.subscribe(sink, s -> { });
+
+        subscriber.offer("AAPL", "AAPL=0");
+        await(() -> sink.inFlight.get() == 1);
+        for (int i = 1; i <= 1000; i++) {
+            subscriber.offer("AAPL", "AAPL=" + i);
+        }
+        sink.gate.countDown();
+        await(() -> sink.size() == 2);
+        Thread.sleep(50);
+
+        assertEquals(2, sink.size());
+        assertEquals(List.of("AAPL=1000"), sink.batches.get(1));
+        assertEquals(1, sink.maxInFlight.get());
+    }
+
+    @Test
+    void testFailedWriteClosesSubscriber() throws InterruptedException {
+        dispatcher = new StreamDispatcher("test", 1, 0, 0);
+        AtomicBoolean closed = new AtomicBoolean();
+        ConflatingSubscriber<String, String> subscriber = dispatcher.subscribe(batch -> {
+            throw new IOException("Broken pipe");
+        }, s -> closed.set(true));
+        assertEquals(1, dispatcher.size());
+
+        subscriber.offer("AAPL", "AAPL=1");
+        await(closed::get);
+
+        assertTrue(subscriber.isClosed());
+        assertEquals(0, dispatcher.size());
+        subscriber.offer("AAPL", "AAPL=2");
+    }
+
+    @Test
+    void testIdleSubscribersGetHeartbeats() throws InterruptedException {
+        dispatcher = new StreamDispatcher("test", 1, 0, 20);
+        RecordingSink sink = new RecordingSink();
+        dispatcher.subscribe(sink, s -> { });
+
+        await(() -> sink.heartbeats.get() >= 2);
+        assertEquals(0, sink.size());
+    }
+}
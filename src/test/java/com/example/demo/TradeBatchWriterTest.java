@@ -0,0 +1,175 @@
+package com.example.demo;
+
+import com.example.demo.dto.TradeOrder;
+import com.example.demo.entities.TransactionType;
+import com.example.demo.service.TradeBatchWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a mixed batch through the JDBC statements against H2 and checks what ends up in the
+ * balance, the positions, the transactions and the trade ledger.
+ */
+class TradeBatchWriterTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TradeBatchWriter writer;
+    private long userId;
+    private long appleId;
+    private long microsoftId;
+    private long nvidiaId;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("h2-test-schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        writer = new TradeBatchWriter(jdbcTemplate);
+
+        jdbcTemplate.update("INSERT INTO users (username, balance) VALUES ('jan', 1000)");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users", Long.class);
+        appleId = asset("AAPL");
+        microsoftId = asset("MSFT");
+        nvidiaId = asset("NVDA");
+        jdbcTemplate.update("INSERT INTO portfolio_asset (user_id, asset_id, quantity, purchase_price, cost_basis) "
+                + "VALUES (?, ?, 10, 100, 1000)", userId, microsoftId);
+        jdbcTemplate.update("INSERT INTO portfolio_asset (user_id, asset_id, quantity, purchase_price, cost_basis) "
+                + "VALUES (?, ?, 3, 50, 150)", userId, nvidiaId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private long asset(String ticker) {
+        jdbcTemplate.update("INSERT INTO asset (name, ticker) VALUES (?, ?)", ticker + " Inc", ticker);
+        return jdbcTemplate.queryForObject("SELECT id FROM asset WHERE ticker = ?", Long.class, ticker);
+    }
+
+    private TradeOrder buy(String ticker, String amount, String price) {
+        return new TradeOrder(userId, TransactionType.BUY, ticker, null, new BigDecimal(amount), new BigDecimal(price));
+    }
+
+    // a SELL names the portfolio lot, not the asset
+    private TradeOrder sell(long lotId, String amount, String price) {
+        return new TradeOrder(userId, TransactionType.SELL, null, lotId, new BigDecimal(amount), new BigDecimal(price));
+    }
+
+    private long lot(long assetId) {
+        return jdbcTemplate.queryForObject("SELECT id FROM portfolio_asset WHERE user_id = ? AND asset_id = ?",
+                Long.class, userId, assetId);
+    }
+
+    private Map<String, Object> position(long assetId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT quantity, purchase_price, cost_basis FROM portfolio_asset WHERE user_id = ? AND asset_id = ?",
+                userId, assetId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static void assertAmount(String expected, Object actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual), expected + " != " + actual);
+    }
+
+    @Test
+    void testMixedBatch_updatesBalancePositionsAndLedger() {
+        List<String> errors = writer.applyGroup(userId, List.of(
+                buy("AAPL", "5", "200"),
+                sell(lot(microsoftId), "4", "150"),
+                buy("MSFT", "2", "130"),
+                sell(lot(nvidiaId), "5", "60"),
+                sell(lot(nvidiaId) + 100, "1", "300"),
+                buy("AAPL", "0", "200")));
+
+        assertEquals(Arrays.asList(null, null, null, null, "PortfolioAsset not found", "amount must be positive"), errors);
+
+        // only the sales move cash: 4 * 150 + 3 * 60
+        assertAmount("1780", jdbcTemplate.queryForObject("SELECT balance FROM users WHERE id = ?", BigDecimal.class, userId));
+
+        Map<String, Object> apple = position(appleId);
+        assertAmount("5", apple.get("QUANTITY"));
+        assertAmount("200", apple.get("PURCHASE_PRICE"));
+        assertAmount("1000", apple.get("COST_BASIS"));
+
+        // 1000 - 4/10 of it, then 2 * 130 on top: 860 over 8 shares
+        Map<String, Object> microsoft = position(microsoftId);
+        assertAmount("8", microsoft.get("QUANTITY"));
+        assertAmount("107.50", microsoft.get("PURCHASE_PRICE"));
+        assertAmount("860", microsoft.get("COST_BASIS"));
+
+        // selling more than is held sells all of it and removes the lot
+        assertNull(position(nvidiaId));
+
+        List<Map<String, Object>> transactions = jdbcTemplate.queryForList(
+                "SELECT id, asset_id, amount, type FROM user_transactions ORDER BY id");
+        assertEquals(4, transactions.size());
+        assertEquals(List.of("BUY", "SELL", "BUY", "SELL"), transactions.stream().map(t -> t.get("TYPE")).toList());
+
+        List<Map<String, Object>> events = jdbcTemplate.queryForList(
+                "SELECT user_id, asset_id, transaction_id, kind, quantity_delta, cost_delta, cash_delta, price "
+                        + "FROM trade_events ORDER BY id");
+        assertEquals(4, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(transactions.get(i).get("ID"), events.get(i).get("TRANSACTION_ID"));
+            assertEquals(transactions.get(i).get("ASSET_ID"), events.get(i).get("ASSET_ID"));
+            assertEquals(transactions.get(i).get("TYPE"), events.get(i).get("KIND"));
+            assertEquals(userId, ((Number) events.get(i).get("USER_ID")).longValue());
+        }
+        assertEvent(events.get(0), "5", "1000", "0", "200");
+        assertEvent(events.get(1), "-4", "-400", "600", "150");
+        assertEvent(events.get(2), "2", "260", "0", "130");
+        assertEvent(events.get(3), "-3", "-150", "180", "60");
+
+        // the MSFT events add up to what the batch did to that position and to the cash
+        Map<String, Object> totals = jdbcTemplate.queryForMap(
+                "SELECT SUM(quantity_delta) AS quantity, SUM(cost_delta) AS cost, SUM(cash_delta) AS cash "
+                        + "FROM trade_events WHERE asset_id = ?", microsoftId);
+        assertAmount("-2", totals.get("QUANTITY"));
+        assertAmount("-140", totals.get("COST"));
+        assertAmount("600", totals.get("CASH"));
+    }
+
+    private static void assertEvent(Map<String, Object> event, String quantity, String cost, String cash, String price) {
+        assertAmount(quantity, event.get("QUANTITY_DELTA"));
+        assertAmount(cost, event.get("COST_DELTA"));
+        assertAmount(cash, event.get("CASH_DELTA"));
+        assertAmount(price, event.get("PRICE"));
+    }
+
+    @Test
+    void testRejectedBatch_writesNothing() {
+        List<String> errors = writer.applyGroup(userId, List.of(
+                buy("GOOG", "1", "100"),
+                sell(lot(nvidiaId) + 100, "1", "100")));
+
+        assertEquals(List.of("Asset not found", "PortfolioAsset not found"), errors);
+        assertAmount("1000", jdbcTemplate.queryForObject("SELECT balance FROM users WHERE id = ?", BigDecimal.class, userId));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_transactions", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trade_events", Integer.class));
+        assertAmount("1000", position(microsoftId).get("COST_BASIS"));
+    }
+
+    @Test
+    void testUnknownUser_rejectsEveryOrder() {
+        assertEquals(List.of("User not found", "User not found"),
+                writer.applyGroup(userId + 1, List.of(buy("AAPL", "1", "100"), sell(lot(microsoftId), "1", "100"))));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_transactions", Integer.class));
+    }
+}
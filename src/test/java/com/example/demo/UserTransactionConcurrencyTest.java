@@ -0,0 +1,141 @@
+package com.example.demo;
+
+import com.example.demo.entities.*;
+import com.example.demo.repository.AssetRepository;
+import com.example.demo.repository.LedgerSnapshotRepository;
+import com.example.demo.repository.PortfolioAssetRepository;
+import com.example.demo.repository.TradeEventRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserTransactionRepository;
+import com.example.demo.service.PortfolioValuationEngine;
+import com.example.demo.service.TradeBatchWriter;
+import com.example.demo.service.TradeLedger;
+import com.example.demo.service.UserTransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Hammers a few accounts from many threads with interleaved buys and partial sells of the
+ * same lot, then checks that no sale or balance update was lost.
+ */
+class UserTransactionConcurrencyTest {
+
+    private static final int USERS = 4;
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 200;
+    private static final BigDecimal INITIAL_QUANTITY = new BigDecimal("10000");
+    private static final BigDecimal SELL_PRICE = new BigDecimal("150");
+    private static final BigDecimal BUY_PRICE = new BigDecimal("100");
+
+    private final List<User> users = new ArrayList<>();
+    private final List<AtomicInteger> sells = new ArrayList<>();
+    private final List<AtomicInteger> buys = new ArrayList<>();
+    // rows saved to user_transactions, per user
+    private final Map<Long, AtomicInteger> saved = new ConcurrentHashMap<>();
+    private PortfolioValuationEngine valuationEngine;
+    private UserTransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        AssetRepository assetRepository = mock(AssetRepository.class);
+        PortfolioAssetRepository portfolioAssetRepository = mock(PortfolioAssetRepository.class);
+        UserTransactionRepository transactionRepository = mock(UserTransactionRepository.class);
+        when(transactionRepository.save(any(UserTransaction.class))).thenAnswer(inv -> {
+            UserTransaction t = inv.getArgument(0);
+            saved.computeIfAbsent(t.getUserId(), id -> new AtomicInteger()).incrementAndGet();
+            return t;
+        });
+        valuationEngine = new PortfolioValuationEngine(portfolioAssetRepository);
+        transactionService = new UserTransactionService(userRepository, assetRepository,
+                transactionRepository, valuationEngine, mock(TradeBatchWriter.class),
+                new TradeLedger(mock(TradeEventRepository.class), mock(LedgerSnapshotRepository.class), 100),
+                mock(PlatformTransactionManager.class));
+
+        Asset asset = new Asset();
+        asset.setId(1L);
+        asset.setTicker("AAPL");
+        asset.setClosePrice(new BigDecimal("200"));
+        when(assetRepository.findByTicker("AAPL")).thenReturn(Optional.of(asset));
+
+        for (long id = 1; id <= USERS; id++) {
+            User user = new User();
+            user.setId(id);
+            PortfolioAsset lot = new PortfolioAsset();
+            lot.setId(id * 1000);
+            lot.setUser(user);
+            lot.setAsset(asset);
+            lot.setQuantity(INITIAL_QUANTITY);
+            lot.setPurchasePrice(BUY_PRICE);
+            user.addAsset(lot);
+            users.add(user);
+            sells.add(new AtomicInteger());
+            buys.add(new AtomicInteger());
+
+            when(userRepository.findById(id)).thenReturn(Optional.of(user));
+            when(portfolioAssetRepository.findByUserIdWithAsset(id))
+                    .thenAnswer(inv -> List.copyOf(user.getPortfolioAssets()));
+            valuationEngine.valuation(id);
+        }
+    }
+
+    @Test
+    void testConcurrentTradesKeepEveryAccountConsistent() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    int u = random.nextInt(USERS);
+                    long userId = u + 1;
+                    if (random.nextInt(4) == 0) {
+                        transactionService.addTransaction(userId, "AAPL", BigDecimal.ONE, BUY_PRICE, TransactionType.BUY, null);
+                        buys.get(u).incrementAndGet();
+                    } else {
+                        transactionService.addTransaction(userId, null, BigDecimal.ONE, SELL_PRICE, TransactionType.SELL, userId * 1000);
+                        sells.get(u).incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (int u = 0; u < USERS; u++) {
+            User user = users.get(u);
+            int sold = sells.get(u).get();
+            int bought = buys.get(u).get();
+
+            // buys of the same asset are merged into the existing position
+            PortfolioAsset lot = user.getPortfolioAssets().get(0);
+            assertEquals(INITIAL_QUANTITY.subtract(BigDecimal.valueOf(sold)).add(BigDecimal.valueOf(bought)), lot.getQuantity());
+            assertEquals(1, user.getPortfolioAssets().size());
+            assertEquals(0, SELL_PRICE.multiply(BigDecimal.valueOf(sold)).compareTo(user.getBalance()));
+            assertEquals(sold + bought, saved.getOrDefault(user.getId(), new AtomicInteger()).get());
+
+            // every unit was bought at 100 and is valued at 200
+            BigDecimal held = INITIAL_QUANTITY.subtract(BigDecimal.valueOf(sold)).add(BigDecimal.valueOf(bought));
+            assertEquals(0, held.multiply(new BigDecimal("100")).compareTo(valuationEngine.valuation(user.getId()).profitLoss()));
+        }
+    }
+}
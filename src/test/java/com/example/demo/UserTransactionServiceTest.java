@@ -1,22 +1,51 @@
 package com.example.demo;
 
+import com.example.demo.dto.TradeBatchResult;
+import com.example.demo.dto.TradeOrder;
+import com.example.demo.dto.TransactionCursor;
+import com.example.demo.dto.TransactionPage;
+import com.example.demo.dto.TransactionQuery;
+import com.example.demo.dto.TransactionSummary;
 import com.example.demo.entities.*;
 import com.example.demo.repository.AssetRepository;
+import com.example.demo.repository.LedgerSnapshotRepository;
+import com.example.demo.repository.PortfolioAssetRepository;
+import com.example.demo.repository.TradeEventRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserTransactionRepository;
+import com.example.demo.service.PortfolioValuationEngine;
+import com.example.demo.service.TradeBatchWriter;
+import com.example.demo.service.TradeLedger;
 import com.example.demo.service.UserTransactionService;
+import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.PersistentBag;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class UserTransactionServiceTest {
 
     private UserRepository userRepository;
     private AssetRepository assetRepository;
+    private PortfolioAssetRepository portfolioAssetRepository;
+    private UserTransactionRepository transactionRepository;
+    private TradeBatchWriter batchWriter;
+    private LedgerSnapshotRepository snapshotRepository;
+    private final List<TradeEvent> events = new ArrayList<>();
+    // rows in user_transactions
+    private final List<UserTransaction> saved = new ArrayList<>();
     private UserTransactionService transactionService;
     private User user;
     private Asset asset;
@@ -30,11 +59,20 @@ class UserTransactionServiceTest {
     void setUp() {
         userRepository = mock(UserRepository.class);
         assetRepository = mock(AssetRepository.class);
-        transactionService = new UserTransactionService(userRepository, assetRepository);
+        portfolioAssetRepository = mock(PortfolioAssetRepository.class);
+        transactionRepository = mock(UserTransactionRepository.class);
+        batchWriter = mock(TradeBatchWriter.class);
+        snapshotRepository = mock(LedgerSnapshotRepository.class);
+        TradeLedger ledger = new TradeLedger(inMemoryEvents(), snapshotRepository, 3);
+        transactionService = new UserTransactionService(userRepository, assetRepository, transactionRepository,
+                new PortfolioValuationEngine(portfolioAssetRepository), batchWriter, ledger,
+                mock(PlatformTransactionManager.class));
 
         user = new User();
         user.setId(1L);
         user.setBalance(BigDecimal.ZERO);
+        // a lazy collection that was never loaded; touching it without a session throws
+        user.setTransactions(new PersistentBag<>((SharedSessionContractImplementor) null));
 
         asset = new Asset();
         asset.setId(1L);
@@ -43,6 +81,21 @@ class UserTransactionServiceTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(assetRepository.findByTicker("AAPL")).thenReturn(Optional.of(asset));
+        when(portfolioAssetRepository.findByUserIdWithAsset(1L))
+                .thenAnswer(inv -> List.copyOf(user.getPortfolioAssets()));
+        when(transactionRepository.save(any(UserTransaction.class))).thenAnswer(inv -> {
+            UserTransaction t = inv.getArgument(0);
+            if (t.getId() == null) {
+                t.setId(nextId());
+                saved.add(t);
+            }
+            return t;
+        });
+        when(transactionRepository.findByIdAndUserId(anyLong(), eq(1L)))
+                .thenAnswer(inv -> saved.stream()
+                        .filter(t -> t.getId().equals(inv.getArgument(0)) && Long.valueOf(1L).equals(t.getUserId()))
+                        .findFirst());
+        doAnswer(inv -> saved.remove((UserTransaction) inv.getArgument(0))).when(transactionRepository).delete(any(UserTransaction.class));
     }
 
     @Test
@@ -50,9 +103,9 @@ class UserTransactionServiceTest {
         UserTransaction tx = transactionService.addTransaction(
                 1L, "AAPL", BigDecimal.ONE, new BigDecimal("150"), TransactionType.BUY, null);
 
-        tx.setId(nextId());
 
-        assertEquals(1, user.getTransactions().size());
+        assertEquals(List.of(tx), saved);
+        assertEquals(1L, tx.getUserId());
         assertEquals(1, user.getPortfolioAssets().size());
 
         PortfolioAsset pa = user.getPortfolioAssets().get(0);
@@ -60,18 +113,57 @@ class UserTransactionServiceTest {
         assertEquals(BigDecimal.ONE, pa.getQuantity());
     }
 
+    @Test
+    void testBuysOfSameAssetAreMergedAtAverageCost() {
+        transactionService.addTransaction(1L, "AAPL", BigDecimal.ONE, new BigDecimal("100"), TransactionType.BUY, null);
+        transactionService.addTransaction(1L, "AAPL", new BigDecimal("3"), new BigDecimal("120"), TransactionType.BUY, null);
+
+        assertEquals(2, saved.size());
+        assertEquals(1, user.getPortfolioAssets().size());
+
+        PortfolioAsset pa = user.getPortfolioAssets().get(0);
+        assertEquals(0, new BigDecimal("4").compareTo(pa.getQuantity()));
+        assertEquals(0, new BigDecimal("115").compareTo(pa.getPurchasePrice()));
+        assertEquals(0, new BigDecimal("460").compareTo(pa.getCostBasis()));
+    }
+
+    @Test
+    void testPartialSellKeepsAverageCost() {
+        transactionService.addTransaction(1L, "AAPL", BigDecimal.ONE, new BigDecimal("100"), TransactionType.BUY, null);
+        transactionService.addTransaction(1L, "AAPL", new BigDecimal("3"), new BigDecimal("120"), TransactionType.BUY, null);
+        PortfolioAsset pa = user.getPortfolioAssets().get(0);
+        pa.setId(10L);
+
+        transactionService.addTransaction(1L, null, BigDecimal.ONE, new BigDecimal("200"), TransactionType.SELL, 10L);
+
+        assertEquals(0, new BigDecimal("3").compareTo(pa.getQuantity()));
+        assertEquals(0, new BigDecimal("345").compareTo(pa.getCostBasis()));
+        assertEquals(0, new BigDecimal("255").compareTo(transactionService.calculateProfitLoss(1L)));
+    }
+
+    @Test
+    void testDeleteBuyTransactionReducesMergedPosition() {
+        UserTransaction first = transactionService.addTransaction(
+                1L, "AAPL", BigDecimal.ONE, new BigDecimal("100"), TransactionType.BUY, null);
+        UserTransaction second = transactionService.addTransaction(
+                1L, "AAPL", new BigDecimal("3"), new BigDecimal("120"), TransactionType.BUY, null);
+
+        transactionService.deleteTransaction(1L, second.getId());
+
+        assertEquals(1, user.getPortfolioAssets().size());
+        assertEquals(0, BigDecimal.ONE.compareTo(user.getPortfolioAssets().get(0).getQuantity()));
+    }
+
     @Test
     void testAddSellTransactionUpdatesBalance() {
         UserTransaction buyTx = transactionService.addTransaction(
                 1L, "AAPL", BigDecimal.TEN, new BigDecimal("100"), TransactionType.BUY, null);
-        buyTx.setId(nextId());
 
         PortfolioAsset pa = user.getPortfolioAssets().get(0);
         pa.setId(10L);
 
         UserTransaction sellTx = transactionService.addTransaction(
                 1L, "AAPL", BigDecimal.TEN, new BigDecimal("120"), TransactionType.SELL, pa.getId());
-        sellTx.setId(nextId());
 
         assertTrue(user.getPortfolioAssets().isEmpty());
         assertEquals(new BigDecimal("1200"), user.getBalance());
@@ -81,28 +173,25 @@ class UserTransactionServiceTest {
     void testDeleteBuyTransactionRemovesAsset() {
         UserTransaction buyTx = transactionService.addTransaction(
                 1L, "AAPL", BigDecimal.ONE, new BigDecimal("100"), TransactionType.BUY, null);
-        buyTx.setId(nextId());
 
         assertEquals(1, user.getPortfolioAssets().size());
 
         transactionService.deleteTransaction(1L, buyTx.getId());
 
         assertTrue(user.getPortfolioAssets().isEmpty());
-        assertTrue(user.getTransactions().isEmpty());
+        assertTrue(saved.isEmpty());
     }
 
     @Test
     void testDeleteSellTransactionUpdatesBalance() {
         UserTransaction buyTx = transactionService.addTransaction(
                 1L, "AAPL", BigDecimal.TEN, new BigDecimal("100"), TransactionType.BUY, null);
-        buyTx.setId(nextId());
 
         PortfolioAsset pa = user.getPortfolioAssets().get(0);
         pa.setId(20L);
 
         UserTransaction sellTx = transactionService.addTransaction(
                 1L, "AAPL", BigDecimal.TEN, new BigDecimal("150"), TransactionType.SELL, pa.getId());
-        sellTx.setId(nextId());
 
         assertEquals(new BigDecimal("1500"), user.getBalance());
 
@@ -110,17 +199,191 @@ class UserTransactionServiceTest {
 
         assertEquals(BigDecimal.ZERO, user.getBalance());
 
-        assertFalse(user.getTransactions().contains(sellTx));
+        assertEquals(List.of(buyTx), saved);
+    }
+
+    @Test
+    void testDeleteSellRestoresPositionAtOriginalCost() {
+        transactionService.addTransaction(1L, "AAPL", BigDecimal.TEN, new BigDecimal("100"), TransactionType.BUY, null);
+        PortfolioAsset pa = user.getPortfolioAssets().get(0);
+        pa.setId(20L);
+        UserTransaction sellTx = transactionService.addTransaction(
+                1L, null, new BigDecimal("4"), new BigDecimal("150"), TransactionType.SELL, 20L);
+
+        transactionService.deleteTransaction(1L, sellTx.getId());
+
+        assertEquals(0, BigDecimal.TEN.compareTo(pa.getQuantity()));
+        assertEquals(0, new BigDecimal("1000").compareTo(pa.getCostBasis()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(user.getBalance()));
+        assertEquals(TradeEventKind.REVERSAL, events.get(events.size() - 1).getKind());
+    }
+
+    @Test
+    void testUpdateBuyAmountRebuildsPositionFromLedger() {
+        UserTransaction first = transactionService.addTransaction(
+                1L, "AAPL", BigDecimal.TEN, new BigDecimal("100"), TransactionType.BUY, null);
+        transactionService.addTransaction(1L, "AAPL", BigDecimal.ONE, new BigDecimal("200"), TransactionType.BUY, null);
+
+        transactionService.updateTransaction(1L, first.getId(), new BigDecimal("4"), null, null);
+
+        PortfolioAsset pa = user.getPortfolioAssets().get(0);
+        assertEquals(0, new BigDecimal("5").compareTo(pa.getQuantity()));
+        assertEquals(0, new BigDecimal("600").compareTo(pa.getCostBasis()));
+        assertEquals(0, new BigDecimal("120").compareTo(pa.getPurchasePrice()));
+    }
+
+    @Test
+    void testUpdateTwiceReversesOnlyTheCurrentVersion() {
+        UserTransaction tx = transactionService.addTransaction(
+                1L, "AAPL", BigDecimal.TEN, new BigDecimal("100"), TransactionType.BUY, null);
+
+        transactionService.updateTransaction(1L, tx.getId(), new BigDecimal("6"), null, null);
+        transactionService.updateTransaction(1L, tx.getId(), new BigDecimal("8"), null, null);
+
+        assertEquals(0, new BigDecimal("8").compareTo(user.getPortfolioAssets().get(0).getQuantity()));
+    }
+
+    @Test
+    void testReplayWritesSnapshotAfterInterval() {
+        UserTransaction tx = transactionService.addTransaction(
+                1L, "AAPL", BigDecimal.ONE, new BigDecimal("100"), TransactionType.BUY, null);
+        transactionService.addTransaction(1L, "AAPL", BigDecimal.ONE, new BigDecimal("100"), TransactionType.BUY, null);
+        transactionService.addTransaction(1L, "AAPL", BigDecimal.ONE, new BigDecimal("100"), TransactionType.BUY, null);
+
+        transactionService.deleteTransaction(1L, tx.getId());
+
+        verify(snapshotRepository).save(argThat(snapshot -> snapshot.getLastEventId() == 4L
+                && snapshot.getPositions().size() == 1
+                && new BigDecimal("2").compareTo(snapshot.getPositions().get(0).getQuantity()) == 0));
+    }
+
+    @Test
+    void testFailedTradeDoesNotStopValuationCaching() {
+        assertThrows(RuntimeException.class, () -> transactionService.addTransaction(
+                1L, "NVDA", BigDecimal.ONE, new BigDecimal("100"), TransactionType.BUY, null));
+
+        transactionService.calculateProfitLoss(1L);
+        transactionService.calculateProfitLoss(1L);
+
+        verify(portfolioAssetRepository, times(1)).findByUserIdWithAsset(1L);
     }
 
     @Test
     void testCalculateProfitLoss() {
         UserTransaction tx = transactionService.addTransaction(
                 1L, "AAPL", BigDecimal.TEN, new BigDecimal("100"), TransactionType.BUY, null);
-        tx.setId(nextId());
 
         BigDecimal profit = transactionService.calculateProfitLoss(1L);
 
         assertEquals(new BigDecimal("1000.00"), profit);
     }
+
+    @Test
+    void testDeleteTransactionDeletesRowDirectly() {
+        UserTransaction buyTx = transactionService.addTransaction(
+                1L, "AAPL", BigDecimal.ONE, new BigDecimal("100"), TransactionType.BUY, null);
+
+        transactionService.deleteTransaction(1L, buyTx.getId());
+
+        verify(transactionRepository).findByIdAndUserId(buyTx.getId(), 1L);
+        verify(transactionRepository).delete(buyTx);
+    }
+
+    @Test
+    void testTradesNeverLoadTheUsersTransactions() {
+        transactionService.addTransaction(1L, "AAPL", BigDecimal.TEN, new BigDecimal("100"), TransactionType.BUY, null);
+        user.getPortfolioAssets().get(0).setId(20L);
+        UserTransaction sellTx = transactionService.addTransaction(
+                1L, null, new BigDecimal("4"), new BigDecimal("150"), TransactionType.SELL, 20L);
+        transactionService.deleteTransaction(1L, sellTx.getId());
+
+        assertFalse(Hibernate.isInitialized(user.getTransactions()));
+        assertEquals(1, saved.size());
+    }
+
+    @Test
+    void testDeleteTransactionOfOtherUserIsNotFound() {
+        assertThrows(RuntimeException.class, () -> transactionService.deleteTransaction(1L, 999L));
+        verify(transactionRepository, never()).delete(any());
+    }
+
+    @Test
+    void testGetTransactionHistoryReturnsCursorOfLastRow() {
+        LocalDateTime now = LocalDateTime.of(2025, 8, 25, 12, 0);
+        when(transactionRepository.findPage(any())).thenReturn(List.of(
+                summary(3L, now),
+                summary(2L, now.minusMinutes(1)),
+                summary(1L, now.minusMinutes(2))));
+
+        TransactionPage page = transactionService.getTransactionHistory(new TransactionQuery(1L, null, null, null, 2));
+
+        assertEquals(2, page.items().size());
+        assertEquals(new TransactionCursor(now.minusMinutes(1), 2L), TransactionCursor.decode(page.nextCursor()));
+        verify(transactionRepository).findPage(new TransactionQuery(1L, null, null, null, 3));
+    }
+
+    @Test
+    void testGetTransactionHistoryLastPageHasNoCursor() {
+        when(transactionRepository.findPage(any())).thenReturn(List.of(summary(1L, LocalDateTime.now())));
+
+        TransactionPage page = transactionService.getTransactionHistory(new TransactionQuery(1L, null, null, null, 2));
+
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testExecuteBatchGroupsOrdersByUserAndKeepsInputOrder() {
+        TradeOrder buy1 = new TradeOrder(1L, TransactionType.BUY, "AAPL", null, BigDecimal.ONE, BigDecimal.TEN);
+        TradeOrder buy2 = new TradeOrder(2L, TransactionType.BUY, "AAPL", null, BigDecimal.ONE, BigDecimal.TEN);
+        TradeOrder sell1 = new TradeOrder(1L, TransactionType.SELL, null, 5L, BigDecimal.ONE, BigDecimal.TEN);
+        when(batchWriter.applyGroup(1L, List.of(buy1, sell1))).thenReturn(Arrays.asList(null, "PortfolioAsset not found"));
+        when(batchWriter.applyGroup(2L, List.of(buy2))).thenReturn(Arrays.asList((String) null));
+
+        TradeBatchResult result = transactionService.executeBatch(List.of(buy1, buy2, sell1));
+
+        assertEquals(2, result.applied());
+        assertEquals(1, result.failed());
+        assertTrue(result.results().get(0).applied());
+        assertEquals(2L, result.results().get(1).userId());
+        assertEquals("PortfolioAsset not found", result.results().get(2).error());
+    }
+
+    @Test
+    void testExecuteBatchFailedGroupDoesNotAffectOtherUsers() {
+        TradeOrder buy1 = new TradeOrder(1L, TransactionType.BUY, "AAPL", null, BigDecimal.ONE, BigDecimal.TEN);
+        TradeOrder buy2 = new TradeOrder(2L, TransactionType.BUY, "AAPL", null, BigDecimal.ONE, BigDecimal.TEN);
+        TradeOrder noUser = new TradeOrder(null, TransactionType.BUY, "AAPL", null, BigDecimal.ONE, BigDecimal.TEN);
+        when(batchWriter.applyGroup(eq(1L), any())).thenThrow(new IllegalStateException("deadlock"));
+        when(batchWriter.applyGroup(eq(2L), any())).thenReturn(Arrays.asList((String) null));
+
+        TradeBatchResult result = transactionService.executeBatch(List.of(buy1, buy2, noUser));
+
+        assertEquals(1, result.applied());
+        assertEquals("deadlock", result.results().get(0).error());
+        assertTrue(result.results().get(1).applied());
+        assertEquals("userId is required", result.results().get(2).error());
+    }
+
+    private TradeEventRepository inMemoryEvents() {
+        TradeEventRepository repository = mock(TradeEventRepository.class);
+        when(repository.save(any(TradeEvent.class))).thenAnswer(inv -> {
+            TradeEvent event = inv.getArgument(0);
+            event.setId((long) events.size() + 1);
+            events.add(event);
+            return event;
+        });
+        when(repository.findByUserIdAndIdGreaterThanOrderByIdAsc(anyLong(), anyLong())).thenAnswer(inv -> events.stream()
+                .filter(e -> e.getUserId().equals(inv.getArgument(0)) && e.getId() > (Long) inv.getArgument(1))
+                .toList());
+        when(repository.findByUserIdAndTransactionIdOrderByIdAsc(anyLong(), any())).thenAnswer(inv -> events.stream()
+                .filter(e -> e.getUserId().equals(inv.getArgument(0)) && Objects.equals(e.getTransactionId(), inv.getArgument(1)))
+                .toList());
+        return repository;
+    }
+
+    private static TransactionSummary summary(Long id, LocalDateTime timestamp) {
+        return new TransactionSummary(id, TransactionType.BUY, BigDecimal.ONE, BigDecimal.TEN, timestamp,
+                1L, "AAPL", "Apple Inc.");
+    }
 }
@@ -0,0 +1,95 @@
+-- Tables as Hibernate creates them for the entities on H2 (ddl-auto), for the JDBC tests
+-- that run hand-written SQL against a real database. BigDecimal columns without an explicit
+-- precision are numeric(38,2), as in the application database.
+SET MODE PostgreSQL;
+
+CREATE TABLE market_type (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255)
+);
+
+CREATE TABLE asset (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255),
+    name_key VARCHAR(255),
+    ticker VARCHAR(255),
+    exchange VARCHAR(255),
+    open_price NUMERIC(38,2),
+    high_price NUMERIC(38,2),
+    low_price NUMERIC(38,2),
+    last_updated TIMESTAMP(6) WITH TIME ZONE,
+    close_price NUMERIC(38,2),
+    volume NUMERIC(38,2),
+    previous_close NUMERIC(38,2),
+    percent_change NUMERIC(38,2),
+    price_to_buy NUMERIC(38,2),
+    price_to_sell NUMERIC(38,2),
+    market_type_id BIGINT REFERENCES market_type (id),
+    CONSTRAINT uk_asset_ticker UNIQUE (ticker)
+);
+
+CREATE INDEX idx_asset_close ON asset (close_price, id);
+CREATE INDEX idx_asset_volume ON asset (volume, id);
+CREATE INDEX idx_asset_percent_change ON asset (percent_change, id);
+CREATE INDEX idx_asset_market_close ON asset (market_type_id, close_price, id);
+CREATE INDEX idx_asset_market_volume ON asset (market_type_id, volume, id);
+CREATE INDEX idx_asset_market_percent_change ON asset (market_type_id, percent_change, id);
+CREATE INDEX idx_asset_name_key ON asset (name_key, id);
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255),
+    balance NUMERIC(38,2)
+);
+
+CREATE TABLE portfolio_asset (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    quantity NUMERIC(38,2),
+    user_id BIGINT REFERENCES users (id),
+    asset_id BIGINT REFERENCES asset (id),
+    profit_asset NUMERIC(38,2),
+    purchase_price NUMERIC(38,2),
+    cost_basis NUMERIC(38,8),
+    CONSTRAINT uk_portfolio_asset_user_asset UNIQUE (user_id, asset_id)
+);
+
+CREATE TABLE user_transactions (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT REFERENCES users (id),
+    asset_id BIGINT REFERENCES asset (id),
+    amount NUMERIC(38,2),
+    price NUMERIC(38,2),
+    type VARCHAR(255) CHECK (type IN ('BUY', 'SELL')),
+    timestamp TIMESTAMP(6)
+);
+
+CREATE TABLE trade_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    asset_id BIGINT,
+    transaction_id BIGINT,
+    kind VARCHAR(255) NOT NULL CHECK (kind IN ('OPENING', 'BUY', 'SELL', 'REVERSAL')),
+    quantity_delta NUMERIC(38,8),
+    cost_delta NUMERIC(38,8),
+    cash_delta NUMERIC(38,8),
+    price NUMERIC(38,2),
+    reversed_event_id BIGINT,
+    timestamp TIMESTAMP(6)
+);
+
+CREATE TABLE ledger_snapshots (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    last_event_id BIGINT NOT NULL,
+    cash NUMERIC(38,8),
+    timestamp TIMESTAMP(6)
+);
+
+CREATE INDEX idx_ledger_snapshot_user ON ledger_snapshots (user_id, last_event_id);
+
+CREATE TABLE ledger_snapshot_positions (
+    snapshot_id BIGINT NOT NULL REFERENCES ledger_snapshots (id),
+    asset_id BIGINT,
+    quantity NUMERIC(38,8),
+    cost_basis NUMERIC(38,8)
+);